@@ -0,0 +1,20 @@
+package ro.ccms.mapping;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maps a field of a {@link Table} entity to a column. Supported field types are the primitives and their
+ * wrappers for {@code int}, {@code long}, {@code float} and {@code boolean}, {@code String},
+ * {@code LocalDateTime} and enums stored by name.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Column {
+    /**
+     * @return the name of the column.
+     */
+    String value();
+}
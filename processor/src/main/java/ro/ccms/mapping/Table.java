@@ -0,0 +1,27 @@
+package ro.ccms.mapping;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an entity stored in a database table; a {@code <Entity>TableMapper} that reads its rows is generated
+ * next to it at compile time.
+ * <p>
+ * The entity needs a no-argument constructor and a {@code setId(Long)} method, and every {@link Column}
+ * field a setter named after it.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface Table {
+    /**
+     * @return the name of the table.
+     */
+    String value();
+
+    /**
+     * @return the name of the primary key column.
+     */
+    String id() default "id";
+}
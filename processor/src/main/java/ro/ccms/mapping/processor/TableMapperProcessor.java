@@ -0,0 +1,340 @@
+package ro.ccms.mapping.processor;
+
+import ro.ccms.mapping.Column;
+import ro.ccms.mapping.Table;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Generates a {@code <Entity>TableMapper} for every {@link Table} entity.
+ * <p>
+ * The generated mapper lists the mapped columns for the SELECT clauses, resolves the column indices once
+ * per {@code ResultSet}, reads every row by index, and converts enums through a lookup table built once,
+ * instead of upper-casing the stored name for {@code valueOf} on every row.
+ * <p>
+ * {@link Column} is claimed too, as it is read along with its {@link Table}. The mappers carry no
+ * {@code @Generated}, which no processor would claim in the round that compiles them; their doc comment
+ * names the processor instead.
+ */
+@SupportedAnnotationTypes({"ro.ccms.mapping.Table", "ro.ccms.mapping.Column"})
+public class TableMapperProcessor extends AbstractProcessor {
+    private static final String GENERATED_SUFFIX = "TableMapper";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(Table.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@Table applies to classes only.");
+                continue;
+            }
+            TypeElement entity = (TypeElement) element;
+            List<MappedColumn> columns = mappedColumns(entity);
+            if (columns != null) {
+                write(entity, columns);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the id column followed by the {@link Column} fields in declaration order, or null on errors.
+     */
+    private List<MappedColumn> mappedColumns(TypeElement entity) {
+        Table table = entity.getAnnotation(Table.class);
+        List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(entity));
+        boolean valid = true;
+
+        List<MappedColumn> columns = new ArrayList<>();
+        columns.add(new MappedColumn(table.id(), "id", ColumnType.BOXED_LONG, null));
+        if (!hasSetter(methods, "setId")) {
+            error(entity, "@Table entity has no setId method.");
+            valid = false;
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(entity.getEnclosedElements())) {
+            Column column = field.getAnnotation(Column.class);
+            if (column == null) {
+                continue;
+            }
+            String name = field.getSimpleName().toString();
+            ColumnType type = ColumnType.of(field.asType());
+            String setter = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            if (type == null) {
+                error(field, "Unsupported @Column type " + field.asType() + ".");
+                valid = false;
+            } else if (!hasSetter(methods, setter)) {
+                error(field, "@Column field has no " + setter + " method.");
+                valid = false;
+            } else {
+                String enumType = type == ColumnType.ENUM ? field.asType().toString() : null;
+                columns.add(new MappedColumn(column.value(), name, type, enumType));
+            }
+        }
+        return valid ? columns : null;
+    }
+
+    private static boolean hasSetter(List<ExecutableElement> methods, String name) {
+        for (ExecutableElement method : methods) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == 1
+                    && !method.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void write(TypeElement entity, List<MappedColumn> columns) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(entity);
+        String packageName = packageElement.getQualifiedName().toString();
+        String entityType = entity.getQualifiedName().toString();
+        String simpleName = entity.getSimpleName() + GENERATED_SUFFIX;
+        String table = entity.getAnnotation(Table.class).value();
+
+        StringBuilder source = new StringBuilder();
+        if (!packageElement.isUnnamed()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import java.sql.ResultSet;\n")
+                .append("import java.sql.SQLException;\n")
+                .append("import java.util.HashMap;\n")
+                .append("import java.util.Locale;\n")
+                .append("import java.util.Map;\n\n")
+                .append("/**\n")
+                .append(" * Reads rows of the {@code ").append(table).append("} table into {@link ")
+                .append(entity.getSimpleName()).append("} entities, by column index.\n")
+                .append(" * Generated by ").append(getClass().getName()).append(" from the mapping annotations; do not edit.\n")
+                .append(" */\n")
+                .append("public final class ").append(simpleName).append(" {\n")
+                .append("    public static final String TABLE = \"").append(table).append("\";\n")
+                .append("    public static final String COLUMNS = \"").append(columnList(columns)).append("\";\n");
+
+        for (MappedColumn column : columns) {
+            if (column.enumType != null) {
+                source.append("    private static final Map<String, ").append(column.enumType).append("> ")
+                        .append(column.lookupTable()).append(" = new HashMap<>();\n");
+            }
+        }
+        boolean hasEnums = columns.stream().anyMatch(column -> column.enumType != null);
+        if (hasEnums) {
+            source.append("\n    static {\n");
+            for (MappedColumn column : columns) {
+                if (column.enumType != null) {
+                    source.append("        for (").append(column.enumType).append(" value : ")
+                            .append(column.enumType).append(".values()) {\n")
+                            .append("            ").append(column.lookupTable()).append(".put(value.name(), value);\n")
+                            .append("            ").append(column.lookupTable())
+                            .append(".put(value.name().toLowerCase(Locale.ROOT), value);\n")
+                            .append("        }\n");
+                }
+            }
+            source.append("    }\n");
+        }
+        source.append("\n");
+        for (MappedColumn column : columns) {
+            source.append("    private final int ").append(column.indexField()).append(";\n");
+        }
+
+        source.append("\n    private ").append(simpleName).append("(ResultSet resultSet) throws SQLException {\n");
+        for (MappedColumn column : columns) {
+            source.append("        ").append(column.indexField()).append(" = resultSet.findColumn(\"")
+                    .append(column.name).append("\");\n");
+        }
+        source.append("    }\n\n")
+                .append("    /**\n")
+                .append("     * Resolves the indices of the mapped columns in the given result set.\n")
+                .append("     *\n")
+                .append("     * @throws SQLException if a mapped column is missing from the result set.\n")
+                .append("     */\n")
+                .append("    public static ").append(simpleName).append(" of(ResultSet resultSet) throws SQLException {\n")
+                .append("        return new ").append(simpleName).append("(resultSet);\n")
+                .append("    }\n\n")
+                .append("    /**\n")
+                .append("     * @return the mapped columns qualified by a table alias, for the SELECT clause of a join.\n")
+                .append("     */\n")
+                .append("    public static String columns(String alias) {\n")
+                .append("        return ");
+        for (int i = 0; i < columns.size(); i++) {
+            source.append(i == 0 ? "alias + \"." : " + alias + \".").append(columns.get(i).name)
+                    .append(i < columns.size() - 1 ? ", \"" : "\"");
+        }
+        source.append(";\n    }\n\n")
+                .append("    /**\n")
+                .append("     * Reads the current row of the result set this mapper was resolved for.\n")
+                .append("     */\n")
+                .append("    public ").append(entityType).append(" map(ResultSet resultSet) throws SQLException {\n")
+                .append("        ").append(entityType).append(" entity = new ").append(entityType).append("();\n");
+        for (MappedColumn column : columns) {
+            source.append(column.type.readStatement(column));
+        }
+        source.append("        return entity;\n")
+                .append("    }\n");
+
+        for (MappedColumn column : columns) {
+            if (column.enumType != null) {
+                source.append("\n    private static ").append(column.enumType).append(" ").append(column.converter())
+                        .append("(String name) {\n")
+                        .append("        if (name == null) {\n")
+                        .append("            return null;\n")
+                        .append("        }\n")
+                        .append("        ").append(column.enumType).append(" value = ").append(column.lookupTable())
+                        .append(".get(name);\n")
+                        .append("        return value != null ? value : ").append(column.enumType)
+                        .append(".valueOf(name.toUpperCase(Locale.ROOT));\n")
+                        .append("    }\n");
+            }
+        }
+        source.append("}\n");
+
+        try (Writer writer = processingEnv.getFiler()
+                .createSourceFile(packageName + "." + simpleName, entity).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(entity, "Can not write " + simpleName + ": " + e.getMessage());
+        }
+    }
+
+    private static String columnList(List<MappedColumn> columns) {
+        StringBuilder list = new StringBuilder();
+        for (MappedColumn column : columns) {
+            if (list.length() > 0) {
+                list.append(", ");
+            }
+            list.append(column.name);
+        }
+        return list.toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static class MappedColumn {
+        private final String name;
+        private final String field;
+        private final ColumnType type;
+        private final String enumType;
+
+        MappedColumn(String name, String field, ColumnType type, String enumType) {
+            this.name = name;
+            this.field = field;
+            this.type = type;
+            this.enumType = enumType;
+        }
+
+        String setter() {
+            return "set" + Character.toUpperCase(field.charAt(0)) + field.substring(1);
+        }
+
+        String indexField() {
+            return field + "Index";
+        }
+
+        String lookupTable() {
+            return field.replaceAll("([A-Z])", "_$1").toUpperCase(Locale.ROOT) + "_VALUES";
+        }
+
+        String converter() {
+            return "to" + Character.toUpperCase(field.charAt(0)) + field.substring(1);
+        }
+    }
+
+    private enum ColumnType {
+        INT("getInt", false), BOXED_INT("getInt", true),
+        LONG("getLong", false), BOXED_LONG("getLong", true),
+        FLOAT("getFloat", false), BOXED_FLOAT("getFloat", true),
+        BOOLEAN("getBoolean", false), BOXED_BOOLEAN("getBoolean", true),
+        STRING("getString", false),
+        LOCAL_DATE_TIME("getTimestamp", false),
+        ENUM("getString", false);
+
+        private final String getter;
+        private final boolean boxed;
+
+        ColumnType(String getter, boolean boxed) {
+            this.getter = getter;
+            this.boxed = boxed;
+        }
+
+        static ColumnType of(TypeMirror type) {
+            switch (type.getKind()) {
+                case INT:
+                    return INT;
+                case LONG:
+                    return LONG;
+                case FLOAT:
+                    return FLOAT;
+                case BOOLEAN:
+                    return BOOLEAN;
+                case DECLARED:
+                    Element element = ((DeclaredType) type).asElement();
+                    if (element.getKind() == ElementKind.ENUM) {
+                        return ENUM;
+                    }
+                    switch (((TypeElement) element).getQualifiedName().toString()) {
+                        case "java.lang.Integer":
+                            return BOXED_INT;
+                        case "java.lang.Long":
+                            return BOXED_LONG;
+                        case "java.lang.Float":
+                            return BOXED_FLOAT;
+                        case "java.lang.Boolean":
+                            return BOXED_BOOLEAN;
+                        case "java.lang.String":
+                            return STRING;
+                        case "java.time.LocalDateTime":
+                            return LOCAL_DATE_TIME;
+                        default:
+                            return null;
+                    }
+                default:
+                    return null;
+            }
+        }
+
+        String readStatement(MappedColumn column) {
+            String read = "resultSet." + getter + "(" + column.indexField() + ")";
+            String target = "        entity." + column.setter() + "(";
+            if (this == ENUM) {
+                return target + column.converter() + "(" + read + "));\n";
+            }
+            if (this == LOCAL_DATE_TIME) {
+                return "        java.sql.Timestamp " + column.field + " = " + read + ";\n"
+                        + target + column.field + " == null ? null : " + column.field + ".toLocalDateTime());\n";
+            }
+            if (boxed) {
+                // The getters return 0 or false for SQL NULL, which only wasNull tells apart.
+                return "        " + primitive() + " " + column.field + " = " + read + ";\n"
+                        + target + "resultSet.wasNull() ? null : " + column.field + ");\n";
+            }
+            return target + read + ");\n";
+        }
+
+        private String primitive() {
+            return getter.substring(3).toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -1,27 +1,177 @@
 package ro.ccms;
 
+import ro.ccms.api.HttpApiServer;
+import ro.ccms.domain.Client;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.Rental;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.validators.ClientValidator;
+import ro.ccms.domain.validators.MovieValidator;
+import ro.ccms.repository.CachingRepository;
 import ro.ccms.repository.ClientDBRepository;
+import ro.ccms.repository.ElephantSQLDataSource;
+import ro.ccms.repository.GroupCommitWriter;
+import ro.ccms.repository.HiLoIdAllocator;
 import ro.ccms.repository.MovieDBRepository;
+import ro.ccms.repository.PooledDataSource;
+import ro.ccms.repository.ReadValidationPolicy;
 import ro.ccms.repository.RentalDBRepository;
+import ro.ccms.repository.SchemaInitializer;
+import ro.ccms.repository.TransactionalDataSource;
+import ro.ccms.repository.file.ClientFileRepository;
+import ro.ccms.repository.file.MovieFileRepository;
+import ro.ccms.repository.memory.InMemoryRentalRepository;
+import ro.ccms.repository.memory.InMemoryRepository;
+import ro.ccms.repository.memory.RentalColumnStore;
+import ro.ccms.repository.wal.DurableClientRepository;
+import ro.ccms.repository.wal.DurableMovieRepository;
+import ro.ccms.repository.wal.DurableRentalRepository;
 import ro.ccms.service.ClientDBService;
 import ro.ccms.service.MovieDBService;
 import ro.ccms.service.RentalDBService;
+import ro.ccms.service.ServiceExecutor;
 import ro.ccms.ui.Console;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
 
 public class Main {
+    private static final int ENTITY_CACHE_SIZE = 10_000;
+    private static final long ENTITY_CACHE_TTL_MILLIS = 300_000;
+    // Service calls the HTTP API runs at once when no connection pool bounds them.
+    private static final int IN_MEMORY_CONCURRENT_OPERATIONS = 64;
+    private static final int DEFAULT_HTTP_PORT = 8080;
+
+    /**
+     * Runs the console on the backend named by the {@code backend} system property:
+     * {@code jdbc} (the default) for the PostgreSQL database, {@code memory} for the in-memory repositories,
+     * {@code file} for the movies and clients in memory-mapped files under the {@code dataDir} directory,
+     * {@code wal} for in-memory repositories made durable by write-ahead logs under the {@code dataDir} directory.
+     * On the database, the {@code readValidation} system property sets the {@link ReadValidationPolicy}
+     * of the repositories, e.g. {@code sampled:100,lenient}.
+     * With the {@code ui} system property set to {@code http}, the HTTP API is served on the {@code httpPort}
+     * port (default 8080) instead of the console.
+     */
     public static void main(String[] args){
+        String backend = System.getProperty("backend", "jdbc");
+        if ("memory".equalsIgnoreCase(backend)) {
+            runInMemory();
+        } else if ("file".equalsIgnoreCase(backend)) {
+            runOnFiles(Path.of(System.getProperty("dataDir", "data")));
+        } else if ("wal".equalsIgnoreCase(backend)) {
+            runOnWriteAheadLogs(Path.of(System.getProperty("dataDir", "data")));
+        } else {
+            runOnDatabase();
+        }
+    }
+
+    private static void runOnDatabase() {
+        try (PooledDataSource dataSource = new PooledDataSource(new ElephantSQLDataSource())) {
+            new SchemaInitializer(dataSource).initialize();
+
+            // Repositories take part in the units of work of the services through this data source.
+            TransactionalDataSource txDataSource = new TransactionalDataSource(dataSource);
+            ReadValidationPolicy readValidation =
+                    ReadValidationPolicy.parse(System.getProperty("readValidation", "full"));
+
+            MovieDBRepository movieDBRepository = new MovieDBRepository(txDataSource);
+            movieDBRepository.setReadValidationPolicy(readValidation);
+            CachingRepository<Long, Movie> movieRepository = new CachingRepository<>(
+                    movieDBRepository, ENTITY_CACHE_SIZE, ENTITY_CACHE_TTL_MILLIS, true, txDataSource);
+            MovieDBService movieService = new MovieDBService(movieRepository);
+
+            ClientDBRepository clientDBRepository = new ClientDBRepository(txDataSource);
+            clientDBRepository.setReadValidationPolicy(readValidation);
+            CachingRepository<Long, Client> clientRepository = new CachingRepository<>(
+                    clientDBRepository, ENTITY_CACHE_SIZE, ENTITY_CACHE_TTL_MILLIS, true, txDataSource);
+            ClientDBService clientService = new ClientDBService(clientRepository);
+
+            // Blocks are fetched on the connection of the checkout transaction that needs them, not on a second one.
+            RentalDBRepository rentalRepository = new RentalDBRepository(txDataSource,
+                    new HiLoIdAllocator(txDataSource, SchemaInitializer.RENTAL_ID_SEQUENCE));
+            rentalRepository.setReadValidationPolicy(readValidation);
+            RentalDBService rentalService = new RentalDBService(rentalRepository, movieService, clientService,
+                    new RentalColumnStore(), txDataSource);
+
+            try (GroupCommitWriter<Long, Rental> rentalWriter = new GroupCommitWriter<>(rentalRepository,
+                    Integer.getInteger("groupCommitBatchSize", GroupCommitWriter.DEFAULT_MAX_BATCH_SIZE),
+                    Long.getLong("groupCommitDelayMillis", GroupCommitWriter.DEFAULT_MAX_DELAY_MILLIS))) {
+                rentalService.setRentalWriter(rentalWriter);
+                runUserInterface(movieService, clientService, rentalService, dataSource.getStatistics().getMaxPoolSize());
+            }
+
+            System.out.println(dataSource.getStatistics());
+            System.out.println("Movies cache: " + movieRepository.getStatistics());
+            System.out.println("Clients cache: " + clientRepository.getStatistics());
+            if (readValidation.isLenient()) {
+                System.out.printf("Quarantined rows: movies %d, clients %d, rentals %d%n",
+                        movieDBRepository.getQuarantine().count(), clientDBRepository.getQuarantine().count(),
+                        rentalRepository.getQuarantine().count());
+            }
+        }
+    }
 
-        MovieDBRepository movieRepository = new MovieDBRepository();
+    private static void runInMemory() {
+        InMemoryRepository<Movie> movieRepository = new InMemoryRepository<>(new MovieValidator());
         MovieDBService movieService = new MovieDBService(movieRepository);
 
-        ClientDBRepository clientRepository = new ClientDBRepository();
+        InMemoryRepository<Client> clientRepository = new InMemoryRepository<>(new ClientValidator());
         ClientDBService clientService = new ClientDBService(clientRepository);
 
-        RentalDBRepository rentalRepository = new RentalDBRepository();
+        InMemoryRentalRepository rentalRepository = new InMemoryRentalRepository(movieRepository, clientRepository);
         RentalDBService rentalService = new RentalDBService(rentalRepository, movieService, clientService);
 
-        Console console = new Console(movieService, clientService, rentalService);
-        console.runConsole();
+        runUserInterface(movieService, clientService, rentalService, IN_MEMORY_CONCURRENT_OPERATIONS);
+    }
+
+    private static void runOnFiles(Path directory) {
+        try (MovieFileRepository movieRepository = new MovieFileRepository(directory);
+             ClientFileRepository clientRepository = new ClientFileRepository(directory)) {
+            MovieDBService movieService = new MovieDBService(movieRepository);
+            ClientDBService clientService = new ClientDBService(clientRepository);
+
+            InMemoryRentalRepository rentalRepository = new InMemoryRentalRepository(movieRepository, clientRepository);
+            RentalDBService rentalService = new RentalDBService(rentalRepository, movieService, clientService);
+
+            runUserInterface(movieService, clientService, rentalService, IN_MEMORY_CONCURRENT_OPERATIONS);
+        }
+    }
+
+    private static void runOnWriteAheadLogs(Path directory) {
+        try (DurableMovieRepository movieRepository = new DurableMovieRepository(directory);
+             DurableClientRepository clientRepository = new DurableClientRepository(directory);
+             DurableRentalRepository rentalRepository =
+                     new DurableRentalRepository(directory, movieRepository, clientRepository)) {
+            MovieDBService movieService = new MovieDBService(movieRepository);
+            ClientDBService clientService = new ClientDBService(clientRepository);
+            RentalDBService rentalService = new RentalDBService(rentalRepository, movieService, clientService);
+
+            runUserInterface(movieService, clientService, rentalService, IN_MEMORY_CONCURRENT_OPERATIONS);
+        }
+    }
+
+    private static void runUserInterface(MovieDBService movieService, ClientDBService clientService,
+                                         RentalDBService rentalService, int concurrentOperations) {
+        if (!"http".equalsIgnoreCase(System.getProperty("ui", "console"))) {
+            Console console = new Console(movieService, clientService, rentalService);
+            console.runConsole();
+            return;
+        }
+        InetSocketAddress address = new InetSocketAddress(Integer.getInteger("httpPort", DEFAULT_HTTP_PORT));
+        try (ServiceExecutor serviceExecutor = new ServiceExecutor(concurrentOperations);
+             HttpApiServer server = new HttpApiServer(address, movieService, clientService, rentalService,
+                     serviceExecutor)) {
+            server.start();
+            System.out.println("HTTP API listening on port " + server.getPort() + ", press Enter to stop.");
+            new Scanner(System.in).nextLine();
+        } catch (IOException e) {
+            throw new MovieRentalsException("HTTP server exception. ", e);
+        } catch (NoSuchElementException e) {
+            // Standard input closed: stop as on Enter.
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package ro.ccms.api;
+
+import ro.ccms.domain.Client;
+import ro.ccms.service.ClientDBService;
+import ro.ccms.service.ServiceExecutor;
+
+/**
+ * {@code /clients}: {@code GET} a page ordered by id ({@code afterId}, {@code limit}) or the clients matching
+ * a {@code keyword}, {@code POST} a new client; {@code /clients/{id}}: {@code GET}, {@code PUT}, {@code DELETE}.
+ */
+class ClientsHandler extends JsonHandler {
+    private final ClientDBService clientService;
+
+    ClientsHandler(ClientDBService clientService, ServiceExecutor executor) {
+        super(executor);
+        this.clientService = clientService;
+    }
+
+    @Override
+    Response respond(Request request) {
+        if (request.path().isEmpty()) {
+            return switch (request.method()) {
+                case "GET" -> request.query().containsKey("keyword")
+                        ? Response.ok(EntityJson.map(call(() ->
+                                clientService.filterClientsByKeyword(request.query().get("keyword"))),
+                                EntityJson::client))
+                        : Response.ok(EntityJson.map(call(() ->
+                                clientService.getClientsPage(request.longParameter("afterId"), request.limit())),
+                                EntityJson::client));
+                case "POST" -> {
+                    Client client = EntityJson.toClient(request.json());
+                    callWrite(() -> {
+                        clientService.addClient(client);
+                        return client;
+                    });
+                    yield Response.created(EntityJson.client(client));
+                }
+                default -> Response.methodNotAllowed();
+            };
+        }
+        if (request.path().size() != 1) {
+            return Response.notFound("No such resource.");
+        }
+        Long id = request.id(0);
+        return switch (request.method()) {
+            case "GET" -> Response.ok(EntityJson.client(call(() -> clientService.getClientById(id))));
+            case "PUT" -> {
+                Client client = EntityJson.toClient(request.json());
+                client.setId(id);
+                callWrite(() -> {
+                    clientService.getClientById(id);
+                    clientService.updateClient(client);
+                    return client;
+                });
+                yield Response.ok(EntityJson.client(client));
+            }
+            case "DELETE" -> callWrite(() -> clientService.deleteClient(id)).isPresent()
+                    ? Response.noContent()
+                    : Response.notFound("There is no Client with Id: " + id);
+            default -> Response.methodNotAllowed();
+        };
+    }
+}
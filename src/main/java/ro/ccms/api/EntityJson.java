@@ -0,0 +1,160 @@
+package ro.ccms.api;
+
+import ro.ccms.domain.AgeRestrictions;
+import ro.ccms.domain.Client;
+import ro.ccms.domain.ClientRentReportDTO;
+import ro.ccms.domain.ClientRentalsDTO;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.MovieGenres;
+import ro.ccms.domain.MovieRentReportDTO;
+import ro.ccms.domain.MovieRentalsDTO;
+import ro.ccms.domain.Rental;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Converts the entities and report DTOs to the JSON objects of the HTTP API, and the request bodies back to
+ * entities. Enums are written by name; dates in ISO-8601.
+ */
+final class EntityJson {
+    private EntityJson() {
+    }
+
+    static Map<String, Object> movie(Movie movie) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", movie.getId());
+        json.put("title", movie.getTitle());
+        json.put("year", movie.getYear());
+        json.put("genre", movie.getGenre() != null ? movie.getGenre().name() : null);
+        json.put("ageRestrictions", movie.getAgeRestrictions() != null ? movie.getAgeRestrictions().name() : null);
+        json.put("rentalPrice", movie.getRentalPrice());
+        json.put("available", movie.isAvailable());
+        return json;
+    }
+
+    static Map<String, Object> client(Client client) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", client.getId());
+        json.put("firstName", client.getFirstName());
+        json.put("lastName", client.getLastName());
+        json.put("dateOfBirth", client.getDateOfBirth());
+        json.put("email", client.getEmail());
+        json.put("subscribe", client.isSubscribe());
+        return json;
+    }
+
+    static Map<String, Object> rental(Rental rental) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", rental.getId());
+        json.put("movieId", rental.getMovieId());
+        json.put("clientId", rental.getClientId());
+        json.put("rentalCharge", rental.getRentalCharge());
+        json.put("rentalDate", rental.getRentalDate());
+        json.put("dueDate", rental.getDueDate());
+        return json;
+    }
+
+    static Map<String, Object> movieRentals(MovieRentalsDTO dto) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("movie", movie(dto.getMovie()));
+        json.put("rentCounter", dto.getRentCounter());
+        return json;
+    }
+
+    static Map<String, Object> clientRentals(ClientRentalsDTO dto) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("client", client(dto.getClient()));
+        json.put("rentCounter", dto.getRentCounter());
+        return json;
+    }
+
+    static Map<String, Object> clientReport(ClientRentReportDTO dto) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("client", client(dto.getClient()));
+        json.put("movies", map(dto.getMoviesList(), EntityJson::movie));
+        json.put("totalCharges", dto.getTotalCharges());
+        json.put("rentDates", dto.getRentDates());
+        json.put("counter", dto.getCounter());
+        return json;
+    }
+
+    static Map<String, Object> movieReport(MovieRentReportDTO dto) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("movie", movie(dto.getMovie()));
+        json.put("clients", map(dto.getClientsList(), EntityJson::client));
+        json.put("totalCharges", dto.getTotalCharges());
+        json.put("rentDates", dto.getRentDates());
+        json.put("counter", dto.getCounter());
+        return json;
+    }
+
+    static <E> List<Map<String, Object>> map(Iterable<E> entities, Function<E, Map<String, Object>> toJson) {
+        List<Map<String, Object>> json = new ArrayList<>();
+        for (E entity : entities) {
+            json.add(toJson.apply(entity));
+        }
+        return json;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a field is missing or of the wrong type.
+     */
+    static Movie toMovie(Object body) {
+        Map<?, ?> json = object(body);
+        Movie movie = new Movie();
+        movie.setTitle(string(json, "title"));
+        movie.setYear((int) number(json, "year").longValue());
+        movie.setGenre(MovieGenres.valueOf(string(json, "genre").toUpperCase(Locale.ROOT)));
+        movie.setAgeRestrictions(AgeRestrictions.valueOf(string(json, "ageRestrictions").toUpperCase(Locale.ROOT)));
+        movie.setRentalPrice(number(json, "rentalPrice").floatValue());
+        movie.setAvailable(!json.containsKey("available") || bool(json, "available"));
+        return movie;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a field is missing or of the wrong type.
+     */
+    static Client toClient(Object body) {
+        Map<?, ?> json = object(body);
+        Client client = new Client();
+        client.setFirstName(string(json, "firstName"));
+        client.setLastName(string(json, "lastName"));
+        client.setDateOfBirth(string(json, "dateOfBirth"));
+        client.setEmail(string(json, "email"));
+        client.setSubscribe(json.containsKey("subscribe") && bool(json, "subscribe"));
+        return client;
+    }
+
+    static Map<?, ?> object(Object body) {
+        if (!(body instanceof Map<?, ?> json)) {
+            throw new IllegalArgumentException("Request body must be a JSON object.");
+        }
+        return json;
+    }
+
+    static String string(Map<?, ?> json, String field) {
+        if (!(json.get(field) instanceof String value)) {
+            throw new IllegalArgumentException("Field " + field + " must be a string.");
+        }
+        return value;
+    }
+
+    static Number number(Map<?, ?> json, String field) {
+        if (!(json.get(field) instanceof Number value)) {
+            throw new IllegalArgumentException("Field " + field + " must be a number.");
+        }
+        return value;
+    }
+
+    static boolean bool(Map<?, ?> json, String field) {
+        if (!(json.get(field) instanceof Boolean value)) {
+            throw new IllegalArgumentException("Field " + field + " must be true or false.");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,76 @@
+package ro.ccms.api;
+
+import com.sun.net.httpserver.HttpServer;
+import ro.ccms.service.ClientDBService;
+import ro.ccms.service.MovieDBService;
+import ro.ccms.service.RentalDBService;
+import ro.ccms.service.ServiceExecutor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP/JSON API over the services, on the JDK HTTP server.
+ * <p>
+ * Every request is handled on its own virtual thread. Connections are kept alive between requests, and
+ * requests pipelined on a connection are answered in order. The resources are described by their handlers:
+ * {@code /movies}, {@code /clients}, {@code /rentals} and {@code /reports}.
+ */
+public class HttpApiServer implements AutoCloseable {
+    private static final int BACKLOG = 1_024;
+    private static final int STOP_DELAY_SECONDS = 1;
+    static final System.Logger LOGGER = System.getLogger(HttpApiServer.class.getName());
+
+    static {
+        // The JDK server writes the headers and the body of a response separately; with Nagle's algorithm on,
+        // the body then waits for the delayed ACK of the client, some 40 ms per request on a kept-alive
+        // connection. Read once, when the first server is created, unless set on the command line.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+
+    /**
+     * @param address         the address to listen on; port 0 picks a free port.
+     * @param serviceExecutor runs the service calls of the requests, with their timeouts.
+     * @throws IOException if the address can not be bound.
+     */
+    public HttpApiServer(InetSocketAddress address, MovieDBService movieService, ClientDBService clientService,
+                         RentalDBService rentalService, ServiceExecutor serviceExecutor) throws IOException {
+        if (movieService == null || clientService == null || rentalService == null || serviceExecutor == null) {
+            throw new IllegalArgumentException("Services and executor must not be null.");
+        }
+        server = HttpServer.create(address, BACKLOG);
+        requestExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-", 0).factory());
+        server.setExecutor(requestExecutor);
+        server.createContext("/movies", new MoviesHandler(movieService, serviceExecutor));
+        server.createContext("/clients", new ClientsHandler(clientService, serviceExecutor));
+        server.createContext("/rentals", new RentalsHandler(rentalService, serviceExecutor));
+        server.createContext("/reports", new ReportsHandler(rentalService, serviceExecutor));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return the port the server listens on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting connections, and waits a little for the requests in progress to finish.
+     */
+    @Override
+    public void close() {
+        server.stop(STOP_DELAY_SECONDS);
+        requestExecutor.close();
+    }
+}
@@ -0,0 +1,208 @@
+package ro.ccms.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import ro.ccms.domain.exceptions.ClientNotFoundException;
+import ro.ccms.domain.exceptions.MovieNotAvailableException;
+import ro.ccms.domain.exceptions.MovieNotFoundException;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.exceptions.OperationTimeoutException;
+import ro.ccms.domain.exceptions.RentalNotFoundException;
+import ro.ccms.domain.exceptions.ValidatorException;
+import ro.ccms.service.ServiceExecutor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Base of the handlers of the HTTP API: parses the request, runs the resource method and writes its result as
+ * JSON, or the error as {@code {"error": message}} with the matching status code.
+ * <p>
+ * Every response has a {@code Content-Length} and the request body is always read to its end, so that the
+ * connection stays open for the next request, pipelined or not. A body larger than {@value #MAX_BODY_BYTES}
+ * bytes is refused with 413 and the connection closed.
+ * <p>
+ * Service calls go through the {@link ServiceExecutor}, which bounds how many run at once. Reads time out with
+ * 503 and can be retried. Writes only time out waiting to start, also with 503, and then did not run; once
+ * started they run to their end, so that a client never retries a write that went through.
+ */
+abstract class JsonHandler implements HttpHandler {
+    private static final int MAX_PAGE_SIZE = 1_000;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_BODY_BYTES = 1 << 20;
+
+    private final ServiceExecutor executor;
+
+    JsonHandler(ServiceExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * The request, with the path split into the segments after the path of the handler.
+     */
+    record Request(String method, List<String> path, Map<String, String> query, String body) {
+
+        Object json() {
+            return Json.parse(body);
+        }
+
+        Long id(int segment) {
+            try {
+                return Long.parseLong(path.get(segment));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid id: " + path.get(segment) + ".");
+            }
+        }
+
+        Long longParameter(String name) {
+            String value = query.get(name);
+            try {
+                return value == null ? null : Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid " + name + ": " + value + ".");
+            }
+        }
+
+        int limit() {
+            Long limit = longParameter("limit");
+            return limit == null ? DEFAULT_PAGE_SIZE : (int) Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+        }
+    }
+
+    record Response(int status, Object body) {
+
+        static Response ok(Object body) {
+            return new Response(200, body);
+        }
+
+        static Response created(Object body) {
+            return new Response(201, body);
+        }
+
+        static Response noContent() {
+            return new Response(204, null);
+        }
+
+        static Response notFound(String message) {
+            return error(404, message);
+        }
+
+        static Response methodNotAllowed() {
+            return error(405, "Method not allowed.");
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, Map.of("error", message == null ? "" : message));
+        }
+    }
+
+    /**
+     * @return the response to the request.
+     * @throws RuntimeException mapped to the status code of the error.
+     */
+    abstract Response respond(Request request);
+
+    /**
+     * Runs the reading service call on the executor, within its timeout.
+     */
+    <R> R call(Supplier<R> serviceCall) {
+        return executor.call(serviceCall);
+    }
+
+    /**
+     * Runs the writing service call on the executor once a slot is free, and lets it run to its end.
+     */
+    <R> R callWrite(Supplier<R> serviceCall) {
+        return executor.callWrite(serviceCall);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Response response;
+            try {
+                response = respond(readRequest(exchange));
+            } catch (BodyTooLargeException e) {
+                exchange.getResponseHeaders().set("Connection", "close");
+                response = Response.error(413, e.getMessage());
+            } catch (MovieNotFoundException | ClientNotFoundException | RentalNotFoundException e) {
+                response = Response.notFound(e.getMessage());
+            } catch (ValidatorException | IllegalArgumentException e) {
+                response = Response.error(400, e.getMessage());
+            } catch (MovieNotAvailableException e) {
+                response = Response.error(409, e.getMessage());
+            } catch (OperationTimeoutException e) {
+                response = Response.error(503, e.getMessage());
+            } catch (MovieRentalsException e) {
+                response = Response.error(500, e.getMessage());
+            } catch (RuntimeException e) {
+                HttpApiServer.LOGGER.log(System.Logger.Level.ERROR,
+                        "Request failed: " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), e);
+                response = Response.error(500, "Internal server error.");
+            }
+            write(exchange, response);
+        }
+    }
+
+    private Request readRequest(HttpExchange exchange) throws IOException {
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new BodyTooLargeException();
+            }
+            body = new String(bytes, StandardCharsets.UTF_8);
+        }
+        String contextPath = exchange.getHttpContext().getPath();
+        String path = exchange.getRequestURI().getPath().substring(contextPath.length());
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return new Request(exchange.getRequestMethod(), segments, parseQuery(exchange.getRequestURI().getRawQuery()),
+                body);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static void write(HttpExchange exchange, Response response) throws IOException {
+        if (response.body() == null) {
+            exchange.sendResponseHeaders(response.status(), -1);
+            return;
+        }
+        byte[] body = Json.write(response.body()).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status(), body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static class BodyTooLargeException extends RuntimeException {
+        BodyTooLargeException() {
+            super("Request body is larger than " + MAX_BODY_BYTES + " bytes.");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ro.ccms.api;
+
+import ro.ccms.domain.Movie;
+import ro.ccms.service.MovieDBService;
+import ro.ccms.service.ServiceExecutor;
+
+/**
+ * {@code /movies}: {@code GET} a page ordered by id ({@code afterId}, {@code limit}) or the movies matching
+ * a {@code keyword}, {@code POST} a new movie; {@code /movies/{id}}: {@code GET}, {@code PUT}, {@code DELETE}.
+ */
+class MoviesHandler extends JsonHandler {
+    private final MovieDBService movieService;
+
+    MoviesHandler(MovieDBService movieService, ServiceExecutor executor) {
+        super(executor);
+        this.movieService = movieService;
+    }
+
+    @Override
+    Response respond(Request request) {
+        if (request.path().isEmpty()) {
+            return switch (request.method()) {
+                case "GET" -> request.query().containsKey("keyword")
+                        ? Response.ok(EntityJson.map(call(() ->
+                                movieService.filterMoviesByKeyword(request.query().get("keyword"))), EntityJson::movie))
+                        : Response.ok(EntityJson.map(call(() ->
+                                movieService.getMoviesPage(request.longParameter("afterId"), request.limit())),
+                                EntityJson::movie));
+                case "POST" -> {
+                    Movie movie = EntityJson.toMovie(request.json());
+                    callWrite(() -> {
+                        movieService.addMovie(movie);
+                        return movie;
+                    });
+                    yield Response.created(EntityJson.movie(movie));
+                }
+                default -> Response.methodNotAllowed();
+            };
+        }
+        if (request.path().size() != 1) {
+            return Response.notFound("No such resource.");
+        }
+        Long id = request.id(0);
+        return switch (request.method()) {
+            case "GET" -> Response.ok(EntityJson.movie(call(() -> movieService.getMovieById(id))));
+            case "PUT" -> {
+                Movie movie = EntityJson.toMovie(request.json());
+                movie.setId(id);
+                callWrite(() -> {
+                    movieService.getMovieById(id);
+                    movieService.updateMovie(movie);
+                    return movie;
+                });
+                yield Response.ok(EntityJson.movie(movie));
+            }
+            case "DELETE" -> callWrite(() -> movieService.deleteMovie(id)).isPresent()
+                    ? Response.noContent()
+                    : Response.notFound("There is no Movie with Id: " + id + ". ");
+            default -> Response.methodNotAllowed();
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package ro.ccms.api;
+
+import ro.ccms.service.RentalDBService;
+import ro.ccms.service.ServiceExecutor;
+
+import java.util.Map;
+
+/**
+ * {@code /rentals}: {@code GET} a page ordered by id ({@code afterId}, {@code limit}), {@code POST}
+ * {@code {"clientId": .., "movieId": ..}} to check a movie out; {@code /rentals/{id}}: {@code GET},
+ * {@code DELETE}.
+ * <p>
+ * A checkout answered with 503 timed out before it started and did not rent the movie, so it can be retried;
+ * once started, a checkout is never cut short by the timeout.
+ */
+class RentalsHandler extends JsonHandler {
+    private final RentalDBService rentalService;
+
+    RentalsHandler(RentalDBService rentalService, ServiceExecutor executor) {
+        super(executor);
+        this.rentalService = rentalService;
+    }
+
+    @Override
+    Response respond(Request request) {
+        if (request.path().isEmpty()) {
+            return switch (request.method()) {
+                case "GET" -> Response.ok(EntityJson.map(call(() ->
+                        rentalService.getRentalsPage(request.longParameter("afterId"), request.limit())),
+                        EntityJson::rental));
+                case "POST" -> {
+                    Map<?, ?> json = EntityJson.object(request.json());
+                    Long clientId = EntityJson.number(json, "clientId").longValue();
+                    Long movieId = EntityJson.number(json, "movieId").longValue();
+                    yield Response.created(EntityJson.rental(
+                            callWrite(() -> rentalService.checkout(clientId, movieId))));
+                }
+                default -> Response.methodNotAllowed();
+            };
+        }
+        if (request.path().size() != 1) {
+            return Response.notFound("No such resource.");
+        }
+        Long id = request.id(0);
+        return switch (request.method()) {
+            case "GET" -> Response.ok(EntityJson.rental(call(() -> rentalService.getRentalById(id))));
+            case "DELETE" -> callWrite(() -> rentalService.deleteRental(id)).isPresent()
+                    ? Response.noContent()
+                    : Response.notFound("Rental transaction with ID " + id + " not found.");
+            default -> Response.methodNotAllowed();
+        };
+    }
+}
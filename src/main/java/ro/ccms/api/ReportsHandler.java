@@ -0,0 +1,46 @@
+package ro.ccms.api;
+
+import ro.ccms.service.RentalDBService;
+import ro.ccms.service.ServiceExecutor;
+
+/**
+ * {@code GET} only: {@code /reports/movies-by-rentals} and {@code /reports/clients-by-rentals} ({@code limit}
+ * optional), {@code /reports/movies/{id}} and {@code /reports/clients/{id}}.
+ */
+class ReportsHandler extends JsonHandler {
+    private final RentalDBService rentalService;
+
+    ReportsHandler(RentalDBService rentalService, ServiceExecutor executor) {
+        super(executor);
+        this.rentalService = rentalService;
+    }
+
+    @Override
+    Response respond(Request request) {
+        if (!request.method().equals("GET")) {
+            return Response.methodNotAllowed();
+        }
+        if (request.path().size() == 1) {
+            Long limit = request.longParameter("limit");
+            Integer top = limit == null ? null : (int) Math.max(1, Math.min(Integer.MAX_VALUE, limit));
+            return switch (request.path().get(0)) {
+                case "movies-by-rentals" -> Response.ok(EntityJson.map(call(() ->
+                        rentalService.moviesByRentNumber(top)), EntityJson::movieRentals));
+                case "clients-by-rentals" -> Response.ok(EntityJson.map(call(() ->
+                        rentalService.clientsByRentedMovies(top)), EntityJson::clientRentals));
+                default -> Response.notFound("No such report.");
+            };
+        }
+        if (request.path().size() == 2) {
+            Long id = request.id(1);
+            return switch (request.path().get(0)) {
+                case "movies" -> Response.ok(EntityJson.movieReport(call(() ->
+                        rentalService.generateReportByMovie(id))));
+                case "clients" -> Response.ok(EntityJson.clientReport(call(() ->
+                        rentalService.generateReportByClient(id))));
+                default -> Response.notFound("No such report.");
+            };
+        }
+        return Response.notFound("No such report.");
+    }
+}
@@ -0,0 +1,256 @@
+package ro.ccms.benchmark;
+
+import ro.ccms.domain.AgeRestrictions;
+import ro.ccms.domain.Client;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.MovieGenres;
+import ro.ccms.domain.Rental;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.exceptions.OperationTimeoutException;
+import ro.ccms.domain.validators.ClientValidator;
+import ro.ccms.domain.validators.MovieValidator;
+import ro.ccms.repository.RentalRepository;
+import ro.ccms.repository.Repository;
+import ro.ccms.repository.memory.InMemoryRentalRepository;
+import ro.ccms.repository.memory.InMemoryRepository;
+import ro.ccms.service.ClientDBService;
+import ro.ccms.service.MovieDBService;
+import ro.ccms.service.RentalDBService;
+import ro.ccms.service.ServiceExecutor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Drives thousands of simulated users, each on its own virtual thread, through the services by way of a
+ * {@link ServiceExecutor}, and reports the throughput and the latency of every kind of operation.
+ * <p>
+ * The repositories are in memory behind a simulated database: every call takes a query time, and a small
+ * fraction of them hang for much longer than the operation timeout, as a stuck query would. Those operations
+ * time out and free their slot, while the others keep their latency.
+ * <p>
+ * Arguments: the number of users (default 2000), operations per user (default 10), concurrent operations
+ * (default 10, the connection pool size), operation timeout in milliseconds (default 2000), query time in
+ * microseconds (default 500) and the fraction of stuck queries (default 0.001).
+ */
+public class ConcurrentUsersSimulation {
+    static final int MOVIES = 1_000;
+    static final int CLIENTS = 5_000;
+    static final int RENTALS = 20_000;
+    private static final long STUCK_QUERY_MILLIS = 60_000;
+    private static final long MAX_THINK_MILLIS = 1_000;
+
+    private static final ReentrantLock resultsLock = new ReentrantLock();
+
+    private enum Operation {
+        MOVIE_LOOKUP, CLIENT_LOOKUP, MOVIES_PAGE, RENT, CLIENT_REPORT
+    }
+
+    private enum Outcome {
+        OK, TIMEOUT, FAILURE
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int operationsPerUser = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int concurrentOperations = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        Duration timeout = Duration.ofMillis(args.length > 3 ? Long.parseLong(args[3]) : 2_000);
+        long queryMicros = args.length > 4 ? Long.parseLong(args[4]) : 500;
+        double stuckFraction = args.length > 5 ? Double.parseDouble(args[5]) : 0.001;
+
+        SimulatedDatabase database = new SimulatedDatabase(queryMicros, stuckFraction);
+        InMemoryRepository<Movie> movies = new InMemoryRepository<>(new MovieValidator());
+        InMemoryRepository<Client> clients = new InMemoryRepository<>(new ClientValidator());
+        InMemoryRentalRepository rentals = new InMemoryRentalRepository(movies, clients);
+        populate(movies, clients, rentals);
+
+        MovieDBService movieService = new MovieDBService(database.slowDown(Repository.class, movies));
+        ClientDBService clientService = new ClientDBService(database.slowDown(Repository.class, clients));
+        RentalDBService rentalService = new RentalDBService(database.slowDown(RentalRepository.class, rentals),
+                movieService, clientService);
+
+        System.out.printf("%d users x %d operations, %d concurrent, %d ms timeout, %d us queries, %.2f%% stuck%n",
+                users, operationsPerUser, concurrentOperations, timeout.toMillis(), queryMicros, stuckFraction * 100);
+        long[][] latencies = new long[Operation.values().length][users * operationsPerUser];
+        int[] counts = new int[Operation.values().length];
+        int[] timeouts = new int[Operation.values().length];
+        int[] failures = new int[Operation.values().length];
+        long started;
+        long elapsedNanos;
+        try (ServiceExecutor executor = new ServiceExecutor(concurrentOperations, timeout)) {
+            List<Thread> userThreads = new ArrayList<>(users);
+            started = System.nanoTime();
+            for (int u = 0; u < users; u++) {
+                userThreads.add(Thread.ofVirtual().name("user-" + u).start(() -> {
+                    for (int i = 0; i < operationsPerUser; i++) {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        sleepQuietly(random.nextLong(MAX_THINK_MILLIS + 1));
+                        Operation operation = pickOperation(random.nextInt(100));
+                        Supplier<?> call = newCall(operation, random, movieService, clientService, rentalService);
+                        long callStarted = System.nanoTime();
+                        Outcome outcome = Outcome.OK;
+                        try {
+                            executor.call(call);
+                        } catch (OperationTimeoutException e) {
+                            outcome = Outcome.TIMEOUT;
+                        } catch (RuntimeException e) {
+                            outcome = Outcome.FAILURE;
+                        }
+                        record(operation, outcome, System.nanoTime() - callStarted, latencies, counts, timeouts,
+                                failures);
+                    }
+                }));
+            }
+            for (Thread userThread : userThreads) {
+                userThread.join();
+            }
+            elapsedNanos = System.nanoTime() - started;
+            System.out.printf("%,.0f operations/s, at most %d running at once%n",
+                    executor.getSubmittedCount() / (elapsedNanos / 1e9), executor.getMaxRunning());
+        }
+
+        System.out.printf("%-14s %10s %10s %10s %10s %10s%n", "operation", "ok", "p50 (ms)", "p99 (ms)",
+                "timeouts", "failures");
+        for (Operation operation : Operation.values()) {
+            int i = operation.ordinal();
+            long[] sorted = Arrays.copyOf(latencies[i], counts[i]);
+            Arrays.sort(sorted);
+            System.out.printf("%-14s %10d %10.2f %10.2f %10d %10d%n", operation, counts[i],
+                    percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, timeouts[i], failures[i]);
+        }
+    }
+
+    private static Operation pickOperation(int percent) {
+        if (percent < 40) {
+            return Operation.MOVIE_LOOKUP;
+        }
+        if (percent < 60) {
+            return Operation.CLIENT_LOOKUP;
+        }
+        if (percent < 80) {
+            return Operation.MOVIES_PAGE;
+        }
+        return percent < 95 ? Operation.RENT : Operation.CLIENT_REPORT;
+    }
+
+    private static Supplier<?> newCall(Operation operation, ThreadLocalRandom random, MovieDBService movieService,
+                                       ClientDBService clientService, RentalDBService rentalService) {
+        long movieId = random.nextLong(1, MOVIES + 1);
+        long clientId = random.nextLong(1, CLIENTS + 1);
+        return switch (operation) {
+            case MOVIE_LOOKUP -> () -> movieService.getMovieById(movieId);
+            case CLIENT_LOOKUP -> () -> clientService.getClientById(clientId);
+            case MOVIES_PAGE -> () -> movieService.getMoviesPage(movieId, 20);
+            case RENT -> () -> {
+                rentalService.rentAMovie(newRental(movieId, clientId));
+                return null;
+            };
+            case CLIENT_REPORT -> () -> rentalService.generateReportByClient(clientId);
+        };
+    }
+
+    // Only the latencies of the successful operations are recorded.
+    private static void record(Operation operation, Outcome outcome, long nanos, long[][] latencies, int[] counts,
+                               int[] timeouts, int[] failures) {
+        int i = operation.ordinal();
+        resultsLock.lock();
+        try {
+            switch (outcome) {
+                case TIMEOUT -> timeouts[i]++;
+                case FAILURE -> failures[i]++;
+                default -> latencies[i][counts[i]++] = nanos;
+            }
+        } finally {
+            resultsLock.unlock();
+        }
+    }
+
+    /**
+     * Fills the repositories with {@link #MOVIES} movies, {@link #CLIENTS} clients and {@link #RENTALS} rentals.
+     */
+    static void populate(InMemoryRepository<Movie> movies, InMemoryRepository<Client> clients,
+                         InMemoryRentalRepository rentals) {
+        MovieGenres[] genres = MovieGenres.values();
+        AgeRestrictions[] ageRestrictions = AgeRestrictions.values();
+        for (int i = 0; i < MOVIES; i++) {
+            movies.save(new Movie("Movie " + i, 1950 + i % 70, genres[i % genres.length],
+                    ageRestrictions[i % ageRestrictions.length], 1 + i % 10, true));
+        }
+        for (int i = 0; i < CLIENTS; i++) {
+            clients.save(new Client("First" + i, "Last" + i, "1990-01-01", "client" + i + "@example.com", i % 2 == 0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < RENTALS; i++) {
+            rentals.save(newRental(random.nextLong(1, MOVIES + 1), random.nextLong(1, CLIENTS + 1)));
+        }
+    }
+
+    private static Rental newRental(long movieId, long clientId) {
+        LocalDateTime rentalDate = LocalDateTime.of(2023, 1, 1, 0, 0);
+        return new Rental(movieId, clientId, 2.5f, rentalDate, rentalDate.plusDays(1));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Makes every repository call take a query time, or hang like a stuck query, before it runs.
+     * The wait ends early when the calling operation is interrupted on its timeout.
+     */
+    private static class SimulatedDatabase {
+        private final long queryNanos;
+        private final double stuckFraction;
+
+        SimulatedDatabase(long queryMicros, double stuckFraction) {
+            this.queryNanos = TimeUnit.MICROSECONDS.toNanos(queryMicros);
+            this.stuckFraction = stuckFraction;
+        }
+
+        @SuppressWarnings("unchecked")
+        <R> R slowDown(Class<?> repositoryInterface, Object repository) {
+            return (R) Proxy.newProxyInstance(repositoryInterface.getClassLoader(),
+                    new Class<?>[]{repositoryInterface}, (proxy, method, args) -> {
+                        if (method.getDeclaringClass() != Object.class) {
+                            query();
+                        }
+                        try {
+                            return method.invoke(repository, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        private void query() {
+            boolean stuck = ThreadLocalRandom.current().nextDouble() < stuckFraction;
+            try {
+                if (stuck) {
+                    Thread.sleep(STUCK_QUERY_MILLIS);
+                } else {
+                    TimeUnit.NANOSECONDS.sleep(queryNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MovieRentalsException("Database connection exception. ", e);
+            }
+        }
+    }
+}
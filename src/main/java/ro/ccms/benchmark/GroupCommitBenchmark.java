@@ -0,0 +1,175 @@
+package ro.ccms.benchmark;
+
+import ro.ccms.domain.Client;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.Rental;
+import ro.ccms.domain.exceptions.ValidatorException;
+import ro.ccms.domain.validators.ClientValidator;
+import ro.ccms.domain.validators.MovieValidator;
+import ro.ccms.repository.GroupCommitWriter;
+import ro.ccms.repository.memory.InMemoryRentalRepository;
+import ro.ccms.repository.memory.InMemoryRepository;
+import ro.ccms.service.ClientDBService;
+import ro.ccms.service.MovieDBService;
+import ro.ccms.service.RentalDBService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures the throughput and the latency of concurrent rentals saved one by one with
+ * {@link RentalDBService#rentAMovie(Rental)}, and grouped by a {@link GroupCommitWriter} with
+ * {@link RentalDBService#rentAMovieAsync(Rental)} for several batch sizes and windows.
+ * <p>
+ * Every client thread waits for its rental to be saved before asking for the next one, as a checkout counter
+ * does. The database is simulated: every insert and commit holds one of a pool of connections for a round trip,
+ * plus a little per inserted row, so that the numbers do not depend on a database server being available.
+ * <p>
+ * Arguments: the number of rentals (default 20000), the number of client threads (default 64), the round trip
+ * in microseconds (default 1000), the cost of a row in microseconds (default 10) and the connection pool size
+ * (default 10).
+ */
+public class GroupCommitBenchmark {
+    private static final int[][] GROUP_COMMIT_SETTINGS = {{16, 0}, {64, 0}, {64, 1}, {256, 2}, {256, 5}};
+
+    public static void main(String[] args) throws InterruptedException {
+        int rentals = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        long roundTripMicros = args.length > 2 ? Long.parseLong(args[2]) : 1_000;
+        long rowMicros = args.length > 3 ? Long.parseLong(args[3]) : 10;
+        int poolSize = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+
+        System.out.printf("%d rentals, %d client threads, %d us round trip, %d us per row, %d connections%n",
+                rentals, threads, roundTripMicros, rowMicros, poolSize);
+        System.out.printf("%-24s %12s %10s %10s %10s %12s%n",
+                "write path", "rentals/s", "p50 (ms)", "p99 (ms)", "max (ms)", "avg batch");
+
+        SimulatedRentalRepository repository = new SimulatedRentalRepository(roundTripMicros, rowMicros, poolSize);
+        RentalDBService rentalService = newRentalService(repository);
+        run("one by one", rentalService, rentals, threads, null);
+        for (int[] settings : GROUP_COMMIT_SETTINGS) {
+            repository = new SimulatedRentalRepository(roundTripMicros, rowMicros, poolSize);
+            rentalService = newRentalService(repository);
+            try (GroupCommitWriter<Long, Rental> writer =
+                         new GroupCommitWriter<>(repository, settings[0], settings[1])) {
+                rentalService.setRentalWriter(writer);
+                run("group " + settings[0] + " / " + settings[1] + " ms", rentalService, rentals, threads, writer);
+            }
+        }
+    }
+
+    private static void run(String writePath, RentalDBService rentalService, int rentals, int threads,
+                            GroupCommitWriter<Long, Rental> writer) throws InterruptedException {
+        long[] latencies = new long[rentals];
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> clients = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int first = t * rentals / threads;
+            int last = (t + 1) * rentals / threads;
+            Thread client = new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = first; i < last; i++) {
+                    long started = System.nanoTime();
+                    if (writer == null) {
+                        rentalService.rentAMovie(newRental(i));
+                    } else {
+                        rentalService.rentAMovieAsync(newRental(i)).join();
+                    }
+                    latencies[i] = System.nanoTime() - started;
+                }
+            });
+            client.start();
+            clients.add(client);
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Thread client : clients) {
+            client.join();
+        }
+        long elapsedNanos = System.nanoTime() - started;
+
+        Arrays.sort(latencies);
+        String averageBatch = writer == null ? "1.0"
+                : String.format("%.1f", writer.getSavedCount() / (double) Math.max(1, writer.getBatchCount()));
+        System.out.printf("%-24s %12.0f %10.2f %10.2f %10.2f %12s%n", writePath, rentals / (elapsedNanos / 1e9),
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6,
+                latencies[latencies.length - 1] / 1e6, averageBatch);
+    }
+
+    private static RentalDBService newRentalService(InMemoryRentalRepository repository) {
+        return new RentalDBService(repository,
+                new MovieDBService(new InMemoryRepository<Movie>(new MovieValidator())),
+                new ClientDBService(new InMemoryRepository<Client>(new ClientValidator())));
+    }
+
+    private static Rental newRental(int i) {
+        LocalDateTime rentalDate = LocalDateTime.of(2023, 1, 1, 0, 0).plusMinutes(i);
+        return new Rental((long) (i % 500) + 1, (long) (i % 2000) + 1, 2.5f, rentalDate, rentalDate.plusDays(1));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * In-memory rentals behind a simulated connection pool: every save, or every batch of saves, holds a
+     * connection for one round trip plus the cost of its rows.
+     */
+    private static class SimulatedRentalRepository extends InMemoryRentalRepository {
+        private final long roundTripNanos;
+        private final long rowNanos;
+        private final Semaphore connections;
+
+        SimulatedRentalRepository(long roundTripMicros, long rowMicros, int poolSize) {
+            super(new InMemoryRepository<Movie>(new MovieValidator()),
+                    new InMemoryRepository<Client>(new ClientValidator()));
+            this.roundTripNanos = TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+            this.rowNanos = TimeUnit.MICROSECONDS.toNanos(rowMicros);
+            this.connections = new Semaphore(poolSize, true);
+        }
+
+        @Override
+        public Optional<Rental> save(Rental rental) throws ValidatorException {
+            commit(1);
+            return super.save(rental);
+        }
+
+        @Override
+        public Iterable<Rental> saveAll(Iterable<Rental> rentals) throws ValidatorException {
+            List<Rental> saved = new ArrayList<>();
+            rentals.forEach(saved::add);
+            commit(saved.size());
+            for (Rental rental : saved) {
+                super.save(rental);
+            }
+            return saved;
+        }
+
+        private void commit(int rows) {
+            connections.acquireUninterruptibly();
+            try {
+                long until = System.nanoTime() + roundTripNanos + rows * rowNanos;
+                for (long remaining; (remaining = until - System.nanoTime()) > 0; ) {
+                    LockSupport.parkNanos(remaining);
+                }
+            } finally {
+                connections.release();
+            }
+        }
+    }
+}
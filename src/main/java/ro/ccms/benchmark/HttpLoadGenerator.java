@@ -0,0 +1,199 @@
+package ro.ccms.benchmark;
+
+import ro.ccms.api.HttpApiServer;
+import ro.ccms.domain.Client;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.validators.ClientValidator;
+import ro.ccms.domain.validators.MovieValidator;
+import ro.ccms.repository.memory.InMemoryRentalRepository;
+import ro.ccms.repository.memory.InMemoryRepository;
+import ro.ccms.service.ClientDBService;
+import ro.ccms.service.MovieDBService;
+import ro.ccms.service.RentalDBService;
+import ro.ccms.service.ServiceExecutor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput and the p50/p99 latency of the HTTP API under a mix of reads: movies and clients by
+ * id, pages of movies and client reports.
+ * <p>
+ * Every simulated client keeps one connection alive and sends its requests one at a time, then again with
+ * several requests pipelined on the connection before it reads their responses. The latency of a request runs
+ * from sending it to receiving its response. Unless a server is given, an in-process one over in-memory
+ * repositories is started.
+ * <p>
+ * Arguments: the number of connections (default 50), requests per connection (default 2000), pipeline depth
+ * (default 8) and optionally the {@code host:port} of a running server.
+ */
+public class HttpLoadGenerator {
+    private static final int WARMUP_REQUESTS = 200;
+    private static final int CONCURRENT_OPERATIONS = 64;
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        if (args.length > 3) {
+            String[] hostAndPort = args[3].split(":");
+            run(hostAndPort[0], Integer.parseInt(hostAndPort[1]), connections, requests, depth);
+            return;
+        }
+        InMemoryRepository<Movie> movies = new InMemoryRepository<>(new MovieValidator());
+        InMemoryRepository<Client> clients = new InMemoryRepository<>(new ClientValidator());
+        InMemoryRentalRepository rentals = new InMemoryRentalRepository(movies, clients);
+        ConcurrentUsersSimulation.populate(movies, clients, rentals);
+        MovieDBService movieService = new MovieDBService(movies);
+        ClientDBService clientService = new ClientDBService(clients);
+        RentalDBService rentalService = new RentalDBService(rentals, movieService, clientService);
+        try (ServiceExecutor serviceExecutor = new ServiceExecutor(CONCURRENT_OPERATIONS);
+             HttpApiServer server = new HttpApiServer(new InetSocketAddress("127.0.0.1", 0), movieService,
+                     clientService, rentalService, serviceExecutor)) {
+            server.start();
+            run("127.0.0.1", server.getPort(), connections, requests, depth);
+        }
+    }
+
+    private static void run(String host, int port, int connections, int requests, int depth)
+            throws InterruptedException {
+        System.out.printf("%s:%d, %d connections x %d requests%n", host, port, connections, requests);
+        System.out.printf("%-22s %12s %10s %10s %10s %8s%n", "mode", "requests/s", "p50 (ms)", "p99 (ms)",
+                "max (ms)", "errors");
+        load(host, port, Math.min(connections, 10), WARMUP_REQUESTS, 1);
+        print("keep-alive", load(host, port, connections, requests, 1));
+        print("pipelined x" + depth, load(host, port, connections, requests, depth));
+    }
+
+    private static Result load(String host, int port, int connections, int requests, int depth)
+            throws InterruptedException {
+        long[][] latencies = new long[connections][requests];
+        AtomicLong errors = new AtomicLong();
+        List<Thread> clients = new ArrayList<>(connections);
+        long started = System.nanoTime();
+        for (int c = 0; c < connections; c++) {
+            long[] connectionLatencies = latencies[c];
+            clients.add(Thread.ofVirtual().start(() -> {
+                try {
+                    errors.addAndGet(runConnection(host, port, requests, depth, connectionLatencies));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(all, elapsedNanos, errors.get());
+    }
+
+    /**
+     * Sends the requests on one connection, {@code depth} at a time, and records their latencies.
+     *
+     * @return the number of responses that were not successful.
+     */
+    private static long runConnection(String host, int port, int requests, int depth, long[] latencies)
+            throws IOException {
+        long errors = 0;
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int sent = 0; sent < requests; ) {
+                int pipelined = Math.min(depth, requests - sent);
+                for (int i = 0; i < pipelined; i++) {
+                    out.write(("GET " + nextPath(random) + " HTTP/1.1\r\nHost: " + host + "\r\n\r\n")
+                            .getBytes(StandardCharsets.US_ASCII));
+                }
+                out.flush();
+                long sentAt = System.nanoTime();
+                for (int i = 0; i < pipelined; i++) {
+                    int status = readResponse(in);
+                    latencies[sent + i] = System.nanoTime() - sentAt;
+                    if (status < 200 || status >= 300) {
+                        errors++;
+                    }
+                }
+                sent += pipelined;
+            }
+        }
+        return errors;
+    }
+
+    private static String nextPath(ThreadLocalRandom random) {
+        int percent = random.nextInt(100);
+        if (percent < 40) {
+            return "/movies/" + random.nextInt(1, ConcurrentUsersSimulation.MOVIES + 1);
+        }
+        if (percent < 70) {
+            return "/clients/" + random.nextInt(1, ConcurrentUsersSimulation.CLIENTS + 1);
+        }
+        if (percent < 90) {
+            return "/movies?afterId=" + random.nextInt(ConcurrentUsersSimulation.MOVIES) + "&limit=20";
+        }
+        return "/reports/clients/" + random.nextInt(1, ConcurrentUsersSimulation.CLIENTS + 1);
+    }
+
+    /**
+     * Reads one response, which must have a {@code Content-Length} or no body.
+     *
+     * @return its status code.
+     */
+    private static int readResponse(InputStream in) throws IOException {
+        String statusLine = readLine(in);
+        int status = Integer.parseInt(statusLine.split(" ")[1]);
+        int contentLength = 0;
+        for (String header; !(header = readLine(in)).isEmpty(); ) {
+            if (header.toLowerCase(Locale.ROOT).startsWith("content-length:")) {
+                contentLength = Integer.parseInt(header.substring("content-length:".length()).trim());
+            }
+        }
+        in.skipNBytes(contentLength);
+        return status;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int c; (c = in.read()) != '\n'; ) {
+            if (c == -1) {
+                throw new EOFException("Connection closed by the server.");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static void print(String mode, Result result) {
+        long[] latencies = result.latencies();
+        System.out.printf("%-22s %12.0f %10.2f %10.2f %10.2f %8d%n", mode,
+                latencies.length / (result.elapsedNanos() / 1e9), percentile(latencies, 0.50) / 1e6,
+                percentile(latencies, 0.99) / 1e6, latencies[latencies.length - 1] / 1e6, result.errors());
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+    }
+
+    private record Result(long[] latencies, long elapsedNanos, long errors) {
+    }
+}
@@ -0,0 +1,121 @@
+package ro.ccms.benchmark;
+
+import ro.ccms.domain.AgeRestrictions;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.MovieGenres;
+import ro.ccms.domain.MovieTableMapper;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Measures how many {@code movies} rows per second are mapped to entities by looking every column up by
+ * name and upper-casing the enums for {@code valueOf}, as the repositories used to, and by the generated
+ * {@link MovieTableMapper}, which resolves the column indices once per result set.
+ * <p>
+ * The rows come from an in-memory result set, so only the mapping is measured, not the driver or the network;
+ * the validation done by the repositories is left out of both.
+ * <p>
+ * Arguments: the number of rows (default 200000) and the number of measured rounds (default 10).
+ */
+public class RowMapperBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        try (CachedRowSet resultSet = newMoviesResultSet(rows)) {
+            System.out.printf("%d rows, %d rounds%n", rows, rounds);
+            System.out.printf("%-22s %14s%n", "mapper", "rows/s");
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                mapByName(resultSet);
+                mapByIndex(resultSet);
+            }
+            long byNameNanos = 0;
+            long byIndexNanos = 0;
+            for (int i = 0; i < rounds; i++) {
+                long started = System.nanoTime();
+                mapByName(resultSet);
+                byNameNanos += System.nanoTime() - started;
+
+                started = System.nanoTime();
+                mapByIndex(resultSet);
+                byIndexNanos += System.nanoTime() - started;
+            }
+            print("by column name", rows * (long) rounds, byNameNanos);
+            print("generated, by index", rows * (long) rounds, byIndexNanos);
+        }
+    }
+
+    private static long mapByName(ResultSet resultSet) throws SQLException {
+        long checksum = 0;
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            Movie movie = new Movie();
+            movie.setId(resultSet.getLong("id"));
+            movie.setTitle(resultSet.getString("title"));
+            movie.setYear(resultSet.getInt("year"));
+            movie.setGenre(MovieGenres.valueOf(resultSet.getString("genre").toUpperCase()));
+            movie.setAgeRestrictions(AgeRestrictions.valueOf(resultSet.getString("age_restriction").toUpperCase()));
+            movie.setRentalPrice(resultSet.getFloat("rental_price"));
+            movie.setAvailable(resultSet.getBoolean("available"));
+            checksum += checksum(movie);
+        }
+        return checksum;
+    }
+
+    private static long mapByIndex(ResultSet resultSet) throws SQLException {
+        long checksum = 0;
+        resultSet.beforeFirst();
+        MovieTableMapper mapper = MovieTableMapper.of(resultSet);
+        while (resultSet.next()) {
+            checksum += checksum(mapper.map(resultSet));
+        }
+        return checksum;
+    }
+
+    // Consumes the mapped movie, so that the mapping can not be optimized away.
+    private static long checksum(Movie movie) {
+        return movie.getId() + movie.getYear() + movie.getGenre().ordinal() + movie.getAgeRestrictions().ordinal();
+    }
+
+    private static CachedRowSet newMoviesResultSet(int rows) throws SQLException {
+        String[] columns = MovieTableMapper.COLUMNS.split(", ");
+        int[] types = {Types.BIGINT, Types.VARCHAR, Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.REAL,
+                Types.BOOLEAN};
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            metaData.setColumnName(i + 1, columns[i]);
+            metaData.setColumnLabel(i + 1, columns[i]);
+            metaData.setColumnType(i + 1, types[i]);
+        }
+
+        CachedRowSet resultSet = RowSetProvider.newFactory().createCachedRowSet();
+        resultSet.setMetaData(metaData);
+        MovieGenres[] genres = MovieGenres.values();
+        AgeRestrictions[] ageRestrictions = AgeRestrictions.values();
+        for (int row = 1; row <= rows; row++) {
+            resultSet.moveToInsertRow();
+            resultSet.updateLong(1, row);
+            resultSet.updateString(2, "Movie " + row);
+            resultSet.updateInt(3, 1950 + row % 70);
+            resultSet.updateString(4, genres[row % genres.length].name());
+            resultSet.updateString(5, ageRestrictions[row % ageRestrictions.length].name());
+            resultSet.updateFloat(6, 1 + row % 10);
+            resultSet.updateBoolean(7, row % 3 != 0);
+            resultSet.insertRow();
+        }
+        resultSet.moveToCurrentRow();
+        return resultSet;
+    }
+
+    private static void print(String mapper, long rows, long nanos) {
+        System.out.printf("%-22s %,14.0f%n", mapper, rows / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,126 @@
+package ro.ccms.benchmark;
+
+import ro.ccms.domain.Client;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.Rental;
+import ro.ccms.domain.validators.ClientValidator;
+import ro.ccms.domain.validators.MovieValidator;
+import ro.ccms.repository.memory.InMemoryRepository;
+import ro.ccms.repository.wal.DurableRentalRepository;
+import ro.ccms.repository.wal.DurableRepository;
+import ro.ccms.repository.wal.SyncPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * Measures the write throughput of the write-ahead logged rental repository under every sync policy,
+ * and how long a restart takes when it replays the log and when it loads a snapshot.
+ * <p>
+ * Arguments: the number of rentals to write (default 20000) and the number of writer threads (default 8).
+ */
+public class WalBenchmark {
+    private static final long NO_AUTOMATIC_SNAPSHOT = Long.MAX_VALUE;
+
+    public static void main(String[] args) throws Exception {
+        int rentals = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+        System.out.printf("%d rentals, %d writer threads%n", rentals, threads);
+        System.out.printf("%-10s %12s %10s %16s %18s%n",
+                "policy", "writes/s", "fsyncs", "log replay (ms)", "snapshot load (ms)");
+        for (SyncPolicy policy : SyncPolicy.values()) {
+            Path directory = Files.createTempDirectory("wal-benchmark");
+            try {
+                run(directory, policy, rentals, threads);
+            } finally {
+                deleteDirectory(directory);
+            }
+        }
+    }
+
+    private static void run(Path directory, SyncPolicy policy, int rentals, int threads) throws InterruptedException {
+        long writeNanos;
+        long syncs;
+        try (DurableRentalRepository repository = open(directory, policy)) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t * rentals / threads;
+                int last = (t + 1) * rentals / threads;
+                Thread writer = new Thread(() -> {
+                    awaitQuietly(start);
+                    for (int i = first; i < last; i++) {
+                        repository.save(newRental(i));
+                    }
+                });
+                writer.start();
+                writers.add(writer);
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            writeNanos = System.nanoTime() - started;
+            syncs = repository.getSyncCount();
+        }
+
+        long replayStarted = System.nanoTime();
+        try (DurableRentalRepository repository = open(directory, policy)) {
+            long replayNanos = System.nanoTime() - replayStarted;
+            checkRecovered(repository, rentals);
+            repository.snapshot();
+
+            long loadStarted = System.nanoTime();
+            try (DurableRentalRepository reloaded = open(directory, policy)) {
+                long loadNanos = System.nanoTime() - loadStarted;
+                checkRecovered(reloaded, rentals);
+                System.out.printf("%-10s %12.0f %10d %16.1f %18.1f%n", policy,
+                        rentals / (writeNanos / 1e9), syncs, replayNanos / 1e6, loadNanos / 1e6);
+            }
+        }
+    }
+
+    private static DurableRentalRepository open(Path directory, SyncPolicy policy) {
+        return new DurableRentalRepository(directory,
+                new InMemoryRepository<Movie>(new MovieValidator()),
+                new InMemoryRepository<Client>(new ClientValidator()),
+                policy, DurableRepository.DEFAULT_SYNC_INTERVAL_MILLIS, NO_AUTOMATIC_SNAPSHOT);
+    }
+
+    private static Rental newRental(int i) {
+        LocalDateTime rentalDate = LocalDateTime.of(2023, 1, 1, 0, 0).plusMinutes(i);
+        return new Rental((long) (i % 500) + 1, (long) (i % 2000) + 1, 2.5f, rentalDate, rentalDate.plusDays(1));
+    }
+
+    private static void checkRecovered(DurableRentalRepository repository, int rentals) {
+        long recovered = repository.streamAll().count();
+        if (recovered != rentals) {
+            throw new IllegalStateException("Recovered " + recovered + " of " + rentals + " rentals.");
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
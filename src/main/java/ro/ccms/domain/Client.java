@@ -1,12 +1,22 @@
 package ro.ccms.domain;
+
+import ro.ccms.mapping.Column;
+import ro.ccms.mapping.Table;
+
 import java.util.Objects;
 
+@Table("clients")
 public class Client extends BaseEntity<Long>{
 
+    @Column("first_name")
     private String firstName;
+    @Column("last_name")
     private String lastName;
+    @Column("date_of_birth")
     private String dateOfBirth;
+    @Column("email")
     private String email;
+    @Column("subscribe")
     private boolean subscribe;
 
     public Client() {
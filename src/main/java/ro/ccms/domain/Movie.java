@@ -1,11 +1,21 @@
 package ro.ccms.domain;
 
+import ro.ccms.mapping.Column;
+import ro.ccms.mapping.Table;
+
+@Table("movies")
 public class Movie extends BaseEntity<Long>{
+    @Column("title")
     private String title;
+    @Column("year")
     private int year;
+    @Column("genre")
     private MovieGenres genre;
+    @Column("age_restriction")
     private AgeRestrictions ageRestrictions;
+    @Column("rental_price")
     private float rentalPrice;
+    @Column("available")
     private boolean available;
 
     public Movie() {
@@ -1,12 +1,21 @@
 package ro.ccms.domain;
 
+import ro.ccms.mapping.Column;
+import ro.ccms.mapping.Table;
+
 import java.time.LocalDateTime;
 
+@Table("rentals")
 public class Rental extends BaseEntity<Long>{
+    @Column("movie_id")
     private Long movieId;
+    @Column("client_id")
     private Long clientId;
+    @Column("rental_charge")
     private float rentalCharge;
+    @Column("rental_date")
     private LocalDateTime rentalDate;
+    @Column("due_date")
     private LocalDateTime dueDate;
 
     public Rental() {
@@ -0,0 +1,16 @@
+package ro.ccms.domain.exceptions;
+
+public class MovieNotAvailableException extends MovieRentalsException {
+
+    public MovieNotAvailableException(String message) {
+        super(message);
+    }
+
+    public MovieNotAvailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public MovieNotAvailableException(Throwable cause) {
+        super(cause);
+    }
+}
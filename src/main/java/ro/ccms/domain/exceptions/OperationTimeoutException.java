@@ -0,0 +1,16 @@
+package ro.ccms.domain.exceptions;
+
+public class OperationTimeoutException extends MovieRentalsException {
+
+    public OperationTimeoutException(String message) {
+        super(message);
+    }
+
+    public OperationTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public OperationTimeoutException(Throwable cause) {
+        super(cause);
+    }
+}
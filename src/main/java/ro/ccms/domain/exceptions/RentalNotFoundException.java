@@ -0,0 +1,16 @@
+package ro.ccms.domain.exceptions;
+
+public class RentalNotFoundException extends MovieRentalsException {
+
+    public RentalNotFoundException(String message) {
+        super(message);
+    }
+
+    public RentalNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public RentalNotFoundException(Throwable cause) {
+        super(cause);
+    }
+}
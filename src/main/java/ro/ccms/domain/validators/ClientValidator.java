@@ -1,61 +1,93 @@
 package ro.ccms.domain.validators;
 
 import ro.ccms.domain.Client;
-import ro.ccms.domain.exceptions.ValidatorException;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-public class ClientValidator implements Validator<Client> {
-
-    @Override
-    public void validate(Client entity) throws ValidatorException {
-        validateClientFirstName(entity);
-        validateClientLastName(entity);
-        validateClientDateOfBirth(entity);
-        validateClientEmail(entity);
+public class ClientValidator extends RuleSet<Client> {
+    private static final int[] DAYS_IN_MONTH = {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
 
+    public ClientValidator() {
+        super(
+                Rule.of(client -> client.getFirstName() != null && !client.getFirstName().isBlank(),
+                        "Client first name can't be blank!"),
+                Rule.of(client -> client.getLastName() != null && !client.getLastName().isBlank(),
+                        "Client last name can't be blank!"),
+                ClientValidator::checkDateOfBirth,
+                Rule.of(client -> isEmail(client.getEmail()),
+                        "Invalid email address")
+        );
     }
 
-    private static void validateClientEmail(Client client) throws ValidatorException{
-        String email = client.getEmail();
-        String regex = "^[A-Za-z0-9+_.-]+@(.+)$";
-
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(email);
-
-        if (!matcher.matches()) {
-            throw new ValidatorException("Invalid email address");
+    private static String checkDateOfBirth(Client client) {
+        int dateOfBirth = parseDate(client.getDateOfBirth());
+        if (dateOfBirth < 0) {
+            return "Invalid date of birth format.";
         }
+        if (dateOfBirth > CurrentDate.yearMonthDay()) {
+            return "Date of birth cannot be in the future.";
+        }
+        return null;
     }
 
-    private static void validateClientDateOfBirth(Client client) throws ValidatorException{
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-
-        try {
-            Date dob = dateFormat.parse(client.getDateOfBirth());
-            Date currentDate = new Date();
-            if (dob.after(currentDate)) {
-                throw new ValidatorException("Date of birth cannot be in the future.");
-            }
-        } catch (ParseException e) {
-            throw new ValidatorException("Invalid date of birth format.");
+    /**
+     * Parses a {@code yyyy-MM-dd} date.
+     *
+     * @return the date as {@code yyyyMMdd}, or -1 if it is not a valid date.
+     */
+    private static int parseDate(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return -1;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1]) {
+            return -1;
         }
+        boolean leapYear = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+        if (month == 2 && day == 29 && !leapYear) {
+            return -1;
+        }
+        return year * 10_000 + month * 100 + day;
     }
 
-    private static void validateClientLastName(Client client) throws ValidatorException{
-        if(client.getLastName().isBlank()){
-            throw new ValidatorException("Client last name can't be blank!");
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
         }
+        return value;
     }
 
-    private static void validateClientFirstName(Client client) throws ValidatorException{
-        if(client.getFirstName().isBlank()){
-            throw new ValidatorException("Client first name can't be blank!");
+    /**
+     * Same as matching {@code ^[A-Za-z0-9+_.-]+@(.+)$}: allowed characters up to the first {@code @},
+     * then at least one character and no line terminator.
+     */
+    private static boolean isEmail(String email) {
+        if (email == null) {
+            return false;
+        }
+        int at = 0;
+        while (at < email.length() && isLocalPartChar(email.charAt(at))) {
+            at++;
+        }
+        if (at == 0 || at >= email.length() - 1 || email.charAt(at) != '@') {
+            return false;
         }
+        for (int i = at + 1; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return true;
     }
 
+    private static boolean isLocalPartChar(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                || c == '+' || c == '_' || c == '.' || c == '-';
+    }
 }
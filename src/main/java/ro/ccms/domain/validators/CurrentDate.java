@@ -0,0 +1,52 @@
+package ro.ccms.domain.validators;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Today's date in the default time zone, computed once a day instead of on every check.
+ */
+final class CurrentDate {
+    private static volatile Day today = Day.current();
+
+    private CurrentDate() {
+    }
+
+    /**
+     * @return today's date as {@code yyyyMMdd}, e.g. 20240131.
+     */
+    static int yearMonthDay() {
+        return day().yearMonthDay;
+    }
+
+    static int year() {
+        return day().yearMonthDay / 10_000;
+    }
+
+    private static Day day() {
+        Day day = today;
+        if (System.currentTimeMillis() >= day.endMillis) {
+            day = Day.current();
+            today = day;
+        }
+        return day;
+    }
+
+    private static class Day {
+        private final int yearMonthDay;
+        private final long endMillis;
+
+        Day(int yearMonthDay, long endMillis) {
+            this.yearMonthDay = yearMonthDay;
+            this.endMillis = endMillis;
+        }
+
+        static Day current() {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate date = LocalDate.ofInstant(Instant.now(), zone);
+            long endMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            return new Day(date.getYear() * 10_000 + date.getMonthValue() * 100 + date.getDayOfMonth(), endMillis);
+        }
+    }
+}
@@ -1,39 +1,31 @@
 package ro.ccms.domain.validators;
 
 import ro.ccms.domain.Rental;
-import ro.ccms.domain.exceptions.ValidatorException;
 
-public class RentalValidator implements Validator<Rental>{
+import java.time.LocalDateTime;
 
-    @Override
-    public void validate(Rental entity) {
-        validateMovieId(entity);
-        validateClientId(entity);
-        validateRentalCharge(entity);
-        validateDueDate(entity);
+public class RentalValidator extends RuleSet<Rental> {
+    public RentalValidator() {
+        super(
+                Rule.of(rental -> rental.getMovieId() != null,
+                        "Movie ID can not be null. "),
+                Rule.of(rental -> rental.getClientId() != null,
+                        "Client ID can not be null. "),
+                Rule.of(rental -> rental.getRentalCharge() > 0.00,
+                        "Rental charge is not valid. "),
+                Rule.of(rental -> rental.getRentalDate() != null && rental.getDueDate() != null
+                                && !isMoreThanADayAfter(rental.getDueDate(), rental.getRentalDate()),
+                        "Difference between Rental Date and Due Date can be of 1 single Day.")
+        );
     }
 
-    private void validateDueDate(Rental entity) {
-        if(entity.getDueDate().minusDays(1).isAfter(entity.getRentalDate())){
-            throw new ValidatorException("Difference between Rental Date and Due Date can be of 1 single Day.");
-        }
-    }
-
-    private void validateRentalCharge(Rental entity) {
-        if((Float) entity.getRentalCharge() == null || entity.getRentalCharge() <= 0.00){
-            throw new ValidatorException("Rental charge is not valid. ");
-        }
-    }
-
-    private void validateClientId(Rental entity) {
-        if(entity.getClientId() == null){
-            throw new ValidatorException("Client ID can not be null. ");
-        }
-    }
-
-    private void validateMovieId(Rental entity) {
-        if(entity.getMovieId() == null){
-            throw new ValidatorException("Movie ID can not be null. ");
-        }
+    /**
+     * Same as {@code dueDate.minusDays(1).isAfter(rentalDate)}, without creating the shifted date.
+     */
+    private static boolean isMoreThanADayAfter(LocalDateTime dueDate, LocalDateTime rentalDate) {
+        long dayBeforeDue = dueDate.toLocalDate().toEpochDay() - 1;
+        long rentalDay = rentalDate.toLocalDate().toEpochDay();
+        return dayBeforeDue > rentalDay
+                || (dayBeforeDue == rentalDay && dueDate.toLocalTime().isAfter(rentalDate.toLocalTime()));
     }
 }
@@ -0,0 +1,22 @@
+package ro.ccms.domain.validators;
+
+import java.util.function.Predicate;
+
+/**
+ * One check of a {@link RuleSet}.
+ */
+@FunctionalInterface
+public interface Rule<T> {
+    /**
+     * @return the reason the entity breaks the rule, or null if it does not.
+     */
+    String check(T entity);
+
+    /**
+     * @param message the reason returned for the entities that do not pass the test; a constant, so that
+     *                a failure does not allocate.
+     */
+    static <T> Rule<T> of(Predicate<T> test, String message) {
+        return entity -> test.test(entity) ? null : message;
+    }
+}
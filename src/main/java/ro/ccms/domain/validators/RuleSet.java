@@ -0,0 +1,47 @@
+package ro.ccms.domain.validators;
+
+import ro.ccms.domain.exceptions.ValidatorException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A validator made of rules checked in order; the first broken rule gives the failure.
+ * <p>
+ * The rules are built once, hold no per-call state and do not allocate, so a rule set is shared freely
+ * between threads. Checking does not throw: only {@link #validate} turns a failure into an exception.
+ */
+public class RuleSet<T> implements Validator<T> {
+    private final List<Rule<T>> rules;
+
+    @SafeVarargs
+    public RuleSet(Rule<T>... rules) {
+        List<Rule<T>> ruleList = new ArrayList<>(rules.length);
+        for (Rule<T> rule : rules) {
+            ruleList.add(rule);
+        }
+        this.rules = List.copyOf(ruleList);
+    }
+
+    @Override
+    public void validate(T entity) {
+        String failure = check(entity);
+        if (failure != null) {
+            throw new ValidatorException(failure);
+        }
+    }
+
+    @Override
+    public String check(T entity) {
+        if (entity == null) {
+            return "Entity must not be null.";
+        }
+        for (int i = 0; i < rules.size(); i++) {
+            String failure = rules.get(i).check(entity);
+            if (failure != null) {
+                return failure;
+            }
+        }
+        return null;
+    }
+}
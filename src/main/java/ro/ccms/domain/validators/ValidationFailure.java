@@ -0,0 +1,37 @@
+package ro.ccms.domain.validators;
+
+/**
+ * An entity that is not valid, with its position among the validated entities and the reason.
+ */
+public class ValidationFailure<T> {
+    private final int index;
+    private final T entity;
+    private final String message;
+
+    public ValidationFailure(int index, T entity, String message) {
+        this.index = index;
+        this.entity = entity;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public T getEntity() {
+        return entity;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "ValidationFailure{" +
+                "index=" + index +
+                ", message='" + message + '\'' +
+                ", entity=" + entity +
+                '}';
+    }
+}
@@ -0,0 +1,29 @@
+package ro.ccms.domain.validators;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of {@link Validator#validateAll(Iterable)}: the valid entities and the failures.
+ */
+public class ValidationResult<T> {
+    private final List<T> valid;
+    private final List<ValidationFailure<T>> failures;
+
+    public ValidationResult(List<T> valid, List<ValidationFailure<T>> failures) {
+        this.valid = Collections.unmodifiableList(valid);
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    public List<T> getValid() {
+        return valid;
+    }
+
+    public List<ValidationFailure<T>> getFailures() {
+        return failures;
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
@@ -1,5 +1,49 @@
 package ro.ccms.domain.validators;
 
+import ro.ccms.domain.exceptions.ValidatorException;
+
+import java.util.ArrayList;
+import java.util.List;
+
 public interface Validator<T> {
     void validate(T entity);
+
+    /**
+     * Checks an entity without throwing when it is not valid.
+     *
+     * @return the reason the entity is not valid, or null if it is valid.
+     */
+    default String check(T entity) {
+        try {
+            validate(entity);
+            return null;
+        } catch (ValidatorException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Checks all the given entities, collecting the failures instead of stopping at the first one.
+     *
+     * @param entities must not be null.
+     * @return the valid entities and the failures, both in the order of the given entities.
+     */
+    default ValidationResult<T> validateAll(Iterable<T> entities) {
+        if (entities == null) {
+            throw new IllegalArgumentException("Entities must not be null.");
+        }
+        List<T> valid = new ArrayList<>();
+        List<ValidationFailure<T>> failures = new ArrayList<>();
+        int index = 0;
+        for (T entity : entities) {
+            String failure = check(entity);
+            if (failure == null) {
+                valid.add(entity);
+            } else {
+                failures.add(new ValidationFailure<>(index, entity, failure));
+            }
+            index++;
+        }
+        return new ValidationResult<>(valid, failures);
+    }
 }
@@ -0,0 +1,116 @@
+package ro.ccms.importer;
+
+import ro.ccms.domain.Client;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.validators.ClientValidator;
+import ro.ccms.domain.validators.MovieValidator;
+import ro.ccms.service.ClientDBService;
+import ro.ccms.service.MovieDBService;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Imports movies and clients from CSV files (one record per line, no header) or XML files
+ * ({@code movie} / {@code client} elements), like the ones in the {@code data} directory.
+ * <p>
+ * Rejected records are listed in a CSV file next to the imported one, named after it with a
+ * {@code .rejected.csv} suffix.
+ */
+public class CatalogImporter {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private final MovieDBService movieService;
+    private final ClientDBService clientService;
+    private int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    public CatalogImporter(MovieDBService movieService, ClientDBService clientService) {
+        this.movieService = movieService;
+        this.clientService = clientService;
+    }
+
+    /**
+     * Imports the movies of a CSV or XML file.
+     *
+     * @param file must not be null.
+     * @return the counts of read, imported and rejected records.
+     * @throws MovieRentalsException if the file can not be read or the movies can not be saved.
+     */
+    public ImportReport importMovies(Path file) {
+        ImportPipeline<Movie> pipeline = new ImportPipeline<>(new MovieParser(), new MovieValidator(),
+                movieService::addMovies, workers, batchSize, queueCapacity);
+        return run(pipeline, file, MovieParser.CSV_COLUMNS, MovieParser.XML_ELEMENT);
+    }
+
+    /**
+     * Imports the clients of a CSV or XML file.
+     *
+     * @param file must not be null.
+     * @return the counts of read, imported and rejected records.
+     * @throws MovieRentalsException if the file can not be read or the clients can not be saved.
+     */
+    public ImportReport importClients(Path file) {
+        ImportPipeline<Client> pipeline = new ImportPipeline<>(new ClientParser(), new ClientValidator(),
+                clientService::addClients, workers, batchSize, queueCapacity);
+        return run(pipeline, file, ClientParser.CSV_COLUMNS, ClientParser.XML_ELEMENT);
+    }
+
+    /**
+     * @param workers the number of parsing and of validating threads, must be positive.
+     */
+    public void setWorkers(int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Workers must be positive.");
+        }
+        this.workers = workers;
+    }
+
+    /**
+     * @param batchSize the number of records saved at once, must be positive.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param queueCapacity the number of records waiting between two stages, must be positive.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive.");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    private <T> ImportReport run(ImportPipeline<T> pipeline, Path file, String[] csvColumns, String xmlElement) {
+        if (file == null) {
+            throw new IllegalArgumentException("File must not be null.");
+        }
+        Path rejectedRowsFile = file.resolveSibling(file.getFileName() + ".rejected.csv");
+        try (RecordReader reader = open(file, csvColumns, xmlElement);
+             BufferedWriter rejectedRows = Files.newBufferedWriter(rejectedRowsFile, StandardCharsets.UTF_8)) {
+            rejectedRows.write("position,reason,record\n");
+            return pipeline.run(reader, rejectedRows, rejectedRowsFile);
+        } catch (IOException e) {
+            throw new MovieRentalsException("Import file exception. " + e.getMessage(), e);
+        }
+    }
+
+    private static RecordReader open(Path file, String[] csvColumns, String xmlElement) throws IOException {
+        if (file.getFileName().toString().toLowerCase().endsWith(".xml")) {
+            return new XmlRecordReader(new BufferedInputStream(Files.newInputStream(file)), xmlElement);
+        }
+        return new CsvRecordReader(Files.newBufferedReader(file, StandardCharsets.UTF_8), csvColumns);
+    }
+}
@@ -0,0 +1,25 @@
+package ro.ccms.importer;
+
+import ro.ccms.domain.Client;
+
+import java.util.Map;
+
+import static ro.ccms.importer.Fields.*;
+
+/**
+ * Parses the {@code firstName, lastName, dateOfBirth, email, subscribe} fields of a client;
+ * the id of the file is ignored, the repository assigns new ids.
+ */
+class ClientParser implements EntityParser<Client> {
+    static final String[] CSV_COLUMNS = {"id", "firstName", "lastName", "dateOfBirth", "email", "subscribe"};
+    static final String XML_ELEMENT = "client";
+
+    @Override
+    public Client parse(Map<String, String> fields) {
+        return new Client(required(fields, "firstName"),
+                required(fields, "lastName"),
+                required(fields, "dateOfBirth"),
+                required(fields, "email"),
+                parseBoolean(fields, "subscribe"));
+    }
+}
@@ -0,0 +1,78 @@
+package ro.ccms.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads comma separated lines without a header, naming the values by the given columns.
+ * Values may be enclosed in double quotes, with doubled quotes inside; blank lines are skipped.
+ */
+class CsvRecordReader implements RecordReader {
+    private final BufferedReader reader;
+    private final String[] columns;
+    private long lineNumber;
+
+    CsvRecordReader(BufferedReader reader, String[] columns) {
+        this.reader = reader;
+        this.columns = columns;
+    }
+
+    @Override
+    public RawRecord next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        List<String> values = split(line);
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < columns.length && i < values.size(); i++) {
+            fields.put(columns[i], values.get(i));
+        }
+        if (values.size() != columns.length) {
+            fields.put(ImportPipeline.FORMAT_ERROR, "Expected " + columns.length + " values, found " + values.size() + ".");
+        }
+        return new RawRecord(lineNumber, fields);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static List<String> split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString().trim());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString().trim());
+        return values;
+    }
+}
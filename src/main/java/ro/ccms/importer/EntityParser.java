@@ -0,0 +1,13 @@
+package ro.ccms.importer;
+
+import java.util.Map;
+
+/**
+ * Builds an entity from the named fields of a record.
+ */
+interface EntityParser<T> {
+    /**
+     * @throws IllegalArgumentException if a field is missing or malformed.
+     */
+    T parse(Map<String, String> fields);
+}
@@ -0,0 +1,57 @@
+package ro.ccms.importer;
+
+import java.util.Map;
+
+/**
+ * Reads typed values from the named fields of a record.
+ */
+final class Fields {
+    private Fields() {
+    }
+
+    static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + name + ".");
+        }
+        return value;
+    }
+
+    static boolean parseBoolean(Map<String, String> fields, String name) {
+        String value = required(fields, name);
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Invalid " + name + ": " + value + ".");
+    }
+
+    static <E extends Enum<E>> E parseEnum(Map<String, String> fields, String name, Class<E> type) {
+        String value = required(fields, name);
+        try {
+            return Enum.valueOf(type, value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value + ".");
+        }
+    }
+
+    static int parseInt(Map<String, String> fields, String name) {
+        String value = required(fields, name);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value + ".");
+        }
+    }
+
+    static float parseFloat(Map<String, String> fields, String name) {
+        String value = required(fields, name);
+        try {
+            return Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value + ".");
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package ro.ccms.importer;
+
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.validators.Validator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Imports records in four stages, each on its own threads, connected by bounded queues:
+ * reading, parsing, validating, and inserting in batches. A full queue blocks the stage before it,
+ * so memory use does not depend on the size of the file.
+ * <p>
+ * Records that can not be parsed or are not valid are written to the rejected rows file and the import
+ * goes on; a failure to read the file or to insert a batch stops all stages.
+ */
+class ImportPipeline<T> {
+    /** Field set by a reader when a record does not have the expected shape. */
+    static final String FORMAT_ERROR = "#formatError";
+
+    private static final int MAX_REJECTION_SAMPLES = 20;
+    private static final long POLL_MILLIS = 100;
+
+    private final EntityParser<T> parser;
+    private final Validator<T> validator;
+    private final Consumer<List<T>> inserter;
+    private final int workers;
+    private final int batchSize;
+    private final int queueCapacity;
+
+    private final RawRecord endOfRecords = new RawRecord(-1, Map.of());
+    private final Parsed<T> endOfParsed = new Parsed<>(endOfRecords, null);
+
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final List<String> rejectionSamples = Collections.synchronizedList(new ArrayList<>());
+    private volatile Throwable failure;
+
+    /**
+     * @param workers       the number of parsing and of validating threads.
+     * @param batchSize     the number of entities inserted at once.
+     * @param queueCapacity the number of records each queue holds before the stage feeding it blocks.
+     */
+    ImportPipeline(EntityParser<T> parser, Validator<T> validator, Consumer<List<T>> inserter,
+                   int workers, int batchSize, int queueCapacity) {
+        if (workers <= 0 || batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Workers, batch size and queue capacity must be positive.");
+        }
+        this.parser = parser;
+        this.validator = validator;
+        this.inserter = inserter;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Runs the import to the end. A pipeline runs once.
+     *
+     * @param reader          the records to import; closed when done.
+     * @param rejectedRows    receives a CSV line per rejected record.
+     * @param rejectedRowsFile the file behind {@code rejectedRows}, for the report.
+     * @throws MovieRentalsException if the file can not be read or a batch can not be inserted.
+     */
+    ImportReport run(RecordReader reader, Writer rejectedRows, Path rejectedRowsFile) {
+        long started = System.currentTimeMillis();
+        BlockingQueue<RawRecord> records = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Parsed<T>> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Parsed<T>> valid = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger parsersRunning = new AtomicInteger(workers);
+        AtomicInteger validatorsRunning = new AtomicInteger(workers);
+
+        List<Thread> threads = new ArrayList<>();
+        threads.add(stage("import-read", () -> read(reader, records)));
+        for (int i = 0; i < workers; i++) {
+            threads.add(stage("import-parse-" + i, () -> parse(records, parsed, parsersRunning, rejectedRows)));
+            threads.add(stage("import-validate-" + i, () -> validate(parsed, valid, validatorsRunning, rejectedRows)));
+        }
+        threads.add(stage("import-insert", () -> insert(valid)));
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                fail(e);
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            reader.close();
+            rejectedRows.flush();
+        } catch (IOException e) {
+            fail(e);
+        }
+
+        if (failure != null) {
+            throw new MovieRentalsException("Import failed after " + imported.get() + " records. " + failure.getMessage(),
+                    failure);
+        }
+        return new ImportReport(read.get(), imported.get(), rejected.get(), System.currentTimeMillis() - started,
+                List.copyOf(rejectionSamples), rejectedRowsFile);
+    }
+
+    private void read(RecordReader reader, BlockingQueue<RawRecord> records) throws IOException {
+        RawRecord record;
+        while ((record = reader.next()) != null) {
+            read.incrementAndGet();
+            put(records, record);
+        }
+        for (int i = 0; i < workers; i++) {
+            put(records, endOfRecords);
+        }
+    }
+
+    private void parse(BlockingQueue<RawRecord> records, BlockingQueue<Parsed<T>> parsed,
+                       AtomicInteger parsersRunning, Writer rejectedRows) throws IOException {
+        RawRecord record;
+        while ((record = take(records)) != endOfRecords) {
+            String formatError = record.getFields().get(FORMAT_ERROR);
+            if (formatError != null) {
+                reject(record, formatError, rejectedRows);
+                continue;
+            }
+            T entity;
+            try {
+                entity = parser.parse(record.getFields());
+            } catch (IllegalArgumentException e) {
+                reject(record, e.getMessage(), rejectedRows);
+                continue;
+            }
+            put(parsed, new Parsed<>(record, entity));
+        }
+        if (parsersRunning.decrementAndGet() == 0) {
+            for (int i = 0; i < workers; i++) {
+                put(parsed, endOfParsed);
+            }
+        }
+    }
+
+    private void validate(BlockingQueue<Parsed<T>> parsed, BlockingQueue<Parsed<T>> valid,
+                          AtomicInteger validatorsRunning, Writer rejectedRows) throws IOException {
+        Parsed<T> entity;
+        while ((entity = take(parsed)) != endOfParsed) {
+            String failure;
+            try {
+                failure = validator.check(entity.entity);
+            } catch (RuntimeException e) {
+                failure = e.getMessage();
+            }
+            if (failure != null) {
+                reject(entity.record, failure, rejectedRows);
+                continue;
+            }
+            put(valid, entity);
+        }
+        if (validatorsRunning.decrementAndGet() == 0) {
+            put(valid, endOfParsed);
+        }
+    }
+
+    private void insert(BlockingQueue<Parsed<T>> valid) {
+        List<T> batch = new ArrayList<>(batchSize);
+        Parsed<T> entity;
+        while ((entity = take(valid)) != endOfParsed) {
+            batch.add(entity.entity);
+            if (batch.size() == batchSize) {
+                inserter.accept(batch);
+                imported.addAndGet(batch.size());
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            inserter.accept(batch);
+            imported.addAndGet(batch.size());
+        }
+    }
+
+    private void reject(RawRecord record, String reason, Writer rejectedRows) throws IOException {
+        rejected.incrementAndGet();
+        if (rejectionSamples.size() < MAX_REJECTION_SAMPLES) {
+            rejectionSamples.add(record.getPosition() + ": " + reason);
+        }
+        String line = record.getPosition() + "," + quote(reason) + "," + quote(record.getFields().toString()) + "\n";
+        synchronized (rejectedRows) {
+            rejectedRows.write(line);
+        }
+    }
+
+    private static String quote(String value) {
+        return "\"" + String.valueOf(value).replace("\"", "\"\"") + "\"";
+    }
+
+    private Thread stage(String name, Stage stage) {
+        return new Thread(() -> {
+            try {
+                stage.run();
+            } catch (Aborted e) {
+                // Another stage failed; its failure is reported.
+            } catch (Throwable e) {
+                fail(e);
+            }
+        }, name);
+    }
+
+    private synchronized void fail(Throwable e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Blocks until the queue has room, unless another stage failed meanwhile.
+     */
+    private <E> void put(BlockingQueue<E> queue, E element) {
+        try {
+            while (!queue.offer(element, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure != null) {
+                    throw new Aborted();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Aborted();
+        }
+    }
+
+    /**
+     * Blocks until the queue has an element, unless another stage failed meanwhile.
+     */
+    private <E> E take(BlockingQueue<E> queue) {
+        try {
+            E element;
+            while ((element = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                if (failure != null) {
+                    throw new Aborted();
+                }
+            }
+            return element;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Aborted();
+        }
+    }
+
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    private static class Aborted extends RuntimeException {
+        Aborted() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static class Parsed<T> {
+        private final RawRecord record;
+        private final T entity;
+
+        Parsed(RawRecord record, T entity) {
+            this.record = record;
+            this.entity = entity;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ro.ccms.importer;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Outcome of an import: how many records were read, imported and rejected, and where the rejected ones are listed.
+ */
+public class ImportReport {
+    private final long read;
+    private final long imported;
+    private final long rejected;
+    private final long elapsedMillis;
+    private final List<String> rejectionSamples;
+    private final Path rejectedRowsFile;
+
+    ImportReport(long read, long imported, long rejected, long elapsedMillis, List<String> rejectionSamples,
+                 Path rejectedRowsFile) {
+        this.read = read;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.elapsedMillis = elapsedMillis;
+        this.rejectionSamples = rejectionSamples;
+        this.rejectedRowsFile = rejectedRowsFile;
+    }
+
+    public long getRead() {
+        return read;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return the first rejections, as "position: reason".
+     */
+    public List<String> getRejectionSamples() {
+        return rejectionSamples;
+    }
+
+    /**
+     * @return the CSV file listing every rejected record with its reason.
+     */
+    public Path getRejectedRowsFile() {
+        return rejectedRowsFile;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReport{" +
+                "read=" + read +
+                ", imported=" + imported +
+                ", rejected=" + rejected +
+                ", elapsedMillis=" + elapsedMillis +
+                ", rejectedRowsFile=" + rejectedRowsFile +
+                '}';
+    }
+}
@@ -0,0 +1,29 @@
+package ro.ccms.importer;
+
+import ro.ccms.domain.AgeRestrictions;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.MovieGenres;
+
+import java.util.Map;
+
+import static ro.ccms.importer.Fields.*;
+
+/**
+ * Parses the {@code title, year, genre, ageRestriction, rentalPrice, available} fields of a movie;
+ * the id and the rent counter of the file are ignored, the repository assigns new ids.
+ */
+class MovieParser implements EntityParser<Movie> {
+    static final String[] CSV_COLUMNS =
+            {"id", "title", "year", "genre", "ageRestriction", "rentalPrice", "available", "rentCounter"};
+    static final String XML_ELEMENT = "movie";
+
+    @Override
+    public Movie parse(Map<String, String> fields) {
+        return new Movie(required(fields, "title"),
+                parseInt(fields, "year"),
+                parseEnum(fields, "genre", MovieGenres.class),
+                parseEnum(fields, "ageRestriction", AgeRestrictions.class),
+                parseFloat(fields, "rentalPrice"),
+                parseBoolean(fields, "available"));
+    }
+}
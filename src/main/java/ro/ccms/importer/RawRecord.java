@@ -0,0 +1,27 @@
+package ro.ccms.importer;
+
+import java.util.Map;
+
+/**
+ * The named fields of one row or element of an import file, before they are parsed.
+ */
+class RawRecord {
+    private final long position;
+    private final Map<String, String> fields;
+
+    RawRecord(long position, Map<String, String> fields) {
+        this.position = position;
+        this.fields = fields;
+    }
+
+    /**
+     * @return the line of a CSV row, or the ordinal of an XML element.
+     */
+    long getPosition() {
+        return position;
+    }
+
+    Map<String, String> getFields() {
+        return fields;
+    }
+}
@@ -0,0 +1,16 @@
+package ro.ccms.importer;
+
+import java.io.IOException;
+
+/**
+ * Reads the records of an import file one at a time.
+ */
+interface RecordReader extends AutoCloseable {
+    /**
+     * @return the next record, or null at the end of the file.
+     */
+    RawRecord next() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,79 @@
+package ro.ccms.importer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads the given elements of an XML file with a streaming (StAX) parser, so only the current element is in
+ * memory. The attributes and the text of the child elements of each element become its fields.
+ */
+class XmlRecordReader implements RecordReader {
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final InputStream input;
+    private final XMLStreamReader reader;
+    private final String elementName;
+    private long ordinal;
+
+    XmlRecordReader(InputStream input, String elementName) throws IOException {
+        this.input = input;
+        this.elementName = elementName;
+        try {
+            this.reader = FACTORY.createXMLStreamReader(input);
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid XML file. " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public RawRecord next() throws IOException {
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals(elementName)) {
+                    return new RawRecord(++ordinal, readElement());
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid XML file. " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            input.close();
+        }
+    }
+
+    private Map<String, String> readElement() throws XMLStreamException {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            fields.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+        // Every child is read up to its end tag, so the next end tag closes the element itself.
+        int event = reader.next();
+        while (event != XMLStreamConstants.END_ELEMENT) {
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                fields.put(reader.getLocalName(), reader.getElementText().trim());
+            }
+            event = reader.next();
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,253 @@
+package ro.ccms.repository;
+
+import ro.ccms.domain.BaseEntity;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Looks entities up by id in batches: lookups made at the same time by different threads are combined into
+ * a single {@link Repository#findAllById(Collection)}, and lookups of an id that is already being loaded
+ * share its result instead of querying it again.
+ * <p>
+ * At most {@code maxConcurrentBatches} queries run at once. The ids asked for are queued, and a caller that
+ * finds a free slot loads the oldest of them, at most {@code maxBatchSize}, on its own thread. Every caller
+ * only loads batches until its own ids are loaded, then leaves the rest of the queue to the callers still
+ * waiting, so no caller loads the ids of others for long. A batch that fails because its caller was interrupted,
+ * e.g. timed out, is queued again for the other callers rather than failing them. Nothing is cached: an id asked
+ * for again after its batch returned is queried again.
+ * <p>
+ * Waiting uses locks only, so virtual threads are not pinned while they wait. A batch runs on the connection
+ * of the caller that loads it, so lookups that must see the uncommitted changes of a transaction have to go
+ * to the repository directly.
+ */
+public class BatchLoader<ID, T extends BaseEntity<ID>> {
+    public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+    public static final int DEFAULT_MAX_CONCURRENT_BATCHES = 2;
+
+    private final Repository<ID, T> repository;
+    private final int maxBatchSize;
+    private final int maxConcurrentBatches;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Signalled whenever a batch ends, so that waiting callers check their ids and the free slot.
+    private final Condition batchEnded = lock.newCondition();
+    // Ids queued or being loaded, with the future their callers wait on.
+    private final Map<ID, CompletableFuture<T>> pending = new HashMap<>();
+    private final ArrayDeque<ID> queued = new ArrayDeque<>();
+    private int runningBatches;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong loadedIdCount = new AtomicLong();
+
+    public BatchLoader(Repository<ID, T> repository) {
+        this(repository, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_CONCURRENT_BATCHES);
+    }
+
+    /**
+     * @param repository           the repository the entities are loaded from.
+     * @param maxBatchSize         the most ids loaded by one query, must be positive.
+     * @param maxConcurrentBatches the most queries running at once, must be positive.
+     */
+    public BatchLoader(Repository<ID, T> repository, int maxBatchSize, int maxConcurrentBatches) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository must not be null.");
+        }
+        if (maxBatchSize <= 0 || maxConcurrentBatches <= 0) {
+            throw new IllegalArgumentException("Batch size and concurrent batches must be positive.");
+        }
+        this.repository = repository;
+        this.maxBatchSize = maxBatchSize;
+        this.maxConcurrentBatches = maxConcurrentBatches;
+    }
+
+    /**
+     * Loads the entity with the given id, together with the ids asked for by other threads at the same time.
+     *
+     * @param id must not be null.
+     * @return an {@code Optional} encapsulating the entity with the given id.
+     * @throws IllegalArgumentException if the given id is null.
+     */
+    public Optional<T> load(ID id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Id must not be null.");
+        }
+        return Optional.ofNullable(join(request(List.of(id)).get(id)));
+    }
+
+    /**
+     * Loads the entities with the given ids, together with the ids asked for by other threads at the same time.
+     *
+     * @param ids must not be null, nor contain null.
+     * @return the found entities mapped by their id, in the order of the given ids; missing ids are left out.
+     */
+    public Map<ID, T> loadAll(Collection<ID> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null.");
+        }
+        for (ID id : ids) {
+            if (id == null) {
+                throw new IllegalArgumentException("Ids must not be null.");
+            }
+        }
+        Map<ID, T> entities = new LinkedHashMap<>();
+        request(ids).forEach((id, future) -> {
+            T entity = join(future);
+            if (entity != null) {
+                entities.put(id, entity);
+            }
+        });
+        return entities;
+    }
+
+    /**
+     * @return the number of ids asked for, duplicates included.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of queries made.
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * @return the number of ids queried; the difference to the requests was shared with other lookups.
+     */
+    public long getLoadedIdCount() {
+        return loadedIdCount.get();
+    }
+
+    private Map<ID, CompletableFuture<T>> request(Collection<ID> ids) {
+        Map<ID, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        requestCount.addAndGet(ids.size());
+        lock.lock();
+        try {
+            for (ID id : ids) {
+                if (futures.containsKey(id)) {
+                    continue;
+                }
+                CompletableFuture<T> future = pending.get(id);
+                if (future == null) {
+                    future = new CompletableFuture<>();
+                    pending.put(id, future);
+                    queued.add(id);
+                }
+                futures.put(id, future);
+            }
+            for (CompletableFuture<T> future : futures.values()) {
+                awaitLocked(future);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return futures;
+    }
+
+    /**
+     * Waits until the future is completed, loading the oldest queued ids whenever a slot is free.
+     * Called with the lock held; releases it while a batch runs or while waiting.
+     */
+    private void awaitLocked(CompletableFuture<T> future) {
+        while (!future.isDone()) {
+            if (runningBatches < maxConcurrentBatches && !queued.isEmpty()) {
+                runningBatches++;
+                List<ID> batch = takeQueued();
+                lock.unlock();
+                try {
+                    run(batch);
+                } finally {
+                    lock.lock();
+                }
+            } else {
+                try {
+                    batchEnded.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MovieRentalsException("Interrupted while loading by id. ");
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the batch and completes its futures. Called holding a batch slot, which it frees.
+     */
+    private void run(List<ID> batch) {
+        Map<ID, T> found = new HashMap<>();
+        Throwable failure = null;
+        try {
+            repository.findAllById(batch).forEach(entity -> found.put(entity.getId(), entity));
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+        batchCount.incrementAndGet();
+        loadedIdCount.addAndGet(batch.size());
+        boolean interrupted = failure != null && Thread.currentThread().isInterrupted();
+
+        lock.lock();
+        try {
+            runningBatches--;
+            if (interrupted) {
+                // The failure is this caller's own: put the ids back at the head of the queue for the others.
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    queued.addFirst(batch.get(i));
+                }
+            } else {
+                for (ID id : batch) {
+                    CompletableFuture<T> future = pending.remove(id);
+                    if (failure != null) {
+                        future.completeExceptionally(failure);
+                    } else {
+                        future.complete(found.get(id));
+                    }
+                }
+            }
+            batchEnded.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (interrupted) {
+            throw new MovieRentalsException("Interrupted while loading by id. ", failure);
+        }
+    }
+
+    // Called with the lock held.
+    private List<ID> takeQueued() {
+        List<ID> batch = new ArrayList<>(Math.min(queued.size(), maxBatchSize));
+        while (batch.size() < maxBatchSize && !queued.isEmpty()) {
+            batch.add(queued.poll());
+        }
+        return batch;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package ro.ccms.repository;
+
+import ro.ccms.domain.BaseEntity;
+import ro.ccms.domain.exceptions.ValidatorException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache in front of any {@link Repository}.
+ * <p>
+ * Lookups by id are served from a bounded LRU map whose entries expire after a time to live.
+ * Ids that do not exist can be cached as well, so repeated lookups of a missing id do not reach the database.
+ * Every write through this repository invalidates the ids it touches; queries over many entities
+ * ({@code findAll}, {@code streamAll}, {@code findPage}) always go to the underlying repository.
+ * <p>
+ * A write made in a transaction is invalidated again once the transaction ends: until the commit, a concurrent
+ * lookup still loads the old row, which must not stay cached.
+ */
+public class CachingRepository<ID, T extends BaseEntity<ID>> implements Repository<ID, T> {
+    private final Repository<ID, T> delegate;
+    private final int maximumSize;
+    private final long timeToLiveMillis;
+    private final boolean cacheMissingEntities;
+    private final TransactionManager transactionManager;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<ID, CacheEntry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Incremented on every invalidation; a load that raced with a write is not cached.
+    private long generation;
+
+    private long hits;
+    private long negativeHits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    /**
+     * @param delegate             the repository the entities are loaded from and written to.
+     * @param maximumSize          the maximum number of cached ids, must be positive.
+     * @param timeToLiveMillis     how long a cached entry is served before it is loaded again.
+     * @param cacheMissingEntities whether "not found" results are cached as well.
+     */
+    public CachingRepository(Repository<ID, T> delegate, int maximumSize, long timeToLiveMillis,
+                             boolean cacheMissingEntities) {
+        this(delegate, maximumSize, timeToLiveMillis, cacheMissingEntities, null);
+    }
+
+    /**
+     * @param delegate             the repository the entities are loaded from and written to.
+     * @param maximumSize          the maximum number of cached ids, must be positive.
+     * @param timeToLiveMillis     how long a cached entry is served before it is loaded again.
+     * @param cacheMissingEntities whether "not found" results are cached as well.
+     * @param transactionManager   the transactions the writes of the delegate take part in, null if none.
+     */
+    public CachingRepository(Repository<ID, T> delegate, int maximumSize, long timeToLiveMillis,
+                             boolean cacheMissingEntities, TransactionManager transactionManager) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Repository must not be null.");
+        }
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive.");
+        }
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.cacheMissingEntities = cacheMissingEntities;
+        this.transactionManager = transactionManager;
+    }
+
+    @Override
+    public Optional<T> findOne(ID id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Id must not be null.");
+        }
+        long loadGeneration;
+        lock.lock();
+        try {
+            CacheEntry<T> entry = lookup(id, System.currentTimeMillis());
+            if (entry != null) {
+                return Optional.ofNullable(entry.entity);
+            }
+            misses++;
+            loadGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+
+        Optional<T> loaded = delegate.findOne(id);
+        store(id, loaded.orElse(null), loadGeneration);
+        return loaded;
+    }
+
+    /**
+     * Always reads and locks through the delegate: a cached entity may be stale, and caching it would
+     * not take the lock.
+     */
+    @Override
+    public Optional<T> findOneForUpdate(ID id) {
+        return delegate.findOneForUpdate(id);
+    }
+
+    @Override
+    public List<T> findAllById(Collection<ID> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null.");
+        }
+        List<T> found = new ArrayList<>();
+        List<ID> missing = new ArrayList<>();
+        long loadGeneration;
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            for (ID id : ids) {
+                if (id == null) {
+                    throw new IllegalArgumentException("Id must not be null.");
+                }
+                CacheEntry<T> entry = lookup(id, now);
+                if (entry == null) {
+                    misses++;
+                    missing.add(id);
+                } else if (entry.entity != null) {
+                    found.add(entry.entity);
+                }
+            }
+            loadGeneration = generation;
+        } finally {
+            lock.unlock();
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        List<T> loaded = delegate.findAllById(missing);
+        Map<ID, T> loadedById = new LinkedHashMap<>();
+        loaded.forEach(entity -> loadedById.put(entity.getId(), entity));
+        for (ID id : missing) {
+            store(id, loadedById.get(id), loadGeneration);
+        }
+        found.addAll(loaded);
+        return found;
+    }
+
+    @Override
+    public Iterable<T> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<T> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public List<T> findPage(ID afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Optional<T> save(T entity) throws ValidatorException {
+        Optional<T> saved = delegate.save(entity);
+        ID id = saved.map(BaseEntity::getId).orElse(entity.getId());
+        if (id != null) {
+            invalidateWritten(id);
+        } else {
+            // The new id is unknown, it may have been cached as missing.
+            invalidateMissingWritten();
+        }
+        return saved;
+    }
+
+    @Override
+    public Iterable<T> saveAll(Iterable<T> entities) throws ValidatorException {
+        Iterable<T> saved = delegate.saveAll(entities);
+        invalidateMissingWritten();
+        saved.forEach(entity -> {
+            if (entity.getId() != null) {
+                invalidateWritten(entity.getId());
+            }
+        });
+        return saved;
+    }
+
+    @Override
+    public Optional<T> update(T entity) throws ValidatorException {
+        try {
+            return delegate.update(entity);
+        } finally {
+            if (entity != null && entity.getId() != null) {
+                invalidateWritten(entity.getId());
+            }
+        }
+    }
+
+    @Override
+    public Iterable<T> updateAll(Iterable<T> entities) throws ValidatorException {
+        try {
+            return delegate.updateAll(entities);
+        } finally {
+            if (entities != null) {
+                entities.forEach(entity -> {
+                    if (entity != null && entity.getId() != null) {
+                        invalidateWritten(entity.getId());
+                    }
+                });
+            }
+        }
+    }
+
+    @Override
+    public Optional<T> delete(ID id) {
+        try {
+            return delegate.delete(id);
+        } finally {
+            if (id != null) {
+                invalidateWritten(id);
+            }
+        }
+    }
+
+    @Override
+    public int deleteAllById(Iterable<ID> ids) {
+        try {
+            return delegate.deleteAllById(ids);
+        } finally {
+            if (ids != null) {
+                ids.forEach(id -> {
+                    if (id != null) {
+                        invalidateWritten(id);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Drops the cached entry of the given id, e.g. after it was changed outside this repository.
+     */
+    public void invalidate(ID id) {
+        lock.lock();
+        try {
+            generation++;
+            if (entries.remove(id) != null) {
+                invalidations++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops all cached entries.
+     */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            generation++;
+            invalidations += entries.size();
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return a snapshot of the cache usage counters.
+     */
+    public CacheStatistics getStatistics() {
+        lock.lock();
+        try {
+            return new CacheStatistics(entries.size(), maximumSize, hits, negativeHits, misses,
+                    evictions, expirations, invalidations);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the live entry of {@code id} and counts the hit; expired entries are removed.
+     * Must be called while holding the lock.
+     */
+    private CacheEntry<T> lookup(ID id, long now) {
+        CacheEntry<T> entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= now) {
+            entries.remove(id);
+            expirations++;
+            return null;
+        }
+        hits++;
+        if (entry.entity == null) {
+            negativeHits++;
+        }
+        return entry;
+    }
+
+    private void store(ID id, T entity, long loadGeneration) {
+        if (entity == null && !cacheMissingEntities) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (loadGeneration != generation) {
+                return;
+            }
+            entries.put(id, new CacheEntry<>(entity, System.currentTimeMillis() + timeToLiveMillis));
+            Iterator<CacheEntry<T>> eldest = entries.values().iterator();
+            while (entries.size() > maximumSize && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void invalidateWritten(ID id) {
+        invalidate(id);
+        if (transactionManager != null) {
+            transactionManager.afterCompletion(() -> invalidate(id));
+        }
+    }
+
+    private void invalidateMissingWritten() {
+        invalidateMissingEntities();
+        if (transactionManager != null) {
+            transactionManager.afterCompletion(this::invalidateMissingEntities);
+        }
+    }
+
+    private void invalidateMissingEntities() {
+        if (!cacheMissingEntities) {
+            return;
+        }
+        lock.lock();
+        try {
+            generation++;
+            Iterator<CacheEntry<T>> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().entity == null) {
+                    iterator.remove();
+                    invalidations++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class CacheEntry<T> {
+        private final T entity;
+        private final long expiresAt;
+
+        CacheEntry(T entity, long expiresAt) {
+            this.entity = entity;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,69 +1,99 @@
 package ro.ccms.repository;
 
 import ro.ccms.domain.Client;
+import ro.ccms.domain.ClientTableMapper;
 import ro.ccms.domain.validators.ClientValidator;
 import ro.ccms.domain.exceptions.MovieRentalsException;
 import ro.ccms.domain.validators.Validator;
 import ro.ccms.domain.exceptions.ValidatorException;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.stream.Stream;
 
 public class ClientDBRepository implements Repository<Long, Client> {
-    private ElephantSQLDataSource dataSource = new ElephantSQLDataSource();
+    private static final String INSERT_SQL = "INSERT INTO clients " +
+            "(first_name, last_name, date_of_birth, email, subscribe) values " +
+            "(?,?,?,?,?)";
+    private static final String UPDATE_SQL = "UPDATE clients " +
+            "SET first_name = ?, last_name = ?, date_of_birth = ?, " +
+            "email = ?, subscribe = ? WHERE id = ?";
+    private static final String INSERT_RETURNING_ID_SQL = INSERT_SQL + " RETURNING id";
+    private static final String DELETE_SQL = "DELETE FROM clients WHERE id  = ?";
+    private static final String DELETE_RETURNING_SQL = DELETE_SQL + " RETURNING " + ClientRowMapper.COLUMNS;
+    private static final String FIND_ALL_SQL = "SELECT " + ClientRowMapper.COLUMNS + " FROM clients";
+    private static final String FIND_ONE_SQL = FIND_ALL_SQL + " WHERE id = ?";
+    private static final String FIND_ONE_FOR_UPDATE_SQL = FIND_ONE_SQL + " FOR UPDATE";
+    private static final String FIND_ALL_BY_ID_SQL = FIND_ALL_SQL + " WHERE id = ANY(?)";
+    private static final String FIND_PAGE_SQL = FIND_ALL_SQL + " WHERE id > ? ORDER BY id LIMIT ?";
+
+    private final DataSource dataSource;
     private Validator<Client> validator = new ClientValidator();
+    private final Quarantine quarantine = new Quarantine();
+    private final ClientRowMapper rowMapper = new ClientRowMapper(quarantine);
+    private int batchSize = JdbcBatchExecutor.DEFAULT_BATCH_SIZE;
 
 
-    public ClientDBRepository() {
+    public ClientDBRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
     @Override
     public Optional<Client> findOne(Long id) {
-        Client client = new Client();
         if (id == null) {
             throw new IllegalArgumentException("Id must not be null");
         }
 
-        String query = "SELECT * FROM clients WHERE id =?";
-        try(Connection conn = dataSource.getConnection();
-            PreparedStatement statement = conn.prepareStatement(query);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement statement = conn.prepareStatement(FIND_ONE_SQL);
         ) {
             statement.setLong(1, id);
-            ResultSet resultSet = statement.executeQuery();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? Optional.ofNullable(rowMapper.mapRow(resultSet)) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+    }
 
-            if (resultSet.next()){
-                try {
-                    setFieldsOnClient(resultSet, client);
-                } catch (ValidatorException e) {
-                    throw new MovieRentalsException(e);
-                }
-            return Optional.of(client);
+    /**
+     * Locks the row until the end of the current transaction; see {@link TransactionalDataSource}.
+     */
+    @Override
+    public Optional<Client> findOneForUpdate(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Id must not be null.");
         }
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement statement = conn.prepareStatement(FIND_ONE_FOR_UPDATE_SQL)
+        ) {
+            statement.setLong(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? Optional.ofNullable(rowMapper.mapRow(resultSet)) : Optional.empty();
+            }
         } catch (SQLException e) {
             throw new MovieRentalsException("Database connection exception. ", e);
         }
-        return Optional.empty();
     }
 
     public Iterable<Client> findAll() {
         Set<Client> clients = new HashSet<>();
 
-        String query = "SELECT * FROM clients";
         try(Connection conn = dataSource.getConnection();
-            PreparedStatement statement = conn.prepareStatement(query);
+            PreparedStatement statement = conn.prepareStatement(FIND_ALL_SQL);
             ResultSet resultSet = statement.executeQuery();)
          {
+            RowMapper<Client> mapper = rowMapper.forResultSet(resultSet);
             while (resultSet.next()) {
-                Client client = new Client();
-                try {
-                    setFieldsOnClient(resultSet, client);
-                }catch (ValidatorException e){
-                    throw new MovieRentalsException(e);
+                Client client = mapper.mapRow(resultSet);
+                if (client != null) {
+                    clients.add(client);
                 }
-                clients.add(client);
             }
         } catch (SQLException e) {
             throw new MovieRentalsException("Database connection exception. ", e);
@@ -71,6 +101,59 @@ public class ClientDBRepository implements Repository<Long, Client> {
         return clients;
     }
 
+    @Override
+    public List<Client> findAllById(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null");
+        }
+        for (Long id : ids) {
+            if (id == null) {
+                throw new IllegalArgumentException("Id must not be null.");
+            }
+        }
+        List<Client> clients = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return clients;
+        }
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement statement = conn.prepareStatement(FIND_ALL_BY_ID_SQL)
+        ) {
+            statement.setArray(1, conn.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                RowMapper<Client> mapper = rowMapper.forResultSet(resultSet);
+                while (resultSet.next()) {
+                    Client client = mapper.mapRow(resultSet);
+                    if (client != null) {
+                        clients.add(client);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception ", e);
+        }
+        return clients;
+    }
+
+    @Override
+    public List<Client> findPage(Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement statement = conn.prepareStatement(FIND_PAGE_SQL)
+        ) {
+            return KeysetPages.read(statement, afterId, limit, rowMapper);
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception ", e);
+        }
+    }
+
+    @Override
+    public Stream<Client> streamAll() {
+        return JdbcStreams.stream(dataSource, FIND_ALL_SQL, JdbcStreams.DEFAULT_FETCH_SIZE, rowMapper);
+    }
+
     @Override
     public Optional<Client> save(Client client) {
         if (client == null) {
@@ -81,18 +164,13 @@ public class ClientDBRepository implements Repository<Long, Client> {
         }catch (ValidatorException e){
             throw new ValidatorException(e);
         }
-        String sqlQuery = "INSERT INTO clients " +
-                "(first_name, last_name, date_of_birth, email, subscribe) values " +
-                "(?,?,?,?,?)";
-
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement statement = conn.prepareStatement(sqlQuery)) {
-            statement.setString(1, client.getFirstName());
-            statement.setString(2, client.getLastName());
-            statement.setString(3, client.getDateOfBirth());
-            statement.setString(4, client.getEmail());
-            statement.setBoolean(5, client.isSubscribe());
-            statement.executeUpdate();
+             PreparedStatement statement = conn.prepareStatement(INSERT_RETURNING_ID_SQL)) {
+            setStatementFields(statement, client);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                client.setId(resultSet.getLong("id"));
+            }
             return Optional.of(client);
         } catch (SQLException e) {
             throw new MovieRentalsException("Database connection exception ", e);
@@ -104,19 +182,12 @@ public class ClientDBRepository implements Repository<Long, Client> {
         if (client == null) {
             throw new IllegalArgumentException("Client must not be null");
         }
-        String sqlString = "UPDATE clients " +
-                "SET first_name = ?, last_name = ?, date_of_birth = ?, " +
-                "email = ?, subscribe = ? WHERE id = ?";
         validator.validate(client);
             try (
                 Connection conn = dataSource.getConnection();
-                PreparedStatement statement = conn.prepareStatement(sqlString);
+                PreparedStatement statement = conn.prepareStatement(UPDATE_SQL);
             ) {
-                statement.setString(1, client.getFirstName());
-                statement.setString(2, client.getLastName());
-                statement.setString(3, client.getDateOfBirth());
-                statement.setString(4, client.getEmail());
-                statement.setBoolean(5, client.isSubscribe());
+                setStatementFields(statement, client);
                 statement.setLong(6, client.getId());
                 statement.executeUpdate();
             } catch (SQLException e) {
@@ -131,45 +202,110 @@ public class ClientDBRepository implements Repository<Long, Client> {
         if (id == null) {
             throw new IllegalArgumentException("Id must not be null");
         }
-        Optional<Client> clientToDelete = findOne(id);
-
-        if (clientToDelete.isPresent()) {
-            String sqlString = "DELETE FROM clients WHERE id  = ?";
-            try(Connection conn = dataSource.getConnection();
-                PreparedStatement statement = conn.prepareStatement(sqlString);
-            ){
-                statement.setLong(1, id);
-                statement.executeUpdate();
-            } catch (SQLException e) {
-                throw new MovieRentalsException("Database connection exception ",e);
-                }
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement statement = conn.prepareStatement(DELETE_RETURNING_SQL)
+        ) {
+            statement.setLong(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                // The row is already deleted: return it as it was, without read validation.
+                return resultSet.next() ? Optional.of(ClientTableMapper.of(resultSet).map(resultSet)) : Optional.empty();
             }
-        return clientToDelete;
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception ", e);
+        }
     }
 
-    private void setFieldsOnClient(ResultSet resultSet, Client client) throws SQLException {
-        Long resultId = resultSet.getLong("id");
-        client.setId(resultId);
-
-        String firstName = resultSet.getString("first_name");
-        client.setFirstName(firstName);
+    /**
+     * Sets how many statements the bulk operations send to the database in one round trip.
+     *
+     * @param batchSize must be positive.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.batchSize = batchSize;
+    }
 
-        String lastName = resultSet.getString("last_name");
-        client.setLastName(lastName);
+    /**
+     * Sets how much the rows read from the database are validated; {@link ReadValidationPolicy#full()} by default.
+     *
+     * @param policy must not be null.
+     */
+    public void setReadValidationPolicy(ReadValidationPolicy policy) {
+        rowMapper.setReadValidationPolicy(policy);
+    }
 
-        String dateOfBirth = resultSet.getString("date_of_birth");
-        client.setDateOfBirth(dateOfBirth);
+    /**
+     * @return the invalid rows left out of the reads under a lenient read validation policy.
+     */
+    public Quarantine getQuarantine() {
+        return quarantine;
+    }
 
-        String email = resultSet.getString("email");
-        client.setEmail(email);
+    @Override
+    public Iterable<Client> saveAll(Iterable<Client> clients) {
+        List<Client> clientList = validateAll(clients);
+        try {
+            JdbcBatchExecutor.executeBatchReturningKeys(dataSource, INSERT_SQL, clientList, batchSize,
+                    this::setStatementFields, "id", Client::setId);
+            return clientList;
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception ", e);
+        }
+    }
 
-        Boolean subscribe = resultSet.getBoolean("subscribe");
-        client.setSubscribe(subscribe);
+    @Override
+    public Iterable<Client> updateAll(Iterable<Client> clients) {
+        List<Client> clientList = validateAll(clients);
+        try {
+            JdbcBatchExecutor.executeBatch(dataSource, UPDATE_SQL, clientList, batchSize, (statement, client) -> {
+                setStatementFields(statement, client);
+                statement.setLong(6, client.getId());
+            });
+            return clientList;
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception ", e);
+        }
+    }
 
+    @Override
+    public int deleteAllById(Iterable<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null");
+        }
         try {
+            return JdbcBatchExecutor.executeBatch(dataSource, DELETE_SQL, ids, batchSize, (statement, id) -> {
+                if (id == null) {
+                    throw new IllegalArgumentException("Id must not be null");
+                }
+                statement.setLong(1, id);
+            });
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception ", e);
+        }
+    }
+
+    private List<Client> validateAll(Iterable<Client> clients) {
+        if (clients == null) {
+            throw new IllegalArgumentException("Clients must not be null");
+        }
+        List<Client> clientList = new ArrayList<>();
+        for (Client client : clients) {
+            if (client == null) {
+                throw new IllegalArgumentException("Client must not be null");
+            }
             validator.validate(client);
-        } catch (ValidatorException e) {
-            throw new ValidatorException("Database corrupted. There are not valid clients. ", e);
+            clientList.add(client);
         }
+        return clientList;
+    }
+
+    private void setStatementFields(PreparedStatement statement, Client client) throws SQLException {
+        statement.setString(1, client.getFirstName());
+        statement.setString(2, client.getLastName());
+        statement.setString(3, client.getDateOfBirth());
+        statement.setString(4, client.getEmail());
+        statement.setBoolean(5, client.isSubscribe());
     }
 }
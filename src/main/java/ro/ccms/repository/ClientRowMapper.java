@@ -0,0 +1,51 @@
+package ro.ccms.repository;
+
+import ro.ccms.domain.Client;
+import ro.ccms.domain.ClientTableMapper;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.exceptions.ValidatorException;
+import ro.ccms.domain.validators.ClientValidator;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a {@code clients} row, or the clients columns of a joined row, to a {@link Client}, validated as the read validation policy says.
+ * The columns are read by index through the generated {@link ClientTableMapper}.
+ */
+class ClientRowMapper implements RowMapper<Client> {
+    static final String COLUMNS = ClientTableMapper.COLUMNS;
+
+    private final ReadValidation<Client> readValidation;
+
+    /**
+     * @param quarantine where the invalid rows go under a lenient read validation policy.
+     */
+    ClientRowMapper(Quarantine quarantine) {
+        readValidation = new ReadValidation<>(new ClientValidator(), failure ->
+                new MovieRentalsException(new ValidatorException("Database corrupted. There are not valid clients. ",
+                        new ValidatorException(failure))), quarantine);
+    }
+
+    void setReadValidationPolicy(ReadValidationPolicy policy) {
+        readValidation.setPolicy(policy);
+    }
+
+    /**
+     * @return the client, or null if it is not valid and was quarantined.
+     */
+    @Override
+    public Client mapRow(ResultSet resultSet) throws SQLException {
+        return readValidation.check(ClientTableMapper.of(resultSet).map(resultSet));
+    }
+
+    @Override
+    public RowMapper<Client> forResultSet(ResultSet resultSet) throws SQLException {
+        ClientTableMapper tableMapper = ClientTableMapper.of(resultSet);
+        return row -> readValidation.check(tableMapper.map(row));
+    }
+
+    static String columns(String alias) {
+        return ClientTableMapper.columns(alias);
+    }
+}
@@ -0,0 +1,24 @@
+package ro.ccms.repository;
+
+/**
+ * Formats of the bulk rental copy.
+ */
+public enum CopyFormat {
+    /** Comma separated values with a header line. */
+    CSV("(FORMAT csv, HEADER true)"),
+    /** The PostgreSQL binary copy format: the most compact and fastest, readable by PostgreSQL only. */
+    BINARY("(FORMAT binary)");
+
+    private final String options;
+
+    CopyFormat(String options) {
+        this.options = options;
+    }
+
+    /**
+     * @return the options of the COPY statement selecting this format.
+     */
+    public String getOptions() {
+        return options;
+    }
+}
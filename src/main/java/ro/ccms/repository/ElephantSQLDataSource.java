@@ -11,13 +11,16 @@ public class ElephantSQLDataSource implements DataSource {
     private String DATABASENAME = "vqiikuda";
     private final String USERNAME = System.getenv("username");
     private final String PASSWORD = System.getenv("password");
+    // Use server-side prepared statements from the first execution; pooled connections cache them.
+    // Batched INSERTs are rewritten by the driver into multi-row INSERTs.
+    private String CONNECTION_PROPERTIES = "?prepareThreshold=1&reWriteBatchedInserts=true";
 
     public ElephantSQLDataSource() {
     }
 
     @Override
     public Connection getConnection() {
-        String connectionUrl = "jdbc:postgresql://" + HOSTNAME + ":" + PORT + "/" + DATABASENAME;
+        String connectionUrl = "jdbc:postgresql://" + HOSTNAME + ":" + PORT + "/" + DATABASENAME + CONNECTION_PROPERTIES;
         Connection connection = null;
         try {
             connection = DriverManager.getConnection(connectionUrl, USERNAME, PASSWORD);
@@ -0,0 +1,244 @@
+package ro.ccms.repository;
+
+import ro.ccms.domain.BaseEntity;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Saves entities asynchronously, grouping the saves requested at about the same time into a single
+ * {@link Repository#saveAll(Iterable)}, so that many concurrent writers share one round trip and one commit.
+ * <p>
+ * A committer thread takes the first queued save, waits at most {@code maxDelayMillis} for more, and flushes
+ * as soon as {@code maxBatchSize} saves are collected or the window is over. A larger window or batch makes
+ * fewer, bigger commits at the price of a longer wait for every save; a window of 0 only groups the saves that
+ * queued up while the previous batch was committing.
+ * <p>
+ * The future of a save completes once its batch is committed. If the batch fails, its saves are retried one by
+ * one, so that an invalid entity fails only its own future; an {@link Error} fails the whole batch. Dependent
+ * actions of the futures run on the committer thread unless they are added with the {@code async} methods,
+ * and must not block. Should the committer thread stop nonetheless, the writer closes and fails every queued save.
+ */
+public class GroupCommitWriter<ID, T extends BaseEntity<ID>> implements AutoCloseable {
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 5;
+
+    private final Repository<ID, T> repository;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingSave<T>> queue = new LinkedBlockingQueue<>();
+    // Queued by close after the last save; the committer stops once it reaches it.
+    private final PendingSave<T> closeMarker = new PendingSave<>(null);
+    private final ReentrantLock submitLock = new ReentrantLock();
+    private final Thread committer;
+    private boolean closed;
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong savedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    public GroupCommitWriter(Repository<ID, T> repository) {
+        this(repository, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    /**
+     * @param repository     the repository the batches are saved to.
+     * @param maxBatchSize   the most saves committed together, must be positive.
+     * @param maxDelayMillis how long the first save of a batch waits for others, must not be negative.
+     */
+    public GroupCommitWriter(Repository<ID, T> repository, int maxBatchSize, long maxDelayMillis) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Repository must not be null.");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        if (maxDelayMillis < 0) {
+            throw new IllegalArgumentException("Delay must not be negative.");
+        }
+        this.repository = repository;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.committer = new Thread(this::commitLoop, "group-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Queues the entity to be saved with the next batch.
+     *
+     * @param entity must not be null.
+     * @return a future completed with the saved entity once its batch is committed, or completed exceptionally
+     * with the exception of its save.
+     * @throws IllegalStateException if the writer is closed, or its committer thread has stopped.
+     */
+    public CompletableFuture<T> submit(T entity) {
+        if (entity == null) {
+            throw new IllegalArgumentException("Entity must not be null.");
+        }
+        PendingSave<T> save = new PendingSave<>(entity);
+        submitLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Group commit writer is closed.");
+            }
+            queue.add(save);
+        } finally {
+            submitLock.unlock();
+        }
+        return save.future;
+    }
+
+    /**
+     * @return the number of committed batches, retries of failed batches not included.
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * @return the number of saved entities.
+     */
+    public long getSavedCount() {
+        return savedCount.get();
+    }
+
+    /**
+     * @return the number of saves that failed.
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Stops accepting saves, then waits until the queued ones are committed.
+     */
+    @Override
+    public void close() {
+        submitLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(closeMarker);
+        } finally {
+            submitLock.unlock();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void commitLoop() {
+        List<PendingSave<T>> batch = new ArrayList<>(maxBatchSize);
+        try {
+            boolean closing = false;
+            while (!closing) {
+                PendingSave<T> first = queue.take();
+                if (first == closeMarker) {
+                    return;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingSave<T> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == closeMarker) {
+                        closing = true;
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            stop(batch, new MovieRentalsException("Group commit writer interrupted. "));
+        } catch (RuntimeException | Error e) {
+            stop(batch, new MovieRentalsException("Group commit writer stopped. ", e));
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the writer when the committer stops before reaching the close marker, and fails the saves it
+     * will not commit.
+     */
+    private void stop(List<PendingSave<T>> batch, MovieRentalsException failure) {
+        submitLock.lock();
+        try {
+            closed = true;
+        } finally {
+            submitLock.unlock();
+        }
+        batch.forEach(save -> fail(save, failure));
+        for (PendingSave<T> save; (save = queue.poll()) != null; ) {
+            if (save != closeMarker) {
+                fail(save, failure);
+            }
+        }
+    }
+
+    private void flush(List<PendingSave<T>> batch) {
+        List<T> entities = new ArrayList<>(batch.size());
+        for (PendingSave<T> save : batch) {
+            entities.add(save.entity);
+        }
+        try {
+            repository.saveAll(entities);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                fail(batch.get(0), e);
+            } else {
+                batch.forEach(this::saveAlone);
+            }
+            return;
+        } catch (Error e) {
+            batch.forEach(save -> fail(save, e));
+            return;
+        }
+        batchCount.incrementAndGet();
+        savedCount.addAndGet(batch.size());
+        for (PendingSave<T> save : batch) {
+            save.future.complete(save.entity);
+        }
+    }
+
+    private void saveAlone(PendingSave<T> save) {
+        try {
+            repository.save(save.entity);
+        } catch (RuntimeException | Error e) {
+            fail(save, e);
+            return;
+        }
+        savedCount.incrementAndGet();
+        save.future.complete(save.entity);
+    }
+
+    private void fail(PendingSave<T> save, Throwable e) {
+        failedCount.incrementAndGet();
+        save.future.completeExceptionally(e);
+    }
+
+    private static class PendingSave<T> {
+        private final T entity;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        PendingSave(T entity) {
+            this.entity = entity;
+        }
+    }
+}
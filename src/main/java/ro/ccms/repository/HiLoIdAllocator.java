@@ -0,0 +1,175 @@
+package ro.ccms.repository;
+
+import ro.ccms.domain.exceptions.MovieRentalsException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out ids reserved in blocks from a database sequence, so that inserts do not wait on the database
+ * for every id and can be batched.
+ * <p>
+ * A block is the next {@code blockSize} values of the sequence, taken with one {@code nextval} each in a
+ * single round trip, and handed out locally. The sequence keeps its increment of one, so inserts that take their
+ * id from the sequence default, like bulk copies, use one value per row and never collide with the allocated
+ * ids. The values of a block need not be consecutive when such inserts run at the same time.
+ * <p>
+ * Thread-safe: ids of the current block are handed out without locking, and only the thread that finds the
+ * block exhausted fetches the next one while the others wait for it.
+ * <p>
+ * Give it the {@link TransactionalDataSource} of the repositories: an insert in a transaction then fetches the
+ * block on the connection it already holds. Borrowing a second connection from the pool could wait for one
+ * while every pooled connection is held by a transaction that waits for the block. {@code nextval} is not
+ * undone by a rollback, so a block fetched in a transaction stays reserved whatever its outcome.
+ */
+public class HiLoIdAllocator {
+    public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    private static final String NEXT_VALUES_SQL = "SELECT nextval(?::regclass) FROM generate_series(1, ?)";
+
+    private final DataSource dataSource;
+    private final String sequenceName;
+    private final int blockSize;
+    private final ReentrantLock fetchLock = new ReentrantLock();
+    private volatile Block block = new Block(new long[0]);
+    private final AtomicLong fetchCount = new AtomicLong();
+
+    public HiLoIdAllocator(DataSource dataSource, String sequenceName) {
+        this(dataSource, sequenceName, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param dataSource   must not be null.
+     * @param sequenceName the sequence to reserve the blocks from, e.g. {@code rentals_id_seq}.
+     * @param blockSize    the number of ids reserved by a round trip, must be positive.
+     */
+    public HiLoIdAllocator(DataSource dataSource, String sequenceName, int blockSize) {
+        if (dataSource == null || sequenceName == null) {
+            throw new IllegalArgumentException("Data source and sequence name must not be null.");
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive.");
+        }
+        this.dataSource = dataSource;
+        this.sequenceName = sequenceName;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @return a new id, never handed out before.
+     * @throws MovieRentalsException if the next block can not be reserved.
+     */
+    public long nextId() {
+        while (true) {
+            Block current = block;
+            int index = current.next.getAndIncrement();
+            if (index < current.ids.length) {
+                return current.ids[index];
+            }
+            fetchLock.lock();
+            try {
+                if (block == current) {
+                    block = new Block(fetchValues(blockSize));
+                }
+            } finally {
+                fetchLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Allocates many ids at once, reserving all the missing blocks in a single round trip.
+     *
+     * @param count must not be negative.
+     * @return {@code count} new ids, not necessarily consecutive.
+     * @throws MovieRentalsException if the blocks can not be reserved.
+     */
+    public long[] nextIds(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative.");
+        }
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            Block current = block;
+            int index = current.next.getAndIncrement();
+            if (index < current.ids.length) {
+                ids[filled++] = current.ids[index];
+                continue;
+            }
+            fetchLock.lock();
+            try {
+                if (block == current) {
+                    filled = fillFromNewBlocks(ids, filled);
+                }
+            } finally {
+                fetchLock.unlock();
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return the number of round trips made to reserve blocks.
+     */
+    public long getFetchCount() {
+        return fetchCount.get();
+    }
+
+    /**
+     * Reserves the blocks for the missing ids in one round trip, fills them in, and keeps what is left of
+     * the last block as the current one. Called with the fetch lock held.
+     */
+    private int fillFromNewBlocks(long[] ids, int filled) {
+        int missing = ids.length - filled;
+        int blockCount = (missing + blockSize - 1) / blockSize;
+        long[] values = fetchValues(Math.multiplyExact(blockCount, blockSize));
+        System.arraycopy(values, 0, ids, filled, missing);
+        Block rest = new Block(values);
+        rest.next.set(missing);
+        block = rest;
+        return ids.length;
+    }
+
+    /**
+     * @return the next {@code count} values of the sequence.
+     */
+    private long[] fetchValues(int count) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement statement = conn.prepareStatement(NEXT_VALUES_SQL)
+        ) {
+            statement.setString(1, sequenceName);
+            statement.setInt(2, count);
+            long[] values = new long[count];
+            int i = 0;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    values[i++] = resultSet.getLong(1);
+                }
+            }
+            if (i != count) {
+                throw new MovieRentalsException("Sequence " + sequenceName + " returned " + i + " of " + count
+                        + " values. ");
+            }
+            fetchCount.incrementAndGet();
+            return values;
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+    }
+
+    private static class Block {
+        private final AtomicInteger next = new AtomicInteger();
+        private final long[] ids;
+
+        Block(long[] ids) {
+            this.ids = ids;
+        }
+    }
+}
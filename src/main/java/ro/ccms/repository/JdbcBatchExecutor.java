@@ -0,0 +1,135 @@
+package ro.ccms.repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs one parameterized statement for many items as JDBC batches inside a single transaction.
+ */
+class JdbcBatchExecutor {
+    static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * Binds the parameters of one batch entry.
+     */
+    interface StatementBinder<E> {
+        void bind(PreparedStatement statement, E item) throws SQLException;
+    }
+
+    /**
+     * Receives the key the database generated for an inserted item.
+     */
+    interface KeyConsumer<E> {
+        void accept(E item, long key);
+    }
+
+    private JdbcBatchExecutor() {
+    }
+
+    /**
+     * Executes {@code sql} once per item, flushing every {@code batchSize} items, and commits at the end.
+     * Nothing is committed if any batch fails.
+     *
+     * @return the total number of affected rows.
+     */
+    static <E> int executeBatch(DataSource dataSource, String sql, Iterable<E> items, int batchSize,
+                                StatementBinder<E> binder) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement statement = conn.prepareStatement(sql)) {
+                int affectedRows = 0;
+                int pending = 0;
+                for (E item : items) {
+                    binder.bind(statement, item);
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        affectedRows += sum(statement.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    affectedRows += sum(statement.executeBatch());
+                }
+                conn.commit();
+                return affectedRows;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Executes the insert {@code sql} once per item like {@link #executeBatch}, and hands every item the
+     * value of the generated {@code keyColumn} of its row. The keys are only handed out once all batches
+     * are committed, so the items are left untouched if the inserts fail.
+     *
+     * @return the number of inserted rows.
+     */
+    static <E> int executeBatchReturningKeys(DataSource dataSource, String sql, Iterable<E> items, int batchSize,
+                                             StatementBinder<E> binder, String keyColumn,
+                                             KeyConsumer<E> keyConsumer) throws SQLException {
+        List<E> inserted = new ArrayList<>();
+        List<Long> keys = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement statement = conn.prepareStatement(sql, new String[]{keyColumn})) {
+                int pending = 0;
+                for (E item : items) {
+                    binder.bind(statement, item);
+                    statement.addBatch();
+                    inserted.add(item);
+                    if (++pending == batchSize) {
+                        statement.executeBatch();
+                        readKeys(statement, keys);
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                    readKeys(statement, keys);
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        if (keys.size() != inserted.size()) {
+            throw new SQLException("Expected " + inserted.size() + " generated keys, got " + keys.size() + ".");
+        }
+        for (int i = 0; i < inserted.size(); i++) {
+            keyConsumer.accept(inserted.get(i), keys.get(i));
+        }
+        return inserted.size();
+    }
+
+    private static void readKeys(PreparedStatement statement, List<Long> keys) throws SQLException {
+        try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+            while (generatedKeys.next()) {
+                keys.add(generatedKeys.getLong(1));
+            }
+        }
+    }
+
+    private static int sum(int[] updateCounts) {
+        int total = 0;
+        for (int count : updateCounts) {
+            if (count > 0) {
+                total += count;
+            }
+        }
+        return total;
+    }
+}
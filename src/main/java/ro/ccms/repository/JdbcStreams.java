@@ -0,0 +1,116 @@
+package ro.ccms.repository;
+
+import ro.ccms.domain.exceptions.MovieRentalsException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams query results row by row through a server-side cursor.
+ * PostgreSQL only honours the fetch size inside a transaction, so auto-commit is switched off
+ * for the lifetime of the stream; the connection is released when the stream is closed.
+ */
+class JdbcStreams {
+    static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private JdbcStreams() {
+    }
+
+    static <T> Stream<T> stream(DataSource dataSource, String sql, int fetchSize, RowMapper<T> rowMapper) {
+        Connection conn = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            conn = dataSource.getConnection();
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            statement = conn.prepareStatement(sql);
+            statement.setFetchSize(fetchSize);
+            resultSet = statement.executeQuery();
+
+            Cursor cursor = new Cursor(conn, autoCommit, statement, resultSet);
+            return StreamSupport.stream(new RowSpliterator<>(resultSet, rowMapper.forResultSet(resultSet)), false)
+                    .onClose(cursor::close);
+        } catch (SQLException e) {
+            closeQuietly(resultSet, statement, conn);
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource != null) {
+                try {
+                    resource.close();
+                } catch (Exception e) {
+                    // Nothing left to release.
+                }
+            }
+        }
+    }
+
+    private static class RowSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+        private final ResultSet resultSet;
+        private final RowMapper<T> rowMapper;
+
+        RowSpliterator(ResultSet resultSet, RowMapper<T> rowMapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.resultSet = resultSet;
+            this.rowMapper = rowMapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            try {
+                while (resultSet.next()) {
+                    T row = rowMapper.mapRow(resultSet);
+                    // Rows left out by a lenient read validation policy are skipped.
+                    if (row != null) {
+                        action.accept(row);
+                        return true;
+                    }
+                }
+                return false;
+            } catch (SQLException e) {
+                throw new MovieRentalsException("Database connection exception. ", e);
+            }
+        }
+    }
+
+    private static class Cursor {
+        private final Connection conn;
+        private final boolean autoCommit;
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+
+        Cursor(Connection conn, boolean autoCommit, PreparedStatement statement, ResultSet resultSet) {
+            this.conn = conn;
+            this.autoCommit = autoCommit;
+            this.statement = statement;
+            this.resultSet = resultSet;
+        }
+
+        void close() {
+            try {
+                resultSet.close();
+                statement.close();
+                if (autoCommit) {
+                    conn.commit();
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                throw new MovieRentalsException("Database connection exception. ", e);
+            } finally {
+                closeQuietly(conn);
+            }
+        }
+    }
+}
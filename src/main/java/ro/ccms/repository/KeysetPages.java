@@ -0,0 +1,53 @@
+package ro.ccms.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads pages of entities ordered by id, each page starting after the last id of the previous one.
+ * <p>
+ * Rows the row mapper leaves out, like the quarantined ones, do not count towards the page: the query is run
+ * again after the last row read until the page is full or the table ends. A page shorter than its limit
+ * therefore always means there are no more entities, as the callers paging through a table expect.
+ */
+class KeysetPages {
+    private KeysetPages() {
+    }
+
+    /**
+     * @param statement a query of the {@code id} column among others, taking the id to start after and the limit,
+     *                  as in {@code ... WHERE id > ? ORDER BY id LIMIT ?}.
+     * @param afterId   the id of the last entity of the previous page, null for the first page.
+     * @param limit     the maximum number of entities in the page.
+     * @return the entities of the page, fewer than {@code limit} only at the end of the table.
+     */
+    static <T> List<T> read(PreparedStatement statement, Long afterId, int limit, RowMapper<T> rowMapper)
+            throws SQLException {
+        List<T> page = new ArrayList<>();
+        long lastId = afterId == null ? Long.MIN_VALUE : afterId;
+        while (page.size() < limit) {
+            int wanted = limit - page.size();
+            statement.setLong(1, lastId);
+            statement.setInt(2, wanted);
+            int rows = 0;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                RowMapper<T> mapper = rowMapper.forResultSet(resultSet);
+                while (resultSet.next()) {
+                    rows++;
+                    lastId = resultSet.getLong("id");
+                    T entity = mapper.mapRow(resultSet);
+                    if (entity != null) {
+                        page.add(entity);
+                    }
+                }
+            }
+            if (rows < wanted) {
+                break;
+            }
+        }
+        return page;
+    }
+}
@@ -1,75 +1,107 @@
 package ro.ccms.repository;
 
-import ro.ccms.domain.AgeRestrictions;
 import ro.ccms.domain.Movie;
-import ro.ccms.domain.MovieGenres;
+import ro.ccms.domain.MovieTableMapper;
 import ro.ccms.domain.exceptions.MovieRentalsException;
 import ro.ccms.domain.validators.MovieValidator;
 import ro.ccms.domain.validators.Validator;
 import ro.ccms.domain.exceptions.ValidatorException;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public class MovieDBRepository implements Repository<Long, Movie> {
-    private ElephantSQLDataSource dataSource = new ElephantSQLDataSource();
+    private static final String INSERT_SQL = "INSERT INTO movies (" +
+            "title, year, genre, age_restriction, rental_price, available) " +
+            "values (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE movies " +
+            "SET title = ?, year = ?, genre = ?, age_restriction = ?, " +
+            "rental_price = ?, available = ? " +
+            "WHERE id = ?";
+    private static final String INSERT_RETURNING_ID_SQL = INSERT_SQL + " RETURNING id";
+    private static final String DELETE_SQL = "DELETE FROM movies WHERE id = ?";
+    private static final String DELETE_RETURNING_SQL = DELETE_SQL + " RETURNING " + MovieRowMapper.COLUMNS;
+    private static final String FIND_ALL_SQL = "SELECT " + MovieRowMapper.COLUMNS + " FROM movies";
+    private static final String FIND_ONE_SQL = FIND_ALL_SQL + " WHERE id = ?";
+    private static final String FIND_ONE_FOR_UPDATE_SQL = FIND_ONE_SQL + " FOR UPDATE";
+    private static final String FIND_ALL_BY_ID_SQL = FIND_ALL_SQL + " WHERE id = ANY(?)";
+    private static final String FIND_PAGE_SQL = FIND_ALL_SQL + " WHERE id > ? ORDER BY id LIMIT ?";
+
+    private final DataSource dataSource;
     private Validator<Movie> validator = new MovieValidator();
+    private final Quarantine quarantine = new Quarantine();
+    private final MovieRowMapper rowMapper = new MovieRowMapper(quarantine);
+    private int batchSize = JdbcBatchExecutor.DEFAULT_BATCH_SIZE;
 
 
-    public MovieDBRepository() {
+    public MovieDBRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
 
     @Override
     public Optional<Movie> findOne(Long id) {
-        Movie movie = new Movie();
         if (id == null) {
             throw new IllegalArgumentException("Id must not be null.");
         }
 
-        String query = "SELECT * FROM movies WHERE id = ?";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement statement = conn.prepareStatement(query);
+             PreparedStatement statement = conn.prepareStatement(FIND_ONE_SQL);
         ) {
             statement.setLong(1, id);
-            ResultSet resultSet = statement.executeQuery();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? Optional.ofNullable(rowMapper.mapRow(resultSet)) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+    }
 
-            if (resultSet.next()) {
-                try {
-                    setFieldsOnMovie(resultSet, movie);
-                } catch (ValidatorException e){
-                    throw new MovieRentalsException(e);
-                }
-                return Optional.of(movie);
+    /**
+     * Locks the row until the end of the current transaction; see {@link TransactionalDataSource}.
+     */
+    @Override
+    public Optional<Movie> findOneForUpdate(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Id must not be null.");
+        }
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement statement = conn.prepareStatement(FIND_ONE_FOR_UPDATE_SQL)
+        ) {
+            statement.setLong(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? Optional.ofNullable(rowMapper.mapRow(resultSet)) : Optional.empty();
             }
         } catch (SQLException e) {
             throw new MovieRentalsException("Database connection exception. ", e);
         }
-        return Optional.empty();
     }
 
     @Override
     public Iterable<Movie> findAll() {
         Set<Movie> movies = new HashSet<>();
 
-        String query = "SELECT * FROM movies";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement statement = conn.prepareStatement(query);
+             PreparedStatement statement = conn.prepareStatement(FIND_ALL_SQL);
              ResultSet resultSet = statement.executeQuery();
         ) {
+            RowMapper<Movie> mapper = rowMapper.forResultSet(resultSet);
             while (resultSet.next()) {
-                Movie movie = new Movie();
-                try {
-                    setFieldsOnMovie(resultSet, movie);
-                } catch (ValidatorException e){
-                    throw new MovieRentalsException(e);
+                Movie movie = mapper.mapRow(resultSet);
+                if (movie != null) {
+                    movies.add(movie);
                 }
-                movies.add(movie);
             }
         } catch (SQLException e) {
             throw new MovieRentalsException("Database connection exception. ", e);
@@ -77,35 +109,60 @@ public class MovieDBRepository implements Repository<Long, Movie> {
         return movies;
     }
 
-    private void setFieldsOnMovie(ResultSet resultSet, Movie movie) throws SQLException {
-        Long resultId = resultSet.getLong("id");
-        movie.setId(resultId);
-
-        String title = resultSet.getString("title");
-        movie.setTitle(title);
-
-        int year = resultSet.getInt("year");
-        movie.setYear(year);
-
-        MovieGenres genre = MovieGenres.valueOf(resultSet.getString("genre").toUpperCase());
-        movie.setGenre(genre);
-
-        AgeRestrictions ageRestriction = AgeRestrictions.valueOf(resultSet.getString("age_restriction").toUpperCase());
-        movie.setAgeRestrictions(ageRestriction);
-
-        float rentalPrice = resultSet.getFloat("rental_price");
-        movie.setRentalPrice(rentalPrice);
+    @Override
+    public List<Movie> findAllById(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null.");
+        }
+        for (Long id : ids) {
+            if (id == null) {
+                throw new IllegalArgumentException("Id must not be null.");
+            }
+        }
+        List<Movie> movies = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return movies;
+        }
 
-        boolean available = resultSet.getBoolean("available");
-        movie.setAvailable(available);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement statement = conn.prepareStatement(FIND_ALL_BY_ID_SQL)
+        ) {
+            statement.setArray(1, conn.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                RowMapper<Movie> mapper = rowMapper.forResultSet(resultSet);
+                while (resultSet.next()) {
+                    Movie movie = mapper.mapRow(resultSet);
+                    if (movie != null) {
+                        movies.add(movie);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+        return movies;
+    }
 
-        try {
-            validator.validate(movie);
-        } catch (ValidatorException e) {
-            throw new ValidatorException("Database corrupted. There are not valid movies. ", e);
+    @Override
+    public List<Movie> findPage(Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement statement = conn.prepareStatement(FIND_PAGE_SQL)
+        ) {
+            return KeysetPages.read(statement, afterId, limit, rowMapper);
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
         }
     }
 
+    @Override
+    public Stream<Movie> streamAll() {
+        return JdbcStreams.stream(dataSource, FIND_ALL_SQL, JdbcStreams.DEFAULT_FETCH_SIZE, rowMapper);
+    }
+
+
 
     @Override
     public Optional<Movie> save(Movie movie) {
@@ -119,18 +176,13 @@ public class MovieDBRepository implements Repository<Long, Movie> {
             throw new ValidatorException(e);
         }
 
-        String sqlString = "INSERT INTO movies (" +
-                "title, year, genre, age_restriction, rental_price, available) " +
-                "values (?, ?, ?, ?, ?, ?)";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement statement = conn.prepareStatement(sqlString)) {
-            statement.setString(1, movie.getTitle());
-            statement.setInt(2, movie.getYear());
-            statement.setString(3, String.valueOf(movie.getGenre()));
-            statement.setString(4, String.valueOf(movie.getAgeRestrictions()));
-            statement.setFloat(5, movie.getRentalPrice());
-            statement.setBoolean(6, movie.isAvailable());
-            statement.executeUpdate();
+             PreparedStatement statement = conn.prepareStatement(INSERT_RETURNING_ID_SQL)) {
+            setStatementFields(statement, movie);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                movie.setId(resultSet.getLong("id"));
+            }
             return Optional.of(movie);
         } catch (SQLException e) {
             throw new MovieRentalsException("Database connection exception. ", e);
@@ -143,22 +195,12 @@ public class MovieDBRepository implements Repository<Long, Movie> {
         if (movie == null) {
             throw new IllegalArgumentException("Movie must not be null.");
         }
-        String sqlString = "UPDATE movies " +
-                "SET title = ?, year = ?, genre = ?, age_restriction = ?, " +
-                "rental_price = ?, available = ? " +
-                "WHERE id = ?";
-
         validator.validate(movie);
 
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement statement = conn.prepareStatement(sqlString);
+             PreparedStatement statement = conn.prepareStatement(UPDATE_SQL);
         ) {
-            statement.setString(1, movie.getTitle());
-            statement.setInt(2, movie.getYear());
-            statement.setString(3, String.valueOf(movie.getGenre()));
-            statement.setString(4, String.valueOf(movie.getAgeRestrictions()));
-            statement.setFloat(5, movie.getRentalPrice());
-            statement.setBoolean(6, movie.isAvailable());
+            setStatementFields(statement, movie);
             statement.setLong(7, movie.getId());
             statement.executeUpdate();
         } catch (SQLException e) {
@@ -173,19 +215,111 @@ public class MovieDBRepository implements Repository<Long, Movie> {
         if (id == null) {
             throw new IllegalArgumentException("Id must not be null.");
         }
-        Optional<Movie> movieToDelete = findOne(id);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement statement = conn.prepareStatement(DELETE_RETURNING_SQL)
+        ) {
+            statement.setLong(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                // The row is already deleted: return it as it was, without read validation.
+                return resultSet.next() ? Optional.of(MovieTableMapper.of(resultSet).map(resultSet)) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+    }
 
-        if (movieToDelete.isPresent()) {
-            String sqlString = "DELETE FROM movies WHERE id = ?";
-            try (Connection conn = dataSource.getConnection();
-                 PreparedStatement statement = conn.prepareStatement(sqlString);
-            ) {
+    /**
+     * Sets how many statements the bulk operations send to the database in one round trip.
+     *
+     * @param batchSize must be positive.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets how much the rows read from the database are validated; {@link ReadValidationPolicy#full()} by default.
+     *
+     * @param policy must not be null.
+     */
+    public void setReadValidationPolicy(ReadValidationPolicy policy) {
+        rowMapper.setReadValidationPolicy(policy);
+    }
+
+    /**
+     * @return the invalid rows left out of the reads under a lenient read validation policy.
+     */
+    public Quarantine getQuarantine() {
+        return quarantine;
+    }
+
+    @Override
+    public Iterable<Movie> saveAll(Iterable<Movie> movies) {
+        List<Movie> movieList = validateAll(movies);
+        try {
+            JdbcBatchExecutor.executeBatchReturningKeys(dataSource, INSERT_SQL, movieList, batchSize,
+                    this::setStatementFields, "id", Movie::setId);
+            return movieList;
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+    }
+
+    @Override
+    public Iterable<Movie> updateAll(Iterable<Movie> movies) {
+        List<Movie> movieList = validateAll(movies);
+        try {
+            JdbcBatchExecutor.executeBatch(dataSource, UPDATE_SQL, movieList, batchSize, (statement, movie) -> {
+                setStatementFields(statement, movie);
+                statement.setLong(7, movie.getId());
+            });
+            return movieList;
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+    }
+
+    @Override
+    public int deleteAllById(Iterable<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null.");
+        }
+        try {
+            return JdbcBatchExecutor.executeBatch(dataSource, DELETE_SQL, ids, batchSize, (statement, id) -> {
+                if (id == null) {
+                    throw new IllegalArgumentException("Id must not be null.");
+                }
                 statement.setLong(1, id);
-                statement.executeUpdate();
-            } catch (SQLException e) {
-                throw new MovieRentalsException("Database connection exception. ", e);
+            });
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+    }
+
+    private List<Movie> validateAll(Iterable<Movie> movies) {
+        if (movies == null) {
+            throw new IllegalArgumentException("Movies must not be null.");
+        }
+        List<Movie> movieList = new ArrayList<>();
+        for (Movie movie : movies) {
+            if (movie == null) {
+                throw new IllegalArgumentException("Movie must not be null.");
             }
+            validator.validate(movie);
+            movieList.add(movie);
         }
-        return movieToDelete;
+        return movieList;
+    }
+
+    private void setStatementFields(PreparedStatement statement, Movie movie) throws SQLException {
+        statement.setString(1, movie.getTitle());
+        statement.setInt(2, movie.getYear());
+        statement.setString(3, String.valueOf(movie.getGenre()));
+        statement.setString(4, String.valueOf(movie.getAgeRestrictions()));
+        statement.setFloat(5, movie.getRentalPrice());
+        statement.setBoolean(6, movie.isAvailable());
     }
 }
@@ -0,0 +1,51 @@
+package ro.ccms.repository;
+
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.MovieTableMapper;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.exceptions.ValidatorException;
+import ro.ccms.domain.validators.MovieValidator;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a {@code movies} row, or the movies columns of a joined row, to a {@link Movie}, validated as the read validation policy says.
+ * The columns are read by index through the generated {@link MovieTableMapper}.
+ */
+class MovieRowMapper implements RowMapper<Movie> {
+    static final String COLUMNS = MovieTableMapper.COLUMNS;
+
+    private final ReadValidation<Movie> readValidation;
+
+    /**
+     * @param quarantine where the invalid rows go under a lenient read validation policy.
+     */
+    MovieRowMapper(Quarantine quarantine) {
+        readValidation = new ReadValidation<>(new MovieValidator(), failure ->
+                new MovieRentalsException(new ValidatorException("Database corrupted. There are not valid movies. ",
+                        new ValidatorException(failure))), quarantine);
+    }
+
+    void setReadValidationPolicy(ReadValidationPolicy policy) {
+        readValidation.setPolicy(policy);
+    }
+
+    /**
+     * @return the movie, or null if it is not valid and was quarantined.
+     */
+    @Override
+    public Movie mapRow(ResultSet resultSet) throws SQLException {
+        return readValidation.check(MovieTableMapper.of(resultSet).map(resultSet));
+    }
+
+    @Override
+    public RowMapper<Movie> forResultSet(ResultSet resultSet) throws SQLException {
+        MovieTableMapper tableMapper = MovieTableMapper.of(resultSet);
+        return row -> readValidation.check(tableMapper.map(row));
+    }
+
+    static String columns(String alias) {
+        return MovieTableMapper.columns(alias);
+    }
+}
@@ -0,0 +1,115 @@
+package ro.ccms.repository;
+
+/**
+ * Point-in-time snapshot of {@link PooledDataSource} usage.
+ */
+public class PoolStatistics {
+    private final int maxPoolSize;
+    private final int totalConnections;
+    private final int idleConnections;
+    private final int activeConnections;
+    private final int pendingRequests;
+    private final long createdConnections;
+    private final long destroyedConnections;
+    private final long borrowCount;
+    private final long waitTimeouts;
+    private final long averageWaitMicros;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    private final long statementCacheEvictions;
+
+    public PoolStatistics(int maxPoolSize, int totalConnections, int idleConnections, int activeConnections,
+                          int pendingRequests, long createdConnections, long destroyedConnections,
+                          long borrowCount, long waitTimeouts, long averageWaitMicros,
+                          long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+        this.maxPoolSize = maxPoolSize;
+        this.totalConnections = totalConnections;
+        this.idleConnections = idleConnections;
+        this.activeConnections = activeConnections;
+        this.pendingRequests = pendingRequests;
+        this.createdConnections = createdConnections;
+        this.destroyedConnections = destroyedConnections;
+        this.borrowCount = borrowCount;
+        this.waitTimeouts = waitTimeouts;
+        this.averageWaitMicros = averageWaitMicros;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.statementCacheEvictions = statementCacheEvictions;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getPendingRequests() {
+        return pendingRequests;
+    }
+
+    public long getCreatedConnections() {
+        return createdConnections;
+    }
+
+    public long getDestroyedConnections() {
+        return destroyedConnections;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getWaitTimeouts() {
+        return waitTimeouts;
+    }
+
+    public long getAverageWaitMicros() {
+        return averageWaitMicros;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions;
+    }
+
+    public double getStatementCacheHitRatio() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0 : (double) statementCacheHits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStatistics{" +
+                "maxPoolSize=" + maxPoolSize +
+                ", totalConnections=" + totalConnections +
+                ", idleConnections=" + idleConnections +
+                ", activeConnections=" + activeConnections +
+                ", pendingRequests=" + pendingRequests +
+                ", createdConnections=" + createdConnections +
+                ", destroyedConnections=" + destroyedConnections +
+                ", borrowCount=" + borrowCount +
+                ", waitTimeouts=" + waitTimeouts +
+                ", averageWaitMicros=" + averageWaitMicros +
+                ", statementCacheHits=" + statementCacheHits +
+                ", statementCacheMisses=" + statementCacheMisses +
+                ", statementCacheEvictions=" + statementCacheEvictions +
+                '}';
+    }
+}
@@ -0,0 +1,294 @@
+package ro.ccms.repository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * A physical database connection owned by a {@link PooledDataSource}.
+ * Callers never see it directly; every borrow hands out a fresh proxy whose {@code close()}
+ * returns the physical connection to the pool instead of closing it.
+ * <p>
+ * Prepared statements created through {@code prepareStatement(String)} are kept in a per-connection
+ * LRU cache keyed by SQL text, so repeated repository calls reuse the same (server-side prepared)
+ * statement instead of parsing and planning it again.
+ */
+class PooledConnection {
+    private final PooledDataSource pool;
+    private final Connection physicalConnection;
+    private final long createdAt;
+    private volatile long lastUsedAt;
+    private volatile boolean broken;
+    private final int statementCacheSize;
+    private final LinkedHashMap<String, CachedStatement> statementCache =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+    PooledConnection(PooledDataSource pool, Connection physicalConnection, int statementCacheSize) {
+        this.pool = pool;
+        this.physicalConnection = physicalConnection;
+        this.statementCacheSize = statementCacheSize;
+        this.createdAt = System.currentTimeMillis();
+        this.lastUsedAt = createdAt;
+    }
+
+    Connection getPhysicalConnection() {
+        return physicalConnection;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    void touch() {
+        lastUsedAt = System.currentTimeMillis();
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    /**
+     * Creates the logical connection handed to a caller for a single borrow.
+     */
+    Connection borrow() {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConnectionHandle());
+    }
+
+    void closePhysicalConnection() {
+        statementCache.clear();
+        try {
+            physicalConnection.close();
+        } catch (SQLException e) {
+            // The connection is being discarded anyway.
+        }
+    }
+
+    /**
+     * Restores the defaults expected by the next borrower.
+     */
+    void reset() throws SQLException {
+        if (!physicalConnection.getAutoCommit()) {
+            physicalConnection.rollback();
+            physicalConnection.setAutoCommit(true);
+        }
+        physicalConnection.clearWarnings();
+    }
+
+    /**
+     * Returns a cached statement for {@code sql}, preparing and caching it on a miss.
+     * A statement that is still open by the same borrower is not shared; a throw-away one is returned instead.
+     */
+    private PreparedStatement prepareCached(ConnectionHandle connectionHandle, Connection logicalConnection,
+                                            String sql) throws SQLException {
+        CachedStatement cached = statementCache.get(sql);
+        if (cached != null && !cached.inUse) {
+            pool.recordStatementCacheHit();
+            return connectionHandle.checkOut(cached, logicalConnection);
+        }
+        pool.recordStatementCacheMiss();
+        PreparedStatement statement = physicalConnection.prepareStatement(sql);
+        if (cached != null) {
+            return statement;
+        }
+        cached = new CachedStatement(statement);
+        statementCache.put(sql, cached);
+        evictStatements();
+        return connectionHandle.checkOut(cached, logicalConnection);
+    }
+
+    private void evictStatements() {
+        Iterator<CachedStatement> iterator = statementCache.values().iterator();
+        while (statementCache.size() > statementCacheSize && iterator.hasNext()) {
+            CachedStatement eldest = iterator.next();
+            if (!eldest.inUse) {
+                iterator.remove();
+                eldest.closePhysicalStatement();
+                pool.recordStatementCacheEviction();
+            }
+        }
+    }
+
+    /**
+     * A physical prepared statement kept open across borrows.
+     */
+    private static class CachedStatement {
+        private final PreparedStatement physicalStatement;
+        private boolean inUse;
+
+        CachedStatement(PreparedStatement physicalStatement) {
+            this.physicalStatement = physicalStatement;
+        }
+
+        void closePhysicalStatement() {
+            try {
+                physicalStatement.close();
+            } catch (SQLException e) {
+                // The statement is being discarded anyway.
+            }
+        }
+    }
+
+    /**
+     * Logical view of a cached statement; {@code close()} resets it and makes it available again.
+     */
+    private static class StatementHandle implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection logicalConnection;
+        private ResultSet openResultSet;
+        private boolean fetchSizeChanged;
+        private boolean closed;
+
+        StatementHandle(CachedStatement cached, Connection logicalConnection) {
+            this.cached = cached;
+            this.logicalConnection = logicalConnection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return logicalConnection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement{" + cached.physicalStatement + ", closed=" + closed + '}';
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed.");
+            }
+            if (method.getName().equals("setFetchSize")) {
+                fetchSizeChanged = true;
+            }
+            Object result;
+            try {
+                result = method.invoke(cached.physicalStatement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet) {
+                openResultSet = (ResultSet) result;
+            }
+            return result;
+        }
+
+        void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (openResultSet != null) {
+                    openResultSet.close();
+                }
+                PreparedStatement statement = cached.physicalStatement;
+                statement.clearParameters();
+                statement.clearBatch();
+                if (fetchSizeChanged) {
+                    statement.setFetchSize(0);
+                }
+            } finally {
+                cached.inUse = false;
+            }
+        }
+    }
+
+    private class ConnectionHandle implements InvocationHandler {
+        private final List<StatementHandle> cachedStatements = new ArrayList<>();
+        private boolean closed;
+
+        PreparedStatement checkOut(CachedStatement cached, Connection logicalConnection) {
+            cached.inUse = true;
+            cachedStatements.removeIf(statementHandle -> statementHandle.closed);
+            StatementHandle statementHandle = new StatementHandle(cached, logicalConnection);
+            cachedStatements.add(statementHandle);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    statementHandle);
+        }
+
+        private void closeCachedStatements() {
+            for (StatementHandle statementHandle : cachedStatements) {
+                try {
+                    statementHandle.close();
+                } catch (SQLException e) {
+                    broken = true;
+                }
+            }
+            cachedStatements.clear();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        closeCachedStatements();
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physicalConnection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection{" + physicalConnection + ", closed=" + closed + '}';
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection is closed.");
+            }
+            try {
+                if (statementCacheSize > 0 && method.getName().equals("prepareStatement") && args.length == 1) {
+                    return prepareCached(this, (Connection) proxy, (String) args[0]);
+                }
+                return method.invoke(physicalConnection, args);
+            } catch (InvocationTargetException e) {
+                throw checkConnectionError(e.getCause());
+            } catch (SQLException e) {
+                throw checkConnectionError(e);
+            }
+        }
+
+        private Throwable checkConnectionError(Throwable cause) {
+            if (cause instanceof SQLException && isConnectionError((SQLException) cause)) {
+                broken = true;
+            }
+            return cause;
+        }
+
+        private boolean isConnectionError(SQLException e) {
+            String sqlState = e.getSQLState();
+            return sqlState != null && sqlState.startsWith("08");
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package ro.ccms.repository;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Bounded connection pool over a target {@link DataSource}.
+ * Physical connections are reused across repository calls, validated on borrow,
+ * evicted when idle for too long and retired once they reach their maximum lifetime.
+ * Each physical connection keeps an LRU cache of prepared statements keyed by SQL text.
+ */
+public class PooledDataSource implements DataSource, AutoCloseable {
+    public static final int DEFAULT_MAX_POOL_SIZE = 10;
+    public static final long DEFAULT_CONNECTION_TIMEOUT_MILLIS = 30_000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 600_000;
+    public static final long DEFAULT_MAX_LIFETIME_MILLIS = 1_800_000;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final DataSource target;
+    private final int maxPoolSize;
+    private final long connectionTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicLong createdConnections = new AtomicLong();
+    private final AtomicLong destroyedConnections = new AtomicLong();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong waitTimeouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final AtomicLong statementCacheEvictions = new AtomicLong();
+
+    public PooledDataSource(DataSource target) {
+        this(target, DEFAULT_MAX_POOL_SIZE, DEFAULT_CONNECTION_TIMEOUT_MILLIS,
+                DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_MAX_LIFETIME_MILLIS);
+    }
+
+    public PooledDataSource(DataSource target, int maxPoolSize, long connectionTimeoutMillis,
+                            long idleTimeoutMillis, long maxLifetimeMillis) {
+        this(target, maxPoolSize, connectionTimeoutMillis, idleTimeoutMillis, maxLifetimeMillis,
+                DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * @param target                  the data source that opens physical connections.
+     * @param maxPoolSize             upper bound of physical connections, must be positive.
+     * @param connectionTimeoutMillis how long a caller waits for a free connection.
+     * @param idleTimeoutMillis       idle connections older than this are evicted.
+     * @param maxLifetimeMillis       connections older than this are retired.
+     * @param statementCacheSize      prepared statements cached per connection, 0 disables the cache.
+     */
+    public PooledDataSource(DataSource target, int maxPoolSize, long connectionTimeoutMillis,
+                            long idleTimeoutMillis, long maxLifetimeMillis, int statementCacheSize) {
+        if (target == null) {
+            throw new IllegalArgumentException("Target data source must not be null.");
+        }
+        if (maxPoolSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive.");
+        }
+        this.target = target;
+        this.maxPoolSize = maxPoolSize;
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.permits = new Semaphore(maxPoolSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long evictionPeriod = Math.max(1_000, Math.min(idleTimeoutMillis, maxLifetimeMillis) / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, evictionPeriod, evictionPeriod,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                waitTimeouts.incrementAndGet();
+                throw new SQLTimeoutException("Timed out after " + connectionTimeoutMillis +
+                        " ms waiting for a database connection.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+        totalWaitNanos.addAndGet(System.nanoTime() - start);
+
+        try {
+            PooledConnection pooledConnection;
+            while ((pooledConnection = idleConnections.pollFirst()) != null) {
+                if (isUsable(pooledConnection)) {
+                    break;
+                }
+                destroy(pooledConnection);
+            }
+            if (pooledConnection == null) {
+                pooledConnection = createConnection();
+            }
+            borrowCount.incrementAndGet();
+            return pooledConnection.borrow();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    /**
+     * Called by a logical connection on close.
+     */
+    void release(PooledConnection pooledConnection) {
+        try {
+            if (closed || pooledConnection.isBroken() || isExpired(pooledConnection, System.currentTimeMillis())) {
+                destroy(pooledConnection);
+                return;
+            }
+            try {
+                pooledConnection.reset();
+            } catch (SQLException e) {
+                destroy(pooledConnection);
+                return;
+            }
+            pooledConnection.touch();
+            idleConnections.offerFirst(pooledConnection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    void recordStatementCacheHit() {
+        statementCacheHits.incrementAndGet();
+    }
+
+    void recordStatementCacheMiss() {
+        statementCacheMisses.incrementAndGet();
+    }
+
+    void recordStatementCacheEviction() {
+        statementCacheEvictions.incrementAndGet();
+    }
+
+    /**
+     * @return a snapshot of the current pool usage counters.
+     */
+    public PoolStatistics getStatistics() {
+        int total = totalConnections.get();
+        int idle = idleConnections.size();
+        long borrows = borrowCount.get();
+        return new PoolStatistics(maxPoolSize, total, idle, Math.max(0, total - idle),
+                permits.getQueueLength(), createdConnections.get(), destroyedConnections.get(), borrows,
+                waitTimeouts.get(), borrows == 0 ? 0 : totalWaitNanos.get() / borrows / 1_000,
+                statementCacheHits.get(), statementCacheMisses.get(), statementCacheEvictions.get());
+    }
+
+    /**
+     * Closes all idle connections; connections in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            destroy(pooledConnection);
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        Connection connection = target.getConnection();
+        if (connection == null) {
+            throw new SQLException("Could not open a database connection.");
+        }
+        totalConnections.incrementAndGet();
+        createdConnections.incrementAndGet();
+        return new PooledConnection(this, connection, statementCacheSize);
+    }
+
+    private void destroy(PooledConnection pooledConnection) {
+        pooledConnection.closePhysicalConnection();
+        totalConnections.decrementAndGet();
+        destroyedConnections.incrementAndGet();
+    }
+
+    private boolean isUsable(PooledConnection pooledConnection) {
+        long now = System.currentTimeMillis();
+        if (isExpired(pooledConnection, now) || now - pooledConnection.getLastUsedAt() > idleTimeoutMillis) {
+            return false;
+        }
+        if (now - pooledConnection.getLastUsedAt() < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            return pooledConnection.getPhysicalConnection().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(PooledConnection pooledConnection, long now) {
+        return now - pooledConnection.getCreatedAt() > maxLifetimeMillis;
+    }
+
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooledConnection : idleConnections) {
+            boolean stale = isExpired(pooledConnection, now) ||
+                    now - pooledConnection.getLastUsedAt() > idleTimeoutMillis;
+            if (stale && idleConnections.remove(pooledConnection)) {
+                destroy(pooledConnection);
+            }
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return target.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        target.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        target.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return target.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return target.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || target.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,72 @@
+package ro.ccms.repository;
+
+import ro.ccms.domain.validators.ValidationFailure;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The invalid rows a repository left out of its reads under a lenient {@link ReadValidationPolicy}:
+ * how many there were, and the most recent of them.
+ * <p>
+ * Thread-safe.
+ */
+public class Quarantine {
+    static final int DEFAULT_CAPACITY = 100;
+
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<ValidationFailure<Object>> recent = new ArrayDeque<>();
+    private long count;
+
+    Quarantine() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity how many of the most recent rows are kept.
+     */
+    Quarantine(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void add(Object entity, String message) {
+        lock.lock();
+        try {
+            if (recent.size() == capacity) {
+                recent.removeFirst();
+            }
+            recent.addLast(new ValidationFailure<>((int) Math.min(count, Integer.MAX_VALUE), entity, message));
+            count++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of rows quarantined so far.
+     */
+    public long count() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the most recently quarantined rows, oldest first; the index of a row is its quarantine number.
+     */
+    public List<ValidationFailure<Object>> recent() {
+        lock.lock();
+        try {
+            return new ArrayList<>(recent);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
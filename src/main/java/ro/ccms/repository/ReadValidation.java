@@ -0,0 +1,50 @@
+package ro.ccms.repository;
+
+import ro.ccms.domain.validators.Validator;
+
+import java.util.function.Function;
+
+/**
+ * Applies a repository's {@link ReadValidationPolicy} to the entities its row mappers read.
+ */
+class ReadValidation<T> {
+    private final Validator<T> validator;
+    private final Function<String, RuntimeException> invalidRow;
+    private final Quarantine quarantine;
+    private volatile ReadValidationPolicy policy = ReadValidationPolicy.full();
+
+    /**
+     * @param invalidRow creates the exception thrown for an invalid row under a strict policy.
+     */
+    ReadValidation(Validator<T> validator, Function<String, RuntimeException> invalidRow, Quarantine quarantine) {
+        this.validator = validator;
+        this.invalidRow = invalidRow;
+        this.quarantine = quarantine;
+    }
+
+    void setPolicy(ReadValidationPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Read validation policy must not be null.");
+        }
+        this.policy = policy;
+    }
+
+    /**
+     * @return the entity, or null if it is not valid and was quarantined.
+     */
+    T check(T entity) {
+        ReadValidationPolicy current = policy;
+        if (!current.shouldValidate()) {
+            return entity;
+        }
+        String failure = validator.check(entity);
+        if (failure == null) {
+            return entity;
+        }
+        if (!current.isLenient()) {
+            throw invalidRow.apply(failure);
+        }
+        quarantine.add(entity, failure);
+        return null;
+    }
+}
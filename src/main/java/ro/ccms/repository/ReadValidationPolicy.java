@@ -0,0 +1,121 @@
+package ro.ccms.repository;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How much a repository validates the rows it reads, which were already validated when they were written.
+ * <p>
+ * A strict policy throws on the first invalid row, aborting the read; a lenient one leaves the row out of
+ * the result and records it in the repository's {@link Quarantine}.
+ */
+public final class ReadValidationPolicy {
+    public enum Mode {
+        /** Validate every row. */
+        FULL,
+        /** Validate a random sample of the rows, one in {@code sampleInterval} on average. */
+        SAMPLED,
+        /** Validate no row. */
+        TRUSTED
+    }
+
+    private static final ReadValidationPolicy FULL = new ReadValidationPolicy(Mode.FULL, 1, false);
+    private static final ReadValidationPolicy TRUSTED = new ReadValidationPolicy(Mode.TRUSTED, 0, false);
+
+    private final Mode mode;
+    private final int sampleInterval;
+    private final boolean lenient;
+
+    private ReadValidationPolicy(Mode mode, int sampleInterval, boolean lenient) {
+        this.mode = mode;
+        this.sampleInterval = sampleInterval;
+        this.lenient = lenient;
+    }
+
+    public static ReadValidationPolicy full() {
+        return FULL;
+    }
+
+    /**
+     * @param sampleInterval validate one row in this many, must be positive.
+     */
+    public static ReadValidationPolicy sampled(int sampleInterval) {
+        if (sampleInterval <= 0) {
+            throw new IllegalArgumentException("Sample interval must be positive.");
+        }
+        return new ReadValidationPolicy(Mode.SAMPLED, sampleInterval, false);
+    }
+
+    public static ReadValidationPolicy trusted() {
+        return TRUSTED;
+    }
+
+    /**
+     * @return the same policy, quarantining the invalid rows instead of throwing.
+     */
+    public ReadValidationPolicy lenient() {
+        return new ReadValidationPolicy(mode, sampleInterval, true);
+    }
+
+    /**
+     * Parses {@code full}, {@code trusted} or {@code sampled:<interval>}, optionally followed by
+     * {@code ,lenient}; e.g. {@code sampled:100,lenient}.
+     *
+     * @throws IllegalArgumentException if the text is not a policy.
+     */
+    public static ReadValidationPolicy parse(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("Read validation policy must not be null.");
+        }
+        String[] parts = text.trim().toLowerCase().split("\\s*,\\s*");
+        if (parts.length > 2 || (parts.length == 2 && !parts[1].equals("lenient"))) {
+            throw new IllegalArgumentException("Invalid read validation policy: " + text + ".");
+        }
+        ReadValidationPolicy policy;
+        if (parts[0].equals("full")) {
+            policy = full();
+        } else if (parts[0].equals("trusted")) {
+            policy = trusted();
+        } else if (parts[0].startsWith("sampled:")) {
+            try {
+                policy = sampled(Integer.parseInt(parts[0].substring("sampled:".length())));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid read validation policy: " + text + ".");
+            }
+        } else {
+            throw new IllegalArgumentException("Invalid read validation policy: " + text + ".");
+        }
+        return parts.length == 2 ? policy.lenient() : policy;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    public boolean isLenient() {
+        return lenient;
+    }
+
+    /**
+     * @return whether the next row read is validated.
+     */
+    boolean shouldValidate() {
+        switch (mode) {
+            case FULL:
+                return true;
+            case SAMPLED:
+                return sampleInterval == 1 || ThreadLocalRandom.current().nextInt(sampleInterval) == 0;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        String policy = mode == Mode.SAMPLED ? "sampled:" + sampleInterval : mode.name().toLowerCase();
+        return lenient ? policy + ",lenient" : policy;
+    }
+}
@@ -0,0 +1,242 @@
+package ro.ccms.repository;
+
+import ro.ccms.domain.Rental;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads and writes the rows of the bulk rental copy in the formats PostgreSQL's {@code COPY} uses, for the
+ * repositories that keep their rentals outside a database. A file exported by one backend can be imported by
+ * any other.
+ * <p>
+ * The rows hold the movie id, client id, rental charge, rental date and due date, the columns of
+ * {@link RentalRepository#copyIn}. A CSV file starts with a header line, and its dates are written like
+ * PostgreSQL writes timestamps, e.g. {@code 2023-01-02 10:00:00.5}. The binary format is the one of
+ * {@code COPY ... (FORMAT binary)}: the ids are {@code bigint}, the charge a {@code real} and the dates
+ * {@code timestamp}s, in microseconds since 2000-01-01.
+ */
+public final class RentalCopyCodec {
+    private static final String CSV_HEADER = "movie_id,client_id,rental_charge,rental_date,due_date";
+    private static final int COLUMNS = 5;
+    private static final DateTimeFormatter CSV_DATE_TIME = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .optionalStart()
+            .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+            .toFormatter();
+
+    private static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final int BINARY_HAS_OIDS = 1 << 16;
+    private static final short BINARY_TRAILER = -1;
+    private static final LocalDateTime BINARY_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private RentalCopyCodec() {
+    }
+
+    /**
+     * Reads all the rows of the stream as new rentals, without ids.
+     *
+     * @param in     the rows to read; not closed.
+     * @param format must not be null.
+     * @return the rentals in the order of their rows.
+     * @throws IOException if the stream can not be read or is not in the given format.
+     */
+    public static List<Rental> read(InputStream in, CopyFormat format) throws IOException {
+        return format == CopyFormat.CSV ? readCsv(in) : readBinary(in);
+    }
+
+    /**
+     * Writes the rentals as rows of the given format.
+     *
+     * @param out     receives the rows; flushed, not closed.
+     * @param format  must not be null.
+     * @param rentals must not be null.
+     * @return the number of written rows.
+     */
+    public static long write(OutputStream out, CopyFormat format, Iterable<Rental> rentals) throws IOException {
+        return format == CopyFormat.CSV ? writeCsv(out, rentals) : writeBinary(out, rentals);
+    }
+
+    private static List<Rental> readCsv(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<Rental> rentals = new ArrayList<>();
+        // The header line names the columns, which always come in the same order.
+        if (reader.readLine() == null) {
+            return rentals;
+        }
+        int lineNumber = 1;
+        for (String line; (line = reader.readLine()) != null; ) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            if (fields.length != COLUMNS) {
+                throw new IOException("Line " + lineNumber + " has " + fields.length + " fields instead of "
+                        + COLUMNS + ".");
+            }
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = unquote(fields[i].trim());
+            }
+            try {
+                rentals.add(new Rental(parseId(fields[0]), parseId(fields[1]), Float.parseFloat(fields[2]),
+                        parseDateTime(fields[3]), parseDateTime(fields[4])));
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IOException("Line " + lineNumber + " is not a valid rental: " + e.getMessage(), e);
+            }
+        }
+        return rentals;
+    }
+
+    private static long writeCsv(OutputStream out, Iterable<Rental> rentals) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long rows = 0;
+        for (Rental rental : rentals) {
+            writer.write(String.join(",", format(rental.getMovieId()), format(rental.getClientId()),
+                    Float.toString(rental.getRentalCharge()), format(rental.getRentalDate()),
+                    format(rental.getDueDate())));
+            writer.write('\n');
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static List<Rental> readBinary(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] signature = new byte[BINARY_SIGNATURE.length];
+        data.readFully(signature);
+        if (!Arrays.equals(signature, BINARY_SIGNATURE)) {
+            throw new IOException("Not a binary copy file.");
+        }
+        if ((data.readInt() & BINARY_HAS_OIDS) != 0) {
+            throw new IOException("Binary copy files with OIDs are not supported.");
+        }
+        data.skipNBytes(data.readInt());
+
+        List<Rental> rentals = new ArrayList<>();
+        while (true) {
+            short fieldCount;
+            try {
+                fieldCount = data.readShort();
+            } catch (EOFException e) {
+                throw new IOException("Binary copy file ends without its trailer.", e);
+            }
+            if (fieldCount == BINARY_TRAILER) {
+                return rentals;
+            }
+            if (fieldCount != COLUMNS) {
+                throw new IOException("Row " + (rentals.size() + 1) + " has " + fieldCount + " fields instead of "
+                        + COLUMNS + ".");
+            }
+            Long movieId = readField(data, Long.BYTES) ? data.readLong() : null;
+            Long clientId = readField(data, Long.BYTES) ? data.readLong() : null;
+            if (!readField(data, Float.BYTES)) {
+                throw new IOException("Row " + (rentals.size() + 1) + " has no rental charge.");
+            }
+            float rentalCharge = data.readFloat();
+            LocalDateTime rentalDate = readField(data, Long.BYTES) ? toDateTime(data.readLong()) : null;
+            LocalDateTime dueDate = readField(data, Long.BYTES) ? toDateTime(data.readLong()) : null;
+            rentals.add(new Rental(movieId, clientId, rentalCharge, rentalDate, dueDate));
+        }
+    }
+
+    private static long writeBinary(OutputStream out, Iterable<Rental> rentals) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(BINARY_SIGNATURE);
+        data.writeInt(0);
+        data.writeInt(0);
+        long rows = 0;
+        for (Rental rental : rentals) {
+            data.writeShort(COLUMNS);
+            writeLongField(data, rental.getMovieId());
+            writeLongField(data, rental.getClientId());
+            data.writeInt(Float.BYTES);
+            data.writeFloat(rental.getRentalCharge());
+            writeLongField(data, rental.getRentalDate() == null ? null : toMicros(rental.getRentalDate()));
+            writeLongField(data, rental.getDueDate() == null ? null : toMicros(rental.getDueDate()));
+            rows++;
+        }
+        data.writeShort(BINARY_TRAILER);
+        data.flush();
+        return rows;
+    }
+
+    /**
+     * Reads the length of the next field.
+     *
+     * @return false if the field is null.
+     * @throws IOException if the field is not null and not of the expected length.
+     */
+    private static boolean readField(DataInputStream data, int expectedLength) throws IOException {
+        int length = data.readInt();
+        if (length == -1) {
+            return false;
+        }
+        if (length != expectedLength) {
+            throw new IOException("Field of " + length + " bytes instead of " + expectedLength + ".");
+        }
+        return true;
+    }
+
+    private static void writeLongField(DataOutputStream data, Long value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+            return;
+        }
+        data.writeInt(Long.BYTES);
+        data.writeLong(value);
+    }
+
+    private static long toMicros(LocalDateTime dateTime) {
+        return ChronoUnit.MICROS.between(BINARY_EPOCH, dateTime);
+    }
+
+    private static LocalDateTime toDateTime(long micros) {
+        return BINARY_EPOCH.plus(micros, ChronoUnit.MICROS);
+    }
+
+    private static String unquote(String field) {
+        if (field.length() >= 2 && field.startsWith("\"") && field.endsWith("\"")) {
+            return field.substring(1, field.length() - 1).replace("\"\"", "\"");
+        }
+        return field;
+    }
+
+    private static Long parseId(String field) {
+        return field.isEmpty() ? null : Long.valueOf(field);
+    }
+
+    private static LocalDateTime parseDateTime(String field) {
+        return field.isEmpty() ? null : LocalDateTime.parse(field, CSV_DATE_TIME);
+    }
+
+    private static String format(Long id) {
+        return id == null ? "" : id.toString();
+    }
+
+    private static String format(LocalDateTime dateTime) {
+        return dateTime == null ? "" : CSV_DATE_TIME.format(dateTime);
+    }
+}
@@ -1,106 +1,301 @@
 package ro.ccms.repository;
 
+import ro.ccms.domain.Client;
+import ro.ccms.domain.ClientRentReportDTO;
+import ro.ccms.domain.ClientRentalsDTO;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.MovieRentReportDTO;
+import ro.ccms.domain.MovieRentalsDTO;
 import ro.ccms.domain.Rental;
+import ro.ccms.domain.RentalTableMapper;
 import ro.ccms.domain.exceptions.MovieRentalsException;
 import ro.ccms.domain.validators.RentalValidator;
 import ro.ccms.domain.validators.Validator;
 import ro.ccms.domain.exceptions.ValidatorException;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
 
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.sql.Date;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
-public class RentalDBRepository implements Repository<Long, Rental> {
-    private ElephantSQLDataSource dataSource = new ElephantSQLDataSource();
+public class RentalDBRepository implements RentalRepository {
+    private static final String INSERT_SQL = "INSERT INTO rentals (" +
+            "movie_id, client_id, rental_charge, rental_date, due_date) " +
+            "values (?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE rentals " +
+            "SET movie_id=?, client_id=?, rental_charge=?, rental_date=?, due_date=? " +
+            "WHERE id= ?";
+    private static final String INSERT_RETURNING_ID_SQL = INSERT_SQL + " RETURNING id";
+    private static final String INSERT_WITH_ID_SQL = "INSERT INTO rentals (" +
+            "movie_id, client_id, rental_charge, rental_date, due_date, id) " +
+            "values (?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM rentals WHERE id = ?";
+    private static final String DELETE_RETURNING_SQL = DELETE_SQL + " RETURNING " + RentalRowMapper.COLUMNS;
+    private static final String FIND_ALL_SQL = "SELECT " + RentalRowMapper.COLUMNS + " FROM rentals";
+    private static final String FIND_ONE_SQL = FIND_ALL_SQL + " WHERE id = ?";
+    private static final String FIND_ALL_BY_ID_SQL = FIND_ALL_SQL + " WHERE id = ANY(?)";
+    private static final String FIND_PAGE_SQL = FIND_ALL_SQL + " WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String MOVIES_BY_RENT_NUMBER_SQL = "SELECT " + MovieRowMapper.columns("m") + ", r.rent_counter " +
+            "FROM movies m " +
+            "JOIN (SELECT movie_id, COUNT(*) AS rent_counter FROM rentals GROUP BY movie_id) r " +
+            "ON r.movie_id = m.id " +
+            "ORDER BY r.rent_counter DESC, m.id LIMIT ?";
+    private static final String CLIENTS_BY_RENTED_MOVIES_SQL = "SELECT " + ClientRowMapper.columns("c") + ", r.rent_counter " +
+            "FROM clients c " +
+            "JOIN (SELECT client_id, COUNT(*) AS rent_counter FROM rentals GROUP BY client_id) r " +
+            "ON r.client_id = c.id " +
+            "ORDER BY r.rent_counter DESC, c.id LIMIT ?";
+    private static final String RENT_REPORT_BY_CLIENT_SQL = "SELECT r.rental_charge, r.rental_date, " +
+            MovieRowMapper.columns("m") + " " +
+            "FROM rentals r JOIN movies m ON m.id = r.movie_id " +
+            "WHERE r.client_id = ? ORDER BY r.rental_date";
+    private static final String RENT_REPORT_BY_MOVIE_SQL = "SELECT r.rental_charge, r.rental_date, " +
+            ClientRowMapper.columns("c") + " " +
+            "FROM rentals r JOIN clients c ON c.id = r.client_id " +
+            "WHERE r.movie_id = ? ORDER BY r.rental_date";
+    private static final String COPY_COLUMNS = "rentals (movie_id, client_id, rental_charge, rental_date, due_date)";
+
+    private final DataSource dataSource;
     private Validator<Rental> validator = new RentalValidator();
+    private final Quarantine quarantine = new Quarantine();
+    private final MovieRowMapper movieRowMapper = new MovieRowMapper(quarantine);
+    private final ClientRowMapper clientRowMapper = new ClientRowMapper(quarantine);
+    private final RentalRowMapper rowMapper = new RentalRowMapper(quarantine);
+    private int batchSize = JdbcBatchExecutor.DEFAULT_BATCH_SIZE;
+    private final HiLoIdAllocator idAllocator;
+
+    public RentalDBRepository(DataSource dataSource) {
+        this(dataSource, null);
+    }
+
+    /**
+     * @param idAllocator assigns the ids of the saved rentals without a round trip per id;
+     *                    null to let the database assign them on insert.
+     */
+    public RentalDBRepository(DataSource dataSource, HiLoIdAllocator idAllocator) {
+        this.dataSource = dataSource;
+        this.idAllocator = idAllocator;
+    }
 
     @Override
     public Optional<Rental> findOne(Long id) {
-        Rental rental = new Rental();
         if (id == null) {
             throw new IllegalArgumentException("Rental ID can not be null");
         }
 
-        String query = "SELECT * FROM rentals WHERE id=?";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)
+             PreparedStatement stmt = conn.prepareStatement(FIND_ONE_SQL)
         ) {
             stmt.setLong(1, id);
-            ResultSet resultSet = stmt.executeQuery();
-
-            if (resultSet.next()) {
-                Long resultId = resultSet.getLong("id");
-                rental.setId(resultId);
-
-                Long movieId = resultSet.getLong("movie_id");
-                rental.setMovieId(movieId);
-
-                Long clientId = resultSet.getLong("client_id");
-                rental.setClientId(clientId);
-
-                float rentalCharge = resultSet.getFloat("rental_charge");
-                rental.setRentalCharge(rentalCharge);
-
-                Timestamp rentalDate = resultSet.getTimestamp("rental_date");
-                rental.setRentalDate(rentalDate.toLocalDateTime());
-
-                Timestamp dueDate = resultSet.getTimestamp("due_date");
-                rental.setDueDate(dueDate.toLocalDateTime());
-
-                try {
-                    validator.validate(rental);
-                    return Optional.of(rental);
-                } catch (ValidatorException ve) {
-                    throw new MovieRentalsException("Rental transaction is not valid. " + ve.getMessage());
-                }
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                return resultSet.next() ? Optional.ofNullable(rowMapper.mapRow(resultSet)) : Optional.empty();
             }
         } catch (SQLException e) {
             throw new MovieRentalsException("Database connexion exception. " + e.getMessage());
         }
-        return Optional.empty();
     }
 
     @Override
     public Iterable<Rental> findAll() {
         Set<Rental> rentals = new HashSet<>();
-        String query = "SELECT * FROM rentals";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query);
+             PreparedStatement stmt = conn.prepareStatement(FIND_ALL_SQL);
+             ResultSet resultSet = stmt.executeQuery()
         ) {
-            ResultSet resultSet = stmt.executeQuery();
-
+            RowMapper<Rental> mapper = rowMapper.forResultSet(resultSet);
             while (resultSet.next()) {
-                Rental rental = new Rental();
+                Rental rental = mapper.mapRow(resultSet);
+                if (rental != null) {
+                    rentals.add(rental);
+                }
+            }
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connexion exception. " + e.getMessage());
+        }
+        return rentals;
+    }
 
-                Long resultId = resultSet.getLong("id");
-                rental.setId(resultId);
+    @Override
+    public List<Rental> findAllById(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null.");
+        }
+        for (Long id : ids) {
+            if (id == null) {
+                throw new IllegalArgumentException("Id must not be null.");
+            }
+        }
+        List<Rental> rentals = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return rentals;
+        }
 
-                Long movieId = resultSet.getLong("movie_id");
-                rental.setMovieId(movieId);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement statement = conn.prepareStatement(FIND_ALL_BY_ID_SQL)
+        ) {
+            statement.setArray(1, conn.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                RowMapper<Rental> mapper = rowMapper.forResultSet(resultSet);
+                while (resultSet.next()) {
+                    Rental rental = mapper.mapRow(resultSet);
+                    if (rental != null) {
+                        rentals.add(rental);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+        return rentals;
+    }
 
-                Long clientId = resultSet.getLong("client_id");
-                rental.setClientId(clientId);
+    @Override
+    public List<Rental> findPage(Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement statement = conn.prepareStatement(FIND_PAGE_SQL)
+        ) {
+            return KeysetPages.read(statement, afterId, limit, rowMapper);
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+    }
 
-                float rentalCharge = resultSet.getFloat("rental_charge");
-                rental.setRentalCharge(rentalCharge);
+    @Override
+    public Stream<Rental> streamAll() {
+        return JdbcStreams.stream(dataSource, FIND_ALL_SQL, JdbcStreams.DEFAULT_FETCH_SIZE, rowMapper);
+    }
 
-                Timestamp rentalDate = resultSet.getTimestamp("rental_date");
-                rental.setRentalDate(rentalDate.toLocalDateTime());
+    @Override
+    public List<MovieRentalsDTO> findMoviesByRentNumber(Integer limit) {
+        List<MovieRentalsDTO> movies = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(MOVIES_BY_RENT_NUMBER_SQL)
+        ) {
+            setLimit(stmt, 1, limit);
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                RowMapper<Movie> mapper = movieRowMapper.forResultSet(resultSet);
+                int rentCounterIndex = resultSet.findColumn("rent_counter");
+                while (resultSet.next()) {
+                    Movie movie = mapper.mapRow(resultSet);
+                    if (movie != null) {
+                        movies.add(new MovieRentalsDTO(movie, resultSet.getInt(rentCounterIndex)));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+        return movies;
+    }
 
-                Timestamp dueDate = resultSet.getTimestamp("due_date");
-                rental.setDueDate(dueDate.toLocalDateTime());
+    @Override
+    public List<ClientRentalsDTO> findClientsByRentedMovies(Integer limit) {
+        List<ClientRentalsDTO> clients = new ArrayList<>();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(CLIENTS_BY_RENTED_MOVIES_SQL)
+        ) {
+            setLimit(stmt, 1, limit);
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                RowMapper<Client> mapper = clientRowMapper.forResultSet(resultSet);
+                int rentCounterIndex = resultSet.findColumn("rent_counter");
+                while (resultSet.next()) {
+                    Client client = mapper.mapRow(resultSet);
+                    if (client != null) {
+                        clients.add(new ClientRentalsDTO(client, resultSet.getInt(rentCounterIndex)));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+        return clients;
+    }
 
-                try {
-                    validator.validate(rental);
-                    rentals.add(rental);
-                } catch (ValidatorException ve) {
-                    throw new MovieRentalsException("Rental transaction is not valid. " + ve.getMessage());
+    @Override
+    public ClientRentReportDTO findRentReportByClient(Client client) {
+        if (client == null || client.getId() == null) {
+            throw new IllegalArgumentException("Client must not be null.");
+        }
+        List<Movie> moviesList = new ArrayList<>();
+        List<LocalDateTime> rentDates = new ArrayList<>();
+        float totalCharges = 0.00f;
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(RENT_REPORT_BY_CLIENT_SQL)
+        ) {
+            stmt.setLong(1, client.getId());
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                RowMapper<Movie> mapper = movieRowMapper.forResultSet(resultSet);
+                int rentalDateIndex = resultSet.findColumn("rental_date");
+                int rentalChargeIndex = resultSet.findColumn("rental_charge");
+                while (resultSet.next()) {
+                    Movie movie = mapper.mapRow(resultSet);
+                    if (movie != null) {
+                        moviesList.add(movie);
+                        rentDates.add(resultSet.getTimestamp(rentalDateIndex).toLocalDateTime());
+                        totalCharges += resultSet.getFloat(rentalChargeIndex);
+                    }
                 }
             }
         } catch (SQLException e) {
-            throw new MovieRentalsException("Database connexion exception. " + e.getMessage());
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+        return new ClientRentReportDTO(client, moviesList, totalCharges, rentDates, rentDates.size());
+    }
+
+    @Override
+    public MovieRentReportDTO findRentReportByMovie(Movie movie) {
+        if (movie == null || movie.getId() == null) {
+            throw new IllegalArgumentException("Movie must not be null.");
+        }
+        List<Client> clientsList = new ArrayList<>();
+        List<LocalDateTime> rentDates = new ArrayList<>();
+        float totalCharges = 0.00f;
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(RENT_REPORT_BY_MOVIE_SQL)
+        ) {
+            stmt.setLong(1, movie.getId());
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                RowMapper<Client> mapper = clientRowMapper.forResultSet(resultSet);
+                int rentalDateIndex = resultSet.findColumn("rental_date");
+                int rentalChargeIndex = resultSet.findColumn("rental_charge");
+                while (resultSet.next()) {
+                    Client client = mapper.mapRow(resultSet);
+                    if (client != null) {
+                        clientsList.add(client);
+                        rentDates.add(resultSet.getTimestamp(rentalDateIndex).toLocalDateTime());
+                        totalCharges += resultSet.getFloat(rentalChargeIndex);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+        return new MovieRentReportDTO(movie, clientsList, totalCharges, rentDates, rentDates.size());
+    }
+
+    /**
+     * Binds a LIMIT parameter; a null limit is bound as SQL NULL, which PostgreSQL treats as LIMIT ALL.
+     */
+    private void setLimit(PreparedStatement stmt, int index, Integer limit) throws SQLException {
+        if (limit == null) {
+            stmt.setNull(index, Types.INTEGER);
+        } else if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        } else {
+            stmt.setInt(index, limit);
         }
-        return rentals;
     }
 
     @Override
@@ -113,18 +308,31 @@ public class RentalDBRepository implements Repository<Long, Rental> {
         } catch (ValidatorException e) {
             throw new ValidatorException(e);
         }
-        String sqlString = "INSERT INTO rentals (" +
-                "movie_id, client_id, rental_charge, rental_date, due_date) " +
-                "values (?, ?, ?, ?, ?)";
+        if (idAllocator != null) {
+            return saveWithAllocatedId(rental);
+        }
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement statement = conn.prepareStatement(sqlString)) {
-            statement.setLong(1, rental.getMovieId());
-            statement.setLong(2, rental.getClientId());
-            statement.setFloat(3, rental.getRentalCharge());
-            statement.setDate(4, Date.valueOf(rental.getRentalDate().toLocalDate()));
-            statement.setDate(5, Date.valueOf(rental.getDueDate().toLocalDate()));
+             PreparedStatement statement = conn.prepareStatement(INSERT_RETURNING_ID_SQL)) {
+            setStatementFields(statement, rental);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                rental.setId(resultSet.getLong("id"));
+            }
+            return Optional.of(rental);
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+    }
+
+    private Optional<Rental> saveWithAllocatedId(Rental rental) {
+        long id = idAllocator.nextId();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement statement = conn.prepareStatement(INSERT_WITH_ID_SQL)) {
+            setStatementFields(statement, rental);
+            statement.setLong(6, id);
             statement.executeUpdate();
-            return Optional.ofNullable(rental);
+            rental.setId(id);
+            return Optional.of(rental);
         } catch (SQLException e) {
             throw new MovieRentalsException("Database connection exception. ", e);
         }
@@ -136,21 +344,16 @@ public class RentalDBRepository implements Repository<Long, Rental> {
             throw new IllegalArgumentException("Id must not be null.");
         }
 
-        try {
-            Optional<Rental> rentalOptional = findOne(id);
-
-            String sqlString = "DELETE FROM rentals WHERE id = ?";
-            try (Connection conn = dataSource.getConnection();
-                 PreparedStatement stmt = conn.prepareStatement(sqlString);
-            ) {
-                stmt.setLong(1, id);
-                stmt.executeUpdate();
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(DELETE_RETURNING_SQL)
+        ) {
+            stmt.setLong(1, id);
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                // The row is already deleted: return it as it was, without read validation.
+                return resultSet.next() ? Optional.of(RentalTableMapper.of(resultSet).map(resultSet)) : Optional.empty();
             }
-            return rentalOptional;
-        } catch (IllegalArgumentException | MovieRentalsException e) {
-            throw new MovieRentalsException("Repository exception: " + e.getMessage());
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
         }
     }
 
@@ -160,18 +363,10 @@ public class RentalDBRepository implements Repository<Long, Rental> {
             throw new IllegalArgumentException("Rental transaction must not be null.");
         }
 
-        String sqlString = "UPDATE rentals " +
-                "SET movie_id=?, client_id=?, rental_charge=?, rental_date=?, due_date=? " +
-                "WHERE id= ?";
-
         try(Connection conn = dataSource.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sqlString);
+            PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL);
         ) {
-            stmt.setLong(1, rental.getMovieId());
-            stmt.setLong(2, rental.getClientId());
-            stmt.setFloat(3, rental.getRentalCharge());
-            stmt.setDate(4, Date.valueOf(rental.getRentalDate().toLocalDate()));
-            stmt.setDate(5, Date.valueOf(rental.getDueDate().toLocalDate()));
+            setStatementFields(stmt, rental);
             stmt.setLong(6, rental.getId());
             stmt.executeUpdate();
             return Optional.ofNullable(rental);
@@ -179,4 +374,155 @@ public class RentalDBRepository implements Repository<Long, Rental> {
             throw new MovieRentalsException("Repository exception: " + e.getMessage());
         }
     }
+
+    @Override
+    public long copyIn(InputStream in, CopyFormat format) {
+        if (in == null || format == null) {
+            throw new IllegalArgumentException("Input and format must not be null.");
+        }
+        try (Connection conn = dataSource.getConnection()) {
+            CopyManager copyManager = new CopyManager(conn.unwrap(BaseConnection.class));
+            return copyManager.copyIn("COPY " + COPY_COLUMNS + " FROM STDIN WITH " + format.getOptions(), in);
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        } catch (IOException e) {
+            throw new MovieRentalsException("Bulk copy input exception. ", e);
+        }
+    }
+
+    @Override
+    public long copyOut(OutputStream out, CopyFormat format) {
+        if (out == null || format == null) {
+            throw new IllegalArgumentException("Output and format must not be null.");
+        }
+        try (Connection conn = dataSource.getConnection()) {
+            CopyManager copyManager = new CopyManager(conn.unwrap(BaseConnection.class));
+            return copyManager.copyOut("COPY " + COPY_COLUMNS + " TO STDOUT WITH " + format.getOptions(), out);
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        } catch (IOException e) {
+            throw new MovieRentalsException("Bulk copy output exception. ", e);
+        }
+    }
+
+    /**
+     * Sets how much the rows read from the database, rentals and joined movies and clients,
+     * are validated; {@link ReadValidationPolicy#full()} by default.
+     *
+     * @param policy must not be null.
+     */
+    public void setReadValidationPolicy(ReadValidationPolicy policy) {
+        movieRowMapper.setReadValidationPolicy(policy);
+        clientRowMapper.setReadValidationPolicy(policy);
+        rowMapper.setReadValidationPolicy(policy);
+    }
+
+    /**
+     * @return the invalid rows left out of the reads under a lenient read validation policy.
+     */
+    public Quarantine getQuarantine() {
+        return quarantine;
+    }
+
+    /**
+     * Sets how many statements the bulk operations send to the database in one round trip.
+     *
+     * @param batchSize must be positive.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Iterable<Rental> saveAll(Iterable<Rental> rentals) throws ValidatorException {
+        List<Rental> rentalList = validateAll(rentals);
+        try {
+            if (idAllocator == null) {
+                JdbcBatchExecutor.executeBatchReturningKeys(dataSource, INSERT_SQL, rentalList, batchSize,
+                        this::setStatementFields, "id", Rental::setId);
+                return rentalList;
+            }
+            long[] ids = idAllocator.nextIds(rentalList.size());
+            List<Integer> rows = new ArrayList<>(rentalList.size());
+            for (int row = 0; row < rentalList.size(); row++) {
+                rows.add(row);
+            }
+            JdbcBatchExecutor.executeBatch(dataSource, INSERT_WITH_ID_SQL, rows, batchSize, (stmt, row) -> {
+                setStatementFields(stmt, rentalList.get(row));
+                stmt.setLong(6, ids[row]);
+            });
+            for (int row = 0; row < rentalList.size(); row++) {
+                rentalList.get(row).setId(ids[row]);
+            }
+            return rentalList;
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        }
+    }
+
+    @Override
+    public Iterable<Rental> updateAll(Iterable<Rental> rentals) throws ValidatorException {
+        if (rentals == null) {
+            throw new IllegalArgumentException("Rental transactions must not be null.");
+        }
+        List<Rental> rentalList = new ArrayList<>();
+        for (Rental rental : rentals) {
+            if (rental == null) {
+                throw new IllegalArgumentException("Rental transaction must not be null.");
+            }
+            rentalList.add(rental);
+        }
+        try {
+            JdbcBatchExecutor.executeBatch(dataSource, UPDATE_SQL, rentalList, batchSize, (stmt, rental) -> {
+                setStatementFields(stmt, rental);
+                stmt.setLong(6, rental.getId());
+            });
+            return rentalList;
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Repository exception: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int deleteAllById(Iterable<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null.");
+        }
+        try {
+            return JdbcBatchExecutor.executeBatch(dataSource, DELETE_SQL, ids, batchSize, (stmt, id) -> {
+                if (id == null) {
+                    throw new IllegalArgumentException("Id must not be null.");
+                }
+                stmt.setLong(1, id);
+            });
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Repository exception: " + e.getMessage());
+        }
+    }
+
+    private List<Rental> validateAll(Iterable<Rental> rentals) {
+        if (rentals == null) {
+            throw new IllegalArgumentException("Rental transactions must not be null.");
+        }
+        List<Rental> rentalList = new ArrayList<>();
+        for (Rental rental : rentals) {
+            if (rental == null) {
+                throw new IllegalArgumentException("Rental transaction must not be null.");
+            }
+            validator.validate(rental);
+            rentalList.add(rental);
+        }
+        return rentalList;
+    }
+
+    private void setStatementFields(PreparedStatement statement, Rental rental) throws SQLException {
+        statement.setLong(1, rental.getMovieId());
+        statement.setLong(2, rental.getClientId());
+        statement.setFloat(3, rental.getRentalCharge());
+        statement.setDate(4, Date.valueOf(rental.getRentalDate().toLocalDate()));
+        statement.setDate(5, Date.valueOf(rental.getDueDate().toLocalDate()));
+    }
 }
@@ -0,0 +1,86 @@
+package ro.ccms.repository;
+
+import ro.ccms.domain.Client;
+import ro.ccms.domain.ClientRentReportDTO;
+import ro.ccms.domain.ClientRentalsDTO;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.MovieRentReportDTO;
+import ro.ccms.domain.MovieRentalsDTO;
+import ro.ccms.domain.Rental;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Rental repository with the aggregate queries used by the rental reports.
+ */
+public interface RentalRepository extends Repository<Long, Rental> {
+    /**
+     * Ranks the rented movies by their number of rentals.
+     *
+     * @param limit
+     *            the maximum number of movies to return, or null for all of them.
+     * @return the movies with their rent counter, in descending order of the counter.
+     */
+    List<MovieRentalsDTO> findMoviesByRentNumber(Integer limit);
+
+    /**
+     * Ranks the clients by their number of rented movies.
+     *
+     * @param limit
+     *            the maximum number of clients to return, or null for all of them.
+     * @return the clients with their rent counter, in descending order of the counter.
+     */
+    List<ClientRentalsDTO> findClientsByRentedMovies(Integer limit);
+
+    /**
+     * Collects the rented movies, rent dates, total charges and number of rents of a client.
+     *
+     * @param client
+     *            must not be null.
+     * @return the rent report of the client.
+     * @throws IllegalArgumentException
+     *             if the given client is null.
+     */
+    ClientRentReportDTO findRentReportByClient(Client client);
+
+    /**
+     * Collects the clients, rent dates, total charges and number of rents of a movie.
+     *
+     * @param movie
+     *            must not be null.
+     * @return the rent report of the movie.
+     * @throws IllegalArgumentException
+     *             if the given movie is null.
+     */
+    MovieRentReportDTO findRentReportByMovie(Movie movie);
+
+    /**
+     * Bulk-loads rentals from a stream in the given format, without building rental entities.
+     * The rows hold the movie id, client id, rental charge, rental date and due date; new ids are assigned.
+     *
+     * @param in
+     *            the rows to load; not closed.
+     * @param format
+     *            must not be null.
+     * @return the number of loaded rentals.
+     * @throws ro.ccms.domain.exceptions.MovieRentalsException
+     *             if the rows can not be read or loaded; then none is loaded.
+     */
+    long copyIn(InputStream in, CopyFormat format);
+
+    /**
+     * Bulk-exports all rentals to a stream in the given format, without building rental entities.
+     * The rows hold the same columns {@link #copyIn(InputStream, CopyFormat)} loads.
+     *
+     * @param out
+     *            receives the rows; not closed.
+     * @param format
+     *            must not be null.
+     * @return the number of exported rentals.
+     * @throws ro.ccms.domain.exceptions.MovieRentalsException
+     *             if the rows can not be written.
+     */
+    long copyOut(OutputStream out, CopyFormat format);
+}
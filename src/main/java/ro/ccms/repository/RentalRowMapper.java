@@ -0,0 +1,45 @@
+package ro.ccms.repository;
+
+import ro.ccms.domain.Rental;
+import ro.ccms.domain.RentalTableMapper;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.validators.RentalValidator;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a {@code rentals} row to a {@link Rental}, validated as the read validation policy says.
+ * The columns are read by index through the generated {@link RentalTableMapper}.
+ */
+class RentalRowMapper implements RowMapper<Rental> {
+    static final String COLUMNS = RentalTableMapper.COLUMNS;
+
+    private final ReadValidation<Rental> readValidation;
+
+    /**
+     * @param quarantine where the invalid rows go under a lenient read validation policy.
+     */
+    RentalRowMapper(Quarantine quarantine) {
+        readValidation = new ReadValidation<>(new RentalValidator(),
+                failure -> new MovieRentalsException("Rental transaction is not valid. " + failure), quarantine);
+    }
+
+    void setReadValidationPolicy(ReadValidationPolicy policy) {
+        readValidation.setPolicy(policy);
+    }
+
+    /**
+     * @return the rental, or null if it is not valid and was quarantined.
+     */
+    @Override
+    public Rental mapRow(ResultSet resultSet) throws SQLException {
+        return readValidation.check(RentalTableMapper.of(resultSet).map(resultSet));
+    }
+
+    @Override
+    public RowMapper<Rental> forResultSet(ResultSet resultSet) throws SQLException {
+        RentalTableMapper tableMapper = RentalTableMapper.of(resultSet);
+        return row -> readValidation.check(tableMapper.map(row));
+    }
+}
@@ -3,7 +3,14 @@ package ro.ccms.repository;
 import ro.ccms.domain.BaseEntity;
 import ro.ccms.domain.exceptions.ValidatorException;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Interface for generic CRUD operations on a repository for a specific type.
@@ -20,12 +27,84 @@ public interface Repository<ID, T extends BaseEntity<ID>> {
      */
     Optional<T> findOne(ID id);
 
+    /**
+     * Find the entity with the given {@code id} and, within a transaction, lock it until the transaction ends,
+     * so that concurrent transactions changing the same entity run one after the other.
+     * Repositories without row locks only find the entity.
+     *
+     * @param id
+     *            must be not null.
+     * @return an {@code Optional} encapsulating the entity with the given id.
+     * @throws IllegalArgumentException
+     *             if the given id is null.
+     */
+    default Optional<T> findOneForUpdate(ID id) {
+        return findOne(id);
+    }
+
+    /**
+     * Find the entities with the given {@code ids}.
+     *
+     * @param ids
+     *            must be not null and must not contain null elements.
+     * @return the entities found; ids without a matching entity are skipped.
+     * @throws IllegalArgumentException
+     *             if the given ids or one of them is null.
+     */
+    default List<T> findAllById(Collection<ID> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null.");
+        }
+        List<T> entities = new ArrayList<>();
+        for (ID id : ids) {
+            findOne(id).ifPresent(entities::add);
+        }
+        return entities;
+    }
+
     /**
      *
      * @return all entities.
      */
     Iterable<T> findAll();
 
+    /**
+     * Streams all entities without holding them all in memory at once.
+     * The returned stream holds resources and must be closed after use (e.g. try-with-resources).
+     *
+     * @return a stream of all entities.
+     */
+    default Stream<T> streamAll() {
+        return StreamSupport.stream(findAll().spliterator(), false);
+    }
+
+    /**
+     * Finds a page of entities ordered by id, starting right after {@code afterId} (keyset pagination).
+     *
+     * @param afterId
+     *            the id of the last entity of the previous page, or null for the first page.
+     * @param limit
+     *            the maximum number of entities in the page, must be positive.
+     * @return the entities with ids greater than {@code afterId}, in ascending id order; fewer than
+     *         {@code limit} only when there are no more.
+     * @throws IllegalArgumentException
+     *             if the limit is not positive.
+     */
+    @SuppressWarnings("unchecked")
+    default List<T> findPage(ID afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        Comparator<T> byId = Comparator.comparing(entity -> (Comparable<Object>) entity.getId());
+        try (Stream<T> entities = streamAll()) {
+            return entities
+                    .filter(entity -> afterId == null || ((Comparable<Object>) entity.getId()).compareTo(afterId) > 0)
+                    .sorted(byId)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+    }
+
     /**
      * Saves the given entity.
      *
@@ -63,4 +142,70 @@ public interface Repository<ID, T extends BaseEntity<ID>> {
      *             if the entity is not valid.
      */
     Optional<T> update(T entity) throws ValidatorException;
+
+    /**
+     * Saves all the given entities.
+     *
+     * @param entities
+     *            must not be null and must not contain null elements.
+     * @return the saved entities.
+     * @throws IllegalArgumentException
+     *             if the given entities or one of them is null.
+     * @throws ValidatorException
+     *             if one of the entities is not valid.
+     */
+    default Iterable<T> saveAll(Iterable<T> entities) throws ValidatorException {
+        if (entities == null) {
+            throw new IllegalArgumentException("Entities must not be null.");
+        }
+        List<T> saved = new ArrayList<>();
+        for (T entity : entities) {
+            save(entity).ifPresent(saved::add);
+        }
+        return saved;
+    }
+
+    /**
+     * Updates all the given entities.
+     *
+     * @param entities
+     *            must not be null and must not contain null elements.
+     * @return the updated entities.
+     * @throws IllegalArgumentException
+     *             if the given entities or one of them is null.
+     * @throws ValidatorException
+     *             if one of the entities is not valid.
+     */
+    default Iterable<T> updateAll(Iterable<T> entities) throws ValidatorException {
+        if (entities == null) {
+            throw new IllegalArgumentException("Entities must not be null.");
+        }
+        List<T> updated = new ArrayList<>();
+        for (T entity : entities) {
+            update(entity).ifPresent(updated::add);
+        }
+        return updated;
+    }
+
+    /**
+     * Removes the entities with the given ids.
+     *
+     * @param ids
+     *            must not be null and must not contain null elements.
+     * @return the number of removed entities.
+     * @throws IllegalArgumentException
+     *             if the given ids or one of them is null.
+     */
+    default int deleteAllById(Iterable<ID> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null.");
+        }
+        int deleted = 0;
+        for (ID id : ids) {
+            if (delete(id).isPresent()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
 }
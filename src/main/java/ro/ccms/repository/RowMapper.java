@@ -0,0 +1,22 @@
+package ro.ccms.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a {@link ResultSet} to an entity.
+ */
+interface RowMapper<T> {
+    /**
+     * @return the entity, or null if the row is left out of the result.
+     */
+    T mapRow(ResultSet resultSet) throws SQLException;
+
+    /**
+     * Returns the mapper to use for every row of the given result set, so that work that only depends on
+     * the columns of the result set, like resolving the column indices, is done once instead of per row.
+     */
+    default RowMapper<T> forResultSet(ResultSet resultSet) throws SQLException {
+        return this;
+    }
+}
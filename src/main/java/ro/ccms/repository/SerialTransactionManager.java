@@ -0,0 +1,26 @@
+package ro.ccms.repository;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Transaction manager for the repositories without transactions, such as the in-memory and file ones:
+ * units of work run one at a time, so none of them sees the changes of another half done.
+ * Changes made before a failure are not rolled back.
+ */
+public class SerialTransactionManager implements TransactionManager {
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Override
+    public <R> R inTransaction(Supplier<R> work) {
+        if (work == null) {
+            throw new IllegalArgumentException("Work must not be null.");
+        }
+        lock.lock();
+        try {
+            return work.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
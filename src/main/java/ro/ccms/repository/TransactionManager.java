@@ -0,0 +1,30 @@
+package ro.ccms.repository;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work, made of several repository calls, as a single transaction.
+ */
+public interface TransactionManager {
+
+    /**
+     * Runs the given work in a transaction: committed if the work returns, rolled back if it throws.
+     * A unit of work started from within another one joins the outer transaction.
+     *
+     * @param work must not be null.
+     * @return the result of the work.
+     * @throws ro.ccms.domain.exceptions.MovieRentalsException if the transaction can not be committed.
+     */
+    <R> R inTransaction(Supplier<R> work);
+
+    /**
+     * Runs the given action once the transaction of the current thread has ended, committed or rolled back,
+     * or right away outside a transaction. By default every change is visible as soon as it is made, so the
+     * action runs right away.
+     *
+     * @param action must not be null.
+     */
+    default void afterCompletion(Runnable action) {
+        action.run();
+    }
+}
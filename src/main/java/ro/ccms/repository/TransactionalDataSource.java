@@ -0,0 +1,202 @@
+package ro.ccms.repository;
+
+import ro.ccms.domain.exceptions.MovieRentalsException;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Data source that binds a connection to the thread running a unit of work, so that the repositories built on
+ * it take part in the transaction without knowing about it.
+ * <p>
+ * Outside a unit of work connections come straight from the target data source. Within one, every
+ * {@link #getConnection()} returns the same transaction connection, whose {@code close}, {@code setAutoCommit}
+ * and {@code commit} do nothing: the unit of work commits once at its end. A {@code rollback} by a repository
+ * marks the transaction to be rolled back at its end instead.
+ */
+public class TransactionalDataSource implements DataSource, TransactionManager {
+    private final DataSource target;
+    private final ThreadLocal<Transaction> currentTransaction = new ThreadLocal<>();
+
+    /**
+     * @param target the data source the transaction connections are borrowed from, usually a pool.
+     */
+    public TransactionalDataSource(DataSource target) {
+        if (target == null) {
+            throw new IllegalArgumentException("Target data source must not be null.");
+        }
+        this.target = target;
+    }
+
+    @Override
+    public <R> R inTransaction(Supplier<R> work) {
+        if (work == null) {
+            throw new IllegalArgumentException("Work must not be null.");
+        }
+        if (currentTransaction.get() != null) {
+            return work.get();
+        }
+
+        Transaction transaction = null;
+        try (Connection conn = target.getConnection()) {
+            transaction = new Transaction(conn);
+            conn.setAutoCommit(false);
+            currentTransaction.set(transaction);
+            R result;
+            try {
+                result = work.get();
+            } catch (RuntimeException | Error e) {
+                rollback(conn, e);
+                throw e;
+            } finally {
+                currentTransaction.remove();
+            }
+            if (transaction.rollbackOnly) {
+                conn.rollback();
+                throw new MovieRentalsException("Transaction rolled back. ");
+            }
+            conn.commit();
+            return result;
+        } catch (SQLException e) {
+            throw new MovieRentalsException("Database connection exception. ", e);
+        } finally {
+            if (transaction != null) {
+                transaction.completionActions.forEach(Runnable::run);
+            }
+        }
+    }
+
+    /**
+     * Within a unit of work, runs the action after its commit or rollback.
+     */
+    @Override
+    public void afterCompletion(Runnable action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null.");
+        }
+        Transaction transaction = currentTransaction.get();
+        if (transaction != null) {
+            transaction.completionActions.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * @return whether the current thread runs a unit of work.
+     */
+    public boolean isInTransaction() {
+        return currentTransaction.get() != null;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Transaction transaction = currentTransaction.get();
+        return transaction != null ? transaction.handle : target.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return target.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        target.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        target.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return target.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return target.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : target.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || target.isWrapperFor(iface);
+    }
+
+    private static void rollback(Connection conn, Throwable cause) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private static class Transaction implements InvocationHandler {
+        private final Connection connection;
+        private final Connection handle;
+        private boolean rollbackOnly;
+        private final List<Runnable> completionActions = new ArrayList<>();
+
+        Transaction(Connection connection) {
+            this.connection = connection;
+            this.handle = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "setAutoCommit":
+                case "commit":
+                    return null;
+                case "getAutoCommit":
+                    return false;
+                case "rollback":
+                    if (args == null) {
+                        rollbackOnly = true;
+                        return null;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "TransactionConnection{" + connection + ", rollbackOnly=" + rollbackOnly + '}';
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ro.ccms.repository.file;
+
+import ro.ccms.domain.Client;
+import ro.ccms.domain.validators.ClientValidator;
+
+import java.nio.file.Path;
+
+/**
+ * Clients stored in {@code clients.dat} and {@code clients.strings} under the given directory.
+ */
+public class ClientFileRepository extends MappedFileRepository<Client> {
+    public ClientFileRepository(Path directory) {
+        super(directory, "clients", new ClientRecordCodec(), new ClientValidator());
+    }
+}
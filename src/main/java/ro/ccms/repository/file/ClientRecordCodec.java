@@ -0,0 +1,46 @@
+package ro.ccms.repository.file;
+
+import ro.ccms.domain.Client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Client record: first name, last name, date of birth and email references, subscribe flag.
+ */
+class ClientRecordCodec implements RecordCodec<Client> {
+    private static final int FIRST_NAME = 0;
+    private static final int LAST_NAME = FIRST_NAME + StringHeap.REFERENCE_BYTES;
+    private static final int DATE_OF_BIRTH = LAST_NAME + StringHeap.REFERENCE_BYTES;
+    private static final int EMAIL = DATE_OF_BIRTH + StringHeap.REFERENCE_BYTES;
+    private static final int SUBSCRIBE = EMAIL + StringHeap.REFERENCE_BYTES;
+    private static final int SIZE = SUBSCRIBE + 1;
+
+    @Override
+    public int fieldsSize() {
+        return SIZE;
+    }
+
+    @Override
+    public Client newEntity() {
+        return new Client();
+    }
+
+    @Override
+    public void write(ByteBuffer records, int index, Client client, StringHeap strings) throws IOException {
+        strings.write(records, index + FIRST_NAME, client.getFirstName());
+        strings.write(records, index + LAST_NAME, client.getLastName());
+        strings.write(records, index + DATE_OF_BIRTH, client.getDateOfBirth());
+        strings.write(records, index + EMAIL, client.getEmail());
+        records.put(index + SUBSCRIBE, (byte) (client.isSubscribe() ? 1 : 0));
+    }
+
+    @Override
+    public void read(ByteBuffer records, int index, Client client, StringHeap strings) {
+        client.setFirstName(strings.read(records, index + FIRST_NAME));
+        client.setLastName(strings.read(records, index + LAST_NAME));
+        client.setDateOfBirth(strings.read(records, index + DATE_OF_BIRTH));
+        client.setEmail(strings.read(records, index + EMAIL));
+        client.setSubscribe(records.get(index + SUBSCRIBE) != 0);
+    }
+}
@@ -0,0 +1,61 @@
+package ro.ccms.repository.file;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file mapped into memory as a whole, remapped with a larger size when it has to grow.
+ * A mapping is limited to 2 GB. Not thread-safe; the repositories guard it with their lock.
+ */
+class MappedFile implements AutoCloseable {
+    private static final int MINIMUM_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    MappedFile(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(MINIMUM_SIZE, channel.size()));
+    }
+
+    /**
+     * @return the current mapping; it is replaced when the file grows, so it must not be kept across writes.
+     */
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Grows the file and its mapping, doubling the size, until it holds at least {@code size} bytes.
+     */
+    void ensureCapacity(long size) throws IOException {
+        if (size <= buffer.capacity()) {
+            return;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Mapped file is limited to 2 GB.");
+        }
+        long newSize = buffer.capacity();
+        while (newSize < size) {
+            newSize = Math.min(Integer.MAX_VALUE, newSize << 1);
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+    }
+
+    /**
+     * Writes the modified pages back to the file.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
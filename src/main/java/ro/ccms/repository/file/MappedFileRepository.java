@@ -0,0 +1,251 @@
+package ro.ccms.repository.file;
+
+import ro.ccms.domain.BaseEntity;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.exceptions.ValidatorException;
+import ro.ccms.domain.validators.Validator;
+import ro.ccms.repository.Repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * {@link Repository} stored in two memory-mapped files: fixed-width binary records and an append-only
+ * heap holding their string fields.
+ * <p>
+ * Ids are allocated sequentially and the record of id {@code n} is the {@code n}-th record, so the id to
+ * offset index is a multiplication: opening the repository maps the files without reading them, and
+ * {@code findOne} reads the fields at a computed offset without any parsing. Deleted records are only
+ * marked as such and their ids are not reused.
+ * <p>
+ * Written records reach the disk when the operating system flushes the mapped pages, or on {@link #force()}
+ * and {@link #close()}.
+ */
+public abstract class MappedFileRepository<T extends BaseEntity<Long>> implements Repository<Long, T>, AutoCloseable {
+    private static final int MAGIC = 0x43434D53;
+    private static final int HEADER_BYTES = 32;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int RECORD_SIZE_OFFSET = 4;
+    private static final int RECORD_COUNT_OFFSET = 8;
+
+    private static final int LIVE = 0;
+    private static final int FIELDS = 1;
+
+    private final RecordCodec<T> codec;
+    private final Validator<T> validator;
+    private final int recordSize;
+    private final MappedFile records;
+    private final StringHeap strings;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long recordCount;
+
+    MappedFileRepository(Path directory, String name, RecordCodec<T> codec, Validator<T> validator) {
+        this.codec = codec;
+        this.validator = validator;
+        this.recordSize = FIELDS + codec.fieldsSize();
+        try {
+            Files.createDirectories(directory);
+            records = new MappedFile(directory.resolve(name + ".dat"));
+            strings = new StringHeap(directory.resolve(name + ".strings"));
+        } catch (IOException e) {
+            throw new MovieRentalsException("Data file exception. ", e);
+        }
+
+        ByteBuffer header = records.buffer();
+        if (header.getInt(MAGIC_OFFSET) == 0) {
+            header.putInt(MAGIC_OFFSET, MAGIC);
+            header.putInt(RECORD_SIZE_OFFSET, recordSize);
+            header.putLong(RECORD_COUNT_OFFSET, 0);
+        } else if (header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(RECORD_SIZE_OFFSET) != recordSize) {
+            throw new MovieRentalsException("Data file " + name + ".dat has an unknown format. ");
+        }
+        recordCount = header.getLong(RECORD_COUNT_OFFSET);
+    }
+
+    @Override
+    public Optional<T> findOne(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Id must not be null.");
+        }
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(read(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<T> findAllById(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null.");
+        }
+        List<T> entities = new ArrayList<>(ids.size());
+        lock.readLock().lock();
+        try {
+            for (Long id : ids) {
+                if (id == null) {
+                    throw new IllegalArgumentException("Id must not be null.");
+                }
+                T entity = read(id);
+                if (entity != null) {
+                    entities.add(entity);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return entities;
+    }
+
+    @Override
+    public Iterable<T> findAll() {
+        List<T> entities = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (long id = 1; id <= recordCount; id++) {
+                T entity = read(id);
+                if (entity != null) {
+                    entities.add(entity);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return entities;
+    }
+
+    @Override
+    public List<T> findPage(Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        List<T> entities = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            // Records are stored in id order, so a page is a contiguous run of records.
+            long first = afterId == null || afterId < 0 ? 1 : afterId + 1;
+            for (long id = first; id <= recordCount && entities.size() < limit; id++) {
+                T entity = read(id);
+                if (entity != null) {
+                    entities.add(entity);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return entities;
+    }
+
+    @Override
+    public Optional<T> save(T entity) throws ValidatorException {
+        if (entity == null) {
+            throw new IllegalArgumentException("Entity must not be null.");
+        }
+        validator.validate(entity);
+        lock.writeLock().lock();
+        try {
+            long id = recordCount + 1;
+            records.ensureCapacity(offsetOf(id) + recordSize);
+            ByteBuffer buffer = records.buffer();
+            codec.write(buffer, offsetOf(id) + FIELDS, entity, strings);
+            buffer.put(offsetOf(id) + LIVE, (byte) 1);
+            recordCount = id;
+            buffer.putLong(RECORD_COUNT_OFFSET, recordCount);
+            entity.setId(id);
+            return Optional.of(entity);
+        } catch (IOException e) {
+            throw new MovieRentalsException("Data file exception. ", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<T> update(T entity) throws ValidatorException {
+        if (entity == null || entity.getId() == null) {
+            throw new IllegalArgumentException("Entity must not be null.");
+        }
+        validator.validate(entity);
+        lock.writeLock().lock();
+        try {
+            if (!isLive(entity.getId())) {
+                return Optional.empty();
+            }
+            codec.write(records.buffer(), offsetOf(entity.getId()) + FIELDS, entity, strings);
+            return Optional.of(entity);
+        } catch (IOException e) {
+            throw new MovieRentalsException("Data file exception. ", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<T> delete(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Id must not be null.");
+        }
+        lock.writeLock().lock();
+        try {
+            T entity = read(id);
+            if (entity != null) {
+                records.buffer().put(offsetOf(id) + LIVE, (byte) 0);
+            }
+            return Optional.ofNullable(entity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the modified records and strings to the disk.
+     */
+    public void force() {
+        lock.writeLock().lock();
+        try {
+            strings.force();
+            records.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            strings.close();
+            records.close();
+        } catch (IOException e) {
+            throw new MovieRentalsException("Data file exception. ", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private T read(long id) {
+        if (!isLive(id)) {
+            return null;
+        }
+        T entity = codec.newEntity();
+        entity.setId(id);
+        codec.read(records.buffer(), offsetOf(id) + FIELDS, entity, strings);
+        return entity;
+    }
+
+    private boolean isLive(long id) {
+        return id >= 1 && id <= recordCount && records.buffer().get(offsetOf(id) + LIVE) != 0;
+    }
+
+    private int offsetOf(long id) {
+        return (int) (HEADER_BYTES + (id - 1) * recordSize);
+    }
+}
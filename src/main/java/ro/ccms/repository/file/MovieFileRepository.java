@@ -0,0 +1,15 @@
+package ro.ccms.repository.file;
+
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.validators.MovieValidator;
+
+import java.nio.file.Path;
+
+/**
+ * Movie catalog stored in {@code movies.dat} and {@code movies.strings} under the given directory.
+ */
+public class MovieFileRepository extends MappedFileRepository<Movie> {
+    public MovieFileRepository(Path directory) {
+        super(directory, "movies", new MovieRecordCodec(), new MovieValidator());
+    }
+}
@@ -0,0 +1,54 @@
+package ro.ccms.repository.file;
+
+import ro.ccms.domain.AgeRestrictions;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.MovieGenres;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Movie record: title reference, year, genre and age restriction ordinals, rental price, available flag.
+ */
+class MovieRecordCodec implements RecordCodec<Movie> {
+    private static final MovieGenres[] GENRES = MovieGenres.values();
+    private static final AgeRestrictions[] AGE_RESTRICTIONS = AgeRestrictions.values();
+
+    private static final int TITLE = 0;
+    private static final int YEAR = TITLE + StringHeap.REFERENCE_BYTES;
+    private static final int GENRE = YEAR + Integer.BYTES;
+    private static final int AGE_RESTRICTION = GENRE + 1;
+    private static final int RENTAL_PRICE = AGE_RESTRICTION + 1;
+    private static final int AVAILABLE = RENTAL_PRICE + Float.BYTES;
+    private static final int SIZE = AVAILABLE + 1;
+
+    @Override
+    public int fieldsSize() {
+        return SIZE;
+    }
+
+    @Override
+    public Movie newEntity() {
+        return new Movie();
+    }
+
+    @Override
+    public void write(ByteBuffer records, int index, Movie movie, StringHeap strings) throws IOException {
+        strings.write(records, index + TITLE, movie.getTitle());
+        records.putInt(index + YEAR, movie.getYear());
+        records.put(index + GENRE, (byte) movie.getGenre().ordinal());
+        records.put(index + AGE_RESTRICTION, (byte) movie.getAgeRestrictions().ordinal());
+        records.putFloat(index + RENTAL_PRICE, movie.getRentalPrice());
+        records.put(index + AVAILABLE, (byte) (movie.isAvailable() ? 1 : 0));
+    }
+
+    @Override
+    public void read(ByteBuffer records, int index, Movie movie, StringHeap strings) {
+        movie.setTitle(strings.read(records, index + TITLE));
+        movie.setYear(records.getInt(index + YEAR));
+        movie.setGenre(GENRES[records.get(index + GENRE)]);
+        movie.setAgeRestrictions(AGE_RESTRICTIONS[records.get(index + AGE_RESTRICTION)]);
+        movie.setRentalPrice(records.getFloat(index + RENTAL_PRICE));
+        movie.setAvailable(records.get(index + AVAILABLE) != 0);
+    }
+}
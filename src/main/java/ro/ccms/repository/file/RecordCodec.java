@@ -0,0 +1,20 @@
+package ro.ccms.repository.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes and reads the fields of an entity as a fixed-width binary record; the id is stored by the repository.
+ */
+interface RecordCodec<T> {
+    /**
+     * @return the number of bytes of the fields, the same for every record.
+     */
+    int fieldsSize();
+
+    T newEntity();
+
+    void write(ByteBuffer records, int index, T entity, StringHeap strings) throws IOException;
+
+    void read(ByteBuffer records, int index, T entity, StringHeap strings);
+}
@@ -0,0 +1,66 @@
+package ro.ccms.repository.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Append-only file of UTF-8 strings, referenced from the fixed-width records by offset and length.
+ * A replaced string is not reclaimed; the heap only grows.
+ */
+class StringHeap implements AutoCloseable {
+    /** Bytes a string reference takes in a record: the offset in the heap and the length. */
+    static final int REFERENCE_BYTES = Long.BYTES + Integer.BYTES;
+
+    private static final int HEADER_BYTES = 16;
+    private static final int NULL_LENGTH = -1;
+
+    private final MappedFile file;
+    private long used;
+
+    StringHeap(Path path) throws IOException {
+        file = new MappedFile(path);
+        used = Math.max(HEADER_BYTES, file.buffer().getLong(0));
+    }
+
+    /**
+     * Appends the string to the heap and writes its reference into {@code record} at {@code index}.
+     */
+    void write(ByteBuffer record, int index, String value) throws IOException {
+        if (value == null) {
+            record.putLong(index, 0);
+            record.putInt(index + Long.BYTES, NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        file.ensureCapacity(used + bytes.length);
+        file.buffer().put((int) used, bytes);
+        record.putLong(index, used);
+        record.putInt(index + Long.BYTES, bytes.length);
+        used += bytes.length;
+        file.buffer().putLong(0, used);
+    }
+
+    /**
+     * Reads the string referenced from {@code record} at {@code index}.
+     */
+    String read(ByteBuffer record, int index) {
+        int length = record.getInt(index + Long.BYTES);
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        file.buffer().get((int) record.getLong(index), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    void force() {
+        file.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
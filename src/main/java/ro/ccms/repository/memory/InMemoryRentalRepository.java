@@ -0,0 +1,204 @@
+package ro.ccms.repository.memory;
+
+import ro.ccms.domain.Client;
+import ro.ccms.domain.ClientRentReportDTO;
+import ro.ccms.domain.ClientRentalsDTO;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.MovieRentReportDTO;
+import ro.ccms.domain.MovieRentalsDTO;
+import ro.ccms.domain.Rental;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.validators.RentalValidator;
+import ro.ccms.repository.CopyFormat;
+import ro.ccms.repository.RentalCopyCodec;
+import ro.ccms.repository.RentalRepository;
+import ro.ccms.repository.Repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Memory-resident {@link RentalRepository}.
+ * <p>
+ * The rankings and reports are computed by scanning the rentals, like the database does without
+ * an index; the movies and clients are looked up by id in the given repositories, so rentals whose
+ * movie or client no longer exists are left out, as with the SQL joins. The bulk copy uses the file formats
+ * of the database's {@code COPY}, see {@link RentalCopyCodec}.
+ */
+public class InMemoryRentalRepository extends InMemoryRepository<Rental> implements RentalRepository {
+    private static final Comparator<Rental> BY_RENTAL_DATE =
+            Comparator.comparing(Rental::getRentalDate, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final Repository<Long, Movie> movieRepository;
+    private final Repository<Long, Client> clientRepository;
+
+    public InMemoryRentalRepository(Repository<Long, Movie> movieRepository,
+                                    Repository<Long, Client> clientRepository) {
+        super(new RentalValidator());
+        if (movieRepository == null || clientRepository == null) {
+            throw new IllegalArgumentException("Repositories must not be null.");
+        }
+        this.movieRepository = movieRepository;
+        this.clientRepository = clientRepository;
+    }
+
+    @Override
+    public List<MovieRentalsDTO> findMoviesByRentNumber(Integer limit) {
+        List<MovieRentalsDTO> movies = new ArrayList<>();
+        for (RentCounter counter : rank(Rental::getMovieId, limit)) {
+            if (limit != null && movies.size() == limit) {
+                break;
+            }
+            movieRepository.findOne(counter.id)
+                    .ifPresent(movie -> movies.add(new MovieRentalsDTO(movie, counter.count)));
+        }
+        return movies;
+    }
+
+    @Override
+    public List<ClientRentalsDTO> findClientsByRentedMovies(Integer limit) {
+        List<ClientRentalsDTO> clients = new ArrayList<>();
+        for (RentCounter counter : rank(Rental::getClientId, limit)) {
+            if (limit != null && clients.size() == limit) {
+                break;
+            }
+            clientRepository.findOne(counter.id)
+                    .ifPresent(client -> clients.add(new ClientRentalsDTO(client, counter.count)));
+        }
+        return clients;
+    }
+
+    @Override
+    public ClientRentReportDTO findRentReportByClient(Client client) {
+        if (client == null) {
+            throw new IllegalArgumentException("Client must not be null.");
+        }
+        if (client.getId() == null) {
+            throw new IllegalArgumentException("Client id must not be null.");
+        }
+        long clientId = client.getId();
+        List<Movie> moviesList = new ArrayList<>();
+        List<LocalDateTime> rentDates = new ArrayList<>();
+        float totalCharges = 0;
+        for (Rental rental : rentalsWhere(rental -> rental.getClientId() != null && rental.getClientId() == clientId)) {
+            Optional<Movie> movie = movieRepository.findOne(rental.getMovieId());
+            if (movie.isPresent()) {
+                moviesList.add(movie.get());
+                rentDates.add(rental.getRentalDate());
+                totalCharges += rental.getRentalCharge();
+            }
+        }
+        return new ClientRentReportDTO(client, moviesList, totalCharges, rentDates, rentDates.size());
+    }
+
+    @Override
+    public MovieRentReportDTO findRentReportByMovie(Movie movie) {
+        if (movie == null) {
+            throw new IllegalArgumentException("Movie must not be null.");
+        }
+        if (movie.getId() == null) {
+            throw new IllegalArgumentException("Movie id must not be null.");
+        }
+        long movieId = movie.getId();
+        List<Client> clientsList = new ArrayList<>();
+        List<LocalDateTime> rentDates = new ArrayList<>();
+        float totalCharges = 0;
+        for (Rental rental : rentalsWhere(rental -> rental.getMovieId() != null && rental.getMovieId() == movieId)) {
+            Optional<Client> client = clientRepository.findOne(rental.getClientId());
+            if (client.isPresent()) {
+                clientsList.add(client.get());
+                rentDates.add(rental.getRentalDate());
+                totalCharges += rental.getRentalCharge();
+            }
+        }
+        return new MovieRentReportDTO(movie, clientsList, totalCharges, rentDates, rentDates.size());
+    }
+
+    /**
+     * Reads all the rows first and validates them, so that nothing is loaded if one of them is invalid.
+     */
+    @Override
+    public long copyIn(InputStream in, CopyFormat format) {
+        if (in == null || format == null) {
+            throw new IllegalArgumentException("Input and format must not be null.");
+        }
+        List<Rental> rentals;
+        try {
+            rentals = RentalCopyCodec.read(in, format);
+        } catch (IOException e) {
+            throw new MovieRentalsException("Bulk copy input exception. ", e);
+        }
+        RentalValidator validator = new RentalValidator();
+        rentals.forEach(validator::validate);
+        rentals.forEach(this::save);
+        return rentals.size();
+    }
+
+    @Override
+    public long copyOut(OutputStream out, CopyFormat format) {
+        if (out == null || format == null) {
+            throw new IllegalArgumentException("Output and format must not be null.");
+        }
+        try {
+            return RentalCopyCodec.write(out, format, findAll());
+        } catch (IOException e) {
+            throw new MovieRentalsException("Bulk copy output exception. ", e);
+        }
+    }
+
+    /**
+     * Counts the rentals per movie or client id, most rented first and ties by id, like the ranking queries.
+     * The limit is only validated here: ids whose movie or client no longer exists are dropped by the callers,
+     * which stop once they have found {@code limit} rows, as the joins do.
+     */
+    private List<RentCounter> rank(Function<Rental, Long> key, Integer limit) {
+        if (limit != null && limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        LongObjectHashMap<RentCounter> counters = new LongObjectHashMap<>();
+        forEach(rental -> {
+            Long id = key.apply(rental);
+            if (id != null) {
+                RentCounter counter = counters.get(id);
+                if (counter == null) {
+                    counter = new RentCounter(id);
+                    counters.put(id, counter);
+                }
+                counter.count++;
+            }
+        });
+        List<RentCounter> ranking = new ArrayList<>(counters.size());
+        counters.forEach((id, counter) -> ranking.add(counter));
+        ranking.sort(Comparator.comparingInt((RentCounter counter) -> counter.count).reversed()
+                .thenComparingLong(counter -> counter.id));
+        return ranking;
+    }
+
+    private List<Rental> rentalsWhere(Predicate<Rental> filter) {
+        List<Rental> rentals = new ArrayList<>();
+        forEach(rental -> {
+            if (filter.test(rental)) {
+                rentals.add(rental);
+            }
+        });
+        rentals.sort(BY_RENTAL_DATE);
+        return rentals;
+    }
+
+    private static class RentCounter {
+        private final long id;
+        private int count;
+
+        RentCounter(long id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package ro.ccms.repository.memory;
+
+import ro.ccms.domain.BaseEntity;
+import ro.ccms.domain.exceptions.ValidatorException;
+import ro.ccms.domain.validators.Validator;
+import ro.ccms.repository.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Memory-resident {@link Repository} keyed by primitive {@code long} ids.
+ * <p>
+ * Entities are spread over lock stripes, each a {@link LongObjectHashMap} guarded by its own
+ * {@link StampedLock}: lookups by id are optimistic and lock-free unless they race with a write
+ * to the same stripe, and writes to different stripes proceed in parallel. Ids are generated from
+ * a counter, like a database sequence. Stored entities are shared with the callers, not copied.
+ */
+public class InMemoryRepository<T extends BaseEntity<Long>> implements Repository<Long, T> {
+    private static final int DEFAULT_STRIPES = 16;
+    private static final Comparator<BaseEntity<Long>> BY_ID = Comparator.comparingLong(BaseEntity::getId);
+
+    private final Validator<T> validator;
+    private final Stripe<T>[] stripes;
+    private final int stripeMask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public InMemoryRepository(Validator<T> validator) {
+        this(validator, DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param validator validates entities on save and update.
+     * @param stripes   the number of lock stripes, rounded up to a power of two.
+     */
+    @SuppressWarnings("unchecked")
+    public InMemoryRepository(Validator<T> validator, int stripes) {
+        int stripeCount = Integer.highestOneBit(Math.max(1, stripes) - 1) << 1;
+        stripeCount = Math.max(1, stripeCount);
+        this.validator = validator;
+        this.stripes = (Stripe<T>[]) new Stripe<?>[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe<>();
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    @Override
+    public Optional<T> findOne(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Id must not be null.");
+        }
+        return Optional.ofNullable(stripeOf(id).get(id));
+    }
+
+    @Override
+    public List<T> findAllById(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null.");
+        }
+        List<T> entities = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (id == null) {
+                throw new IllegalArgumentException("Id must not be null.");
+            }
+            T entity = stripeOf(id).get(id);
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    @Override
+    public Iterable<T> findAll() {
+        List<T> entities = new ArrayList<>();
+        forEach(entities::add);
+        return entities;
+    }
+
+    @Override
+    public Stream<T> streamAll() {
+        return ((List<T>) findAll()).stream();
+    }
+
+    @Override
+    public List<T> findPage(Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        long after = afterId == null ? Long.MIN_VALUE : afterId;
+        // Keep the smallest ids in a max-heap of the page size instead of sorting everything.
+        PriorityQueue<T> page = new PriorityQueue<>(Math.min(limit, 1024), BY_ID.reversed());
+        forEach(entity -> {
+            if (entity.getId() > after) {
+                page.offer(entity);
+                if (page.size() > limit) {
+                    page.poll();
+                }
+            }
+        });
+        List<T> result = new ArrayList<>(page);
+        result.sort(BY_ID);
+        return result;
+    }
+
+    @Override
+    public Optional<T> save(T entity) throws ValidatorException {
+        if (entity == null) {
+            throw new IllegalArgumentException("Entity must not be null.");
+        }
+        validator.validate(entity);
+        long id = sequence.incrementAndGet();
+        entity.setId(id);
+        stripeOf(id).put(id, entity);
+        return Optional.of(entity);
+    }
+
+    @Override
+    public Optional<T> update(T entity) throws ValidatorException {
+        if (entity == null || entity.getId() == null) {
+            throw new IllegalArgumentException("Entity must not be null.");
+        }
+        validator.validate(entity);
+        long id = entity.getId();
+        return stripeOf(id).replace(id, entity) ? Optional.of(entity) : Optional.empty();
+    }
+
+    @Override
+    public Optional<T> delete(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Id must not be null.");
+        }
+        return Optional.ofNullable(stripeOf(id).remove(id));
+    }
+
+    /**
+     * Stores an entity under the id it already has, e.g. when loading existing data.
+     * The id generator is moved past the given id.
+     *
+     * @param entity must not be null and must have an id.
+     */
+    public void load(T entity) {
+        if (entity == null || entity.getId() == null) {
+            throw new IllegalArgumentException("Entity and its id must not be null.");
+        }
+        long id = entity.getId();
+        sequence.accumulateAndGet(id, Math::max);
+        stripeOf(id).put(id, entity);
+    }
+
+    /**
+     * @return the number of stored entities.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe<T> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * Visits every stored entity, one stripe at a time under that stripe's read lock.
+     */
+    protected void forEach(Consumer<? super T> action) {
+        for (Stripe<T> stripe : stripes) {
+            stripe.forEach(action);
+        }
+    }
+
+    private Stripe<T> stripeOf(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 40) & stripeMask];
+    }
+
+    private static class Stripe<T> {
+        private final StampedLock lock = new StampedLock();
+        private final LongObjectHashMap<T> entities = new LongObjectHashMap<>();
+
+        T get(long id) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                T entity = entities.get(id);
+                if (lock.validate(stamp)) {
+                    return entity;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return entities.get(id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void put(long id, T entity) {
+            long stamp = lock.writeLock();
+            try {
+                entities.put(id, entity);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean replace(long id, T entity) {
+            long stamp = lock.writeLock();
+            try {
+                if (!entities.containsKey(id)) {
+                    return false;
+                }
+                entities.put(id, entity);
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        T remove(long id) {
+            long stamp = lock.writeLock();
+            try {
+                return entities.remove(id);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return entities.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void forEach(Consumer<? super T> action) {
+            long stamp = lock.readLock();
+            try {
+                entities.forEach((id, entity) -> action.accept(entity));
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+}
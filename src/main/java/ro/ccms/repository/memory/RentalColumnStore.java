@@ -0,0 +1,367 @@
+package ro.ccms.repository.memory;
+
+import ro.ccms.domain.Rental;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Off-heap, column-oriented copy of the rental transactions, used to compute the rankings and rent reports
+ * without keeping a {@link Rental} object per row on the heap.
+ * <p>
+ * Every attribute is a primitive column in its own direct buffer: 44 bytes per rental, dates in epoch
+ * seconds (UTC, sub-second precision is dropped). Rows are kept in rental date order, so the per-client
+ * and per-movie scans visit the rentals in the order of the reports. Scans do not allocate per row.
+ * <p>
+ * Thread-safe: scans run under a shared read lock, loading and appending under an exclusive lock.
+ */
+public class RentalColumnStore {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int ROW_BYTES = Long.BYTES * 5 + Float.BYTES;
+    // A direct buffer holds at most Integer.MAX_VALUE bytes, and the long columns take 8 per row.
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / Long.BYTES;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ByteBuffer ids;
+    private ByteBuffer movieIds;
+    private ByteBuffer clientIds;
+    private ByteBuffer charges;
+    private ByteBuffer rentalDates;
+    private ByteBuffer dueDates;
+    private int capacity;
+    private int size;
+    private boolean sorted = true;
+
+    /**
+     * Receives the columns of one rental row.
+     */
+    public interface RentalRowVisitor {
+        void visit(long rentalId, long movieId, long clientId, float rentalCharge,
+                   long rentalDateEpochSecond, long dueDateEpochSecond);
+    }
+
+    public RentalColumnStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity the number of rows to reserve memory for; the store grows as needed, up to
+     *                        {@code Integer.MAX_VALUE / 8} rows.
+     */
+    public RentalColumnStore(int initialCapacity) {
+        allocate(Math.max(1, Math.min(MAX_CAPACITY, initialCapacity)));
+    }
+
+    /**
+     * Appends the given rentals, e.g. a stream over all the rentals of a repository, and closes the stream.
+     *
+     * @param rentals must not be null.
+     * @return the number of loaded rentals.
+     * @throws MovieRentalsException if the store is full; the rentals appended until then are kept.
+     */
+    public int load(Stream<Rental> rentals) {
+        if (rentals == null) {
+            throw new IllegalArgumentException("Rentals must not be null.");
+        }
+        lock.writeLock().lock();
+        try (rentals) {
+            int before = size;
+            try {
+                rentals.forEach(this::addRow);
+            } finally {
+                sortByRentalDate();
+            }
+            return size - before;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends one rental.
+     *
+     * @param rental must not be null and must have a movie, a client and both dates.
+     * @throws MovieRentalsException if the store is full.
+     */
+    public void append(Rental rental) {
+        lock.writeLock().lock();
+        try {
+            addRow(rental);
+            sortByRentalDate();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all rows; the reserved memory is kept for the next load.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            size = 0;
+            sorted = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of off-heap bytes reserved by the columns.
+     */
+    public long reservedBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) capacity * ROW_BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the rentals of every movie.
+     *
+     * @param limit the maximum number of movies to return, or null for all of them.
+     * @return the movie ids by descending number of rentals, ties by ascending id.
+     */
+    public RentCounts countByMovie(Integer limit) {
+        return countBy(movieIds, limit);
+    }
+
+    /**
+     * Counts the rentals of every client.
+     *
+     * @param limit the maximum number of clients to return, or null for all of them.
+     * @return the client ids by descending number of rentals, ties by ascending id.
+     */
+    public RentCounts countByClient(Integer limit) {
+        return countBy(clientIds, limit);
+    }
+
+    /**
+     * Visits the rentals of a client in rental date order.
+     */
+    public void forEachRentalOfClient(long clientId, RentalRowVisitor visitor) {
+        forEachMatching(clientIds, clientId, visitor);
+    }
+
+    /**
+     * Visits the rentals of a movie in rental date order.
+     */
+    public void forEachRentalOfMovie(long movieId, RentalRowVisitor visitor) {
+        forEachMatching(movieIds, movieId, visitor);
+    }
+
+    public static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private void forEachMatching(ByteBuffer column, long id, RentalRowVisitor visitor) {
+        if (visitor == null) {
+            throw new IllegalArgumentException("Visitor must not be null.");
+        }
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < size; row++) {
+                if (column.getLong(row * Long.BYTES) == id) {
+                    int offset = row * Long.BYTES;
+                    visitor.visit(ids.getLong(offset), movieIds.getLong(offset), clientIds.getLong(offset),
+                            charges.getFloat(row * Float.BYTES), rentalDates.getLong(offset), dueDates.getLong(offset));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RentCounts countBy(ByteBuffer column, Integer limit) {
+        if (limit != null && limit < 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        LongObjectHashMap<int[]> counters = new LongObjectHashMap<>();
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < size; row++) {
+                long id = column.getLong(row * Long.BYTES);
+                int[] counter = counters.get(id);
+                if (counter == null) {
+                    counters.put(id, new int[]{1});
+                } else {
+                    counter[0]++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Order the ids first so that the index breaks the ties of the packed (count, index) sort keys.
+        long[] sortedIds = new long[counters.size()];
+        int[] position = {0};
+        counters.forEach((id, counter) -> sortedIds[position[0]++] = id);
+        Arrays.sort(sortedIds);
+        long[] keys = new long[sortedIds.length];
+        for (int i = 0; i < sortedIds.length; i++) {
+            int count = counters.get(sortedIds[i])[0];
+            keys[i] = ((long) (Integer.MAX_VALUE - count) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int resultSize = limit == null ? keys.length : Math.min(limit, keys.length);
+        long[] rankedIds = new long[resultSize];
+        int[] counts = new int[resultSize];
+        for (int i = 0; i < resultSize; i++) {
+            rankedIds[i] = sortedIds[(int) keys[i]];
+            counts[i] = Integer.MAX_VALUE - (int) (keys[i] >>> 32);
+        }
+        return new RentCounts(rankedIds, counts);
+    }
+
+    private void addRow(Rental rental) {
+        if (rental == null || rental.getMovieId() == null || rental.getClientId() == null
+                || rental.getRentalDate() == null || rental.getDueDate() == null) {
+            throw new IllegalArgumentException("Rental transaction must not be null nor incomplete.");
+        }
+        if (size == capacity) {
+            if (capacity == MAX_CAPACITY) {
+                throw new MovieRentalsException("Rental column store is full, it holds at most " + MAX_CAPACITY
+                        + " rentals. ");
+            }
+            allocate((int) Math.min(MAX_CAPACITY, (long) capacity << 1));
+        }
+        int offset = size * Long.BYTES;
+        long rentalDate = toEpochSecond(rental.getRentalDate());
+        if (size > 0 && rentalDate < rentalDates.getLong(offset - Long.BYTES)) {
+            sorted = false;
+        }
+        ids.putLong(offset, rental.getId() == null ? 0 : rental.getId());
+        movieIds.putLong(offset, rental.getMovieId());
+        clientIds.putLong(offset, rental.getClientId());
+        charges.putFloat(size * Float.BYTES, rental.getRentalCharge());
+        rentalDates.putLong(offset, rentalDate);
+        dueDates.putLong(offset, toEpochSecond(rental.getDueDate()));
+        size++;
+    }
+
+    /**
+     * Reorders the rows by rental date with a stable merge sort of the row numbers, then rewrites the columns.
+     */
+    private void sortByRentalDate() {
+        if (sorted) {
+            return;
+        }
+        int[] order = new int[size];
+        for (int row = 0; row < size; row++) {
+            order[row] = row;
+        }
+        mergeSort(order, new int[size], 0, size);
+
+        ByteBuffer[] longColumns = {ids, movieIds, clientIds, rentalDates, dueDates};
+        for (int c = 0; c < longColumns.length; c++) {
+            ByteBuffer reordered = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder());
+            for (int row = 0; row < size; row++) {
+                reordered.putLong(row * Long.BYTES, longColumns[c].getLong(order[row] * Long.BYTES));
+            }
+            longColumns[c] = reordered;
+        }
+        ByteBuffer reorderedCharges = ByteBuffer.allocateDirect(capacity * Float.BYTES).order(ByteOrder.nativeOrder());
+        for (int row = 0; row < size; row++) {
+            reorderedCharges.putFloat(row * Float.BYTES, charges.getFloat(order[row] * Float.BYTES));
+        }
+        ids = longColumns[0];
+        movieIds = longColumns[1];
+        clientIds = longColumns[2];
+        rentalDates = longColumns[3];
+        dueDates = longColumns[4];
+        charges = reorderedCharges;
+        sorted = true;
+    }
+
+    private void mergeSort(int[] rows, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(rows, buffer, from, middle);
+        mergeSort(rows, buffer, middle, to);
+        if (rentalDateOf(rows[middle - 1]) <= rentalDateOf(rows[middle])) {
+            return;
+        }
+        System.arraycopy(rows, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && rentalDateOf(buffer[left]) <= rentalDateOf(buffer[right]))) {
+                rows[i] = buffer[left++];
+            } else {
+                rows[i] = buffer[right++];
+            }
+        }
+    }
+
+    private long rentalDateOf(int row) {
+        return rentalDates.getLong(row * Long.BYTES);
+    }
+
+    private void allocate(int newCapacity) {
+        ids = grow(ids, newCapacity * Long.BYTES, size * Long.BYTES);
+        movieIds = grow(movieIds, newCapacity * Long.BYTES, size * Long.BYTES);
+        clientIds = grow(clientIds, newCapacity * Long.BYTES, size * Long.BYTES);
+        charges = grow(charges, newCapacity * Float.BYTES, size * Float.BYTES);
+        rentalDates = grow(rentalDates, newCapacity * Long.BYTES, size * Long.BYTES);
+        dueDates = grow(dueDates, newCapacity * Long.BYTES, size * Long.BYTES);
+        capacity = newCapacity;
+    }
+
+    private static ByteBuffer grow(ByteBuffer column, int newBytes, int usedBytes) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(newBytes).order(ByteOrder.nativeOrder());
+        if (column != null) {
+            grown.put(0, column, 0, usedBytes);
+        }
+        return grown;
+    }
+
+    /**
+     * Ids ranked by their number of rentals.
+     */
+    public static class RentCounts {
+        private final long[] ids;
+        private final int[] counts;
+
+        RentCounts(long[] ids, int[] counts) {
+            this.ids = ids;
+            this.counts = counts;
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        public long idAt(int index) {
+            return ids[index];
+        }
+
+        public int countAt(int index) {
+            return counts[index];
+        }
+    }
+}
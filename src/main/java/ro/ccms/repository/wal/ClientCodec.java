@@ -0,0 +1,23 @@
+package ro.ccms.repository.wal;
+
+import ro.ccms.domain.Client;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+class ClientCodec implements EntityCodec<Client> {
+    @Override
+    public void write(DataOutput out, Client client) throws IOException {
+        out.writeUTF(client.getFirstName());
+        out.writeUTF(client.getLastName());
+        out.writeUTF(client.getDateOfBirth());
+        out.writeUTF(client.getEmail());
+        out.writeBoolean(client.isSubscribe());
+    }
+
+    @Override
+    public Client read(DataInput in) throws IOException {
+        return new Client(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readBoolean());
+    }
+}
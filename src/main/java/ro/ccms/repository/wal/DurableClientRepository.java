@@ -0,0 +1,22 @@
+package ro.ccms.repository.wal;
+
+import ro.ccms.domain.Client;
+import ro.ccms.domain.validators.ClientValidator;
+import ro.ccms.repository.memory.InMemoryRepository;
+
+import java.nio.file.Path;
+
+/**
+ * Clients kept in memory, logged to {@code clients.wal} and snapshotted to {@code clients.snapshot}.
+ */
+public class DurableClientRepository extends DurableRepository<Client> {
+    public DurableClientRepository(Path directory) {
+        this(directory, SyncPolicy.ALWAYS, DEFAULT_SYNC_INTERVAL_MILLIS, DEFAULT_SNAPSHOT_THRESHOLD_BYTES);
+    }
+
+    public DurableClientRepository(Path directory, SyncPolicy syncPolicy, long syncIntervalMillis,
+                                   long snapshotThresholdBytes) {
+        super(directory, "clients", new InMemoryRepository<>(new ClientValidator()), new ClientCodec(),
+                new ClientValidator(), syncPolicy, syncIntervalMillis, snapshotThresholdBytes);
+    }
+}
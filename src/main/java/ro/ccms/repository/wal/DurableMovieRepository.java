@@ -0,0 +1,22 @@
+package ro.ccms.repository.wal;
+
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.validators.MovieValidator;
+import ro.ccms.repository.memory.InMemoryRepository;
+
+import java.nio.file.Path;
+
+/**
+ * Movies kept in memory, logged to {@code movies.wal} and snapshotted to {@code movies.snapshot}.
+ */
+public class DurableMovieRepository extends DurableRepository<Movie> {
+    public DurableMovieRepository(Path directory) {
+        this(directory, SyncPolicy.ALWAYS, DEFAULT_SYNC_INTERVAL_MILLIS, DEFAULT_SNAPSHOT_THRESHOLD_BYTES);
+    }
+
+    public DurableMovieRepository(Path directory, SyncPolicy syncPolicy, long syncIntervalMillis,
+                                  long snapshotThresholdBytes) {
+        super(directory, "movies", new InMemoryRepository<>(new MovieValidator()), new MovieCodec(),
+                new MovieValidator(), syncPolicy, syncIntervalMillis, snapshotThresholdBytes);
+    }
+}
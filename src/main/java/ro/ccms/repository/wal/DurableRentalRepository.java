@@ -0,0 +1,94 @@
+package ro.ccms.repository.wal;
+
+import ro.ccms.domain.Client;
+import ro.ccms.domain.ClientRentReportDTO;
+import ro.ccms.domain.ClientRentalsDTO;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.MovieRentReportDTO;
+import ro.ccms.domain.MovieRentalsDTO;
+import ro.ccms.domain.Rental;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.validators.RentalValidator;
+import ro.ccms.repository.CopyFormat;
+import ro.ccms.repository.RentalCopyCodec;
+import ro.ccms.repository.RentalRepository;
+import ro.ccms.repository.Repository;
+import ro.ccms.repository.memory.InMemoryRentalRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Rentals kept in memory, logged to {@code rentals.wal} and snapshotted to {@code rentals.snapshot};
+ * the rankings and reports are computed in memory.
+ */
+public class DurableRentalRepository extends DurableRepository<Rental> implements RentalRepository {
+    private final InMemoryRentalRepository rentals;
+
+    public DurableRentalRepository(Path directory, Repository<Long, Movie> movieRepository,
+                                   Repository<Long, Client> clientRepository) {
+        this(directory, movieRepository, clientRepository, SyncPolicy.ALWAYS, DEFAULT_SYNC_INTERVAL_MILLIS,
+                DEFAULT_SNAPSHOT_THRESHOLD_BYTES);
+    }
+
+    public DurableRentalRepository(Path directory, Repository<Long, Movie> movieRepository,
+                                   Repository<Long, Client> clientRepository, SyncPolicy syncPolicy,
+                                   long syncIntervalMillis, long snapshotThresholdBytes) {
+        this(directory, new InMemoryRentalRepository(movieRepository, clientRepository), syncPolicy,
+                syncIntervalMillis, snapshotThresholdBytes);
+    }
+
+    private DurableRentalRepository(Path directory, InMemoryRentalRepository rentals, SyncPolicy syncPolicy,
+                                    long syncIntervalMillis, long snapshotThresholdBytes) {
+        super(directory, "rentals", rentals, new RentalCodec(), new RentalValidator(), syncPolicy,
+                syncIntervalMillis, snapshotThresholdBytes);
+        this.rentals = rentals;
+    }
+
+    @Override
+    public List<MovieRentalsDTO> findMoviesByRentNumber(Integer limit) {
+        return rentals.findMoviesByRentNumber(limit);
+    }
+
+    @Override
+    public List<ClientRentalsDTO> findClientsByRentedMovies(Integer limit) {
+        return rentals.findClientsByRentedMovies(limit);
+    }
+
+    @Override
+    public ClientRentReportDTO findRentReportByClient(Client client) {
+        return rentals.findRentReportByClient(client);
+    }
+
+    @Override
+    public MovieRentReportDTO findRentReportByMovie(Movie movie) {
+        return rentals.findRentReportByMovie(movie);
+    }
+
+    /**
+     * Reads all the rows first, then logs them like {@link #saveAll(Iterable)}: all of them or, if one is
+     * invalid, none.
+     */
+    @Override
+    public long copyIn(InputStream in, CopyFormat format) {
+        if (in == null || format == null) {
+            throw new IllegalArgumentException("Input and format must not be null.");
+        }
+        List<Rental> copied;
+        try {
+            copied = RentalCopyCodec.read(in, format);
+        } catch (IOException e) {
+            throw new MovieRentalsException("Bulk copy input exception. ", e);
+        }
+        saveAll(copied);
+        return copied.size();
+    }
+
+    @Override
+    public long copyOut(OutputStream out, CopyFormat format) {
+        return rentals.copyOut(out, format);
+    }
+}
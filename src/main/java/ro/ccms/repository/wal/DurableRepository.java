@@ -0,0 +1,379 @@
+package ro.ccms.repository.wal;
+
+import ro.ccms.domain.BaseEntity;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.exceptions.ValidatorException;
+import ro.ccms.domain.validators.Validator;
+import ro.ccms.repository.Repository;
+import ro.ccms.repository.memory.InMemoryRepository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Memory-resident {@link Repository} made durable by a write-ahead log and snapshots.
+ * <p>
+ * Every change is appended to the log before it is applied in memory, and the call returns once the log
+ * is as durable as the {@link SyncPolicy} asks for. When the log outgrows the snapshot threshold, all
+ * entities are written to a snapshot file and the log is emptied. On startup the snapshot is loaded and
+ * the log replayed on top of it; replaying a record twice has no effect, so a crash between writing a
+ * snapshot and emptying the log is harmless.
+ * <p>
+ * Writes are serialized, but the sync of the log is shared by concurrent writers. A change is visible to
+ * readers as soon as it is logged, possibly before its sync completes.
+ */
+public class DurableRepository<T extends BaseEntity<Long>> implements Repository<Long, T>, AutoCloseable {
+    public static final long DEFAULT_SYNC_INTERVAL_MILLIS = 100;
+    public static final long DEFAULT_SNAPSHOT_THRESHOLD_BYTES = 64L * 1024 * 1024;
+
+    private static final int SNAPSHOT_MAGIC = 0x43434D57;
+
+    private final InMemoryRepository<T> store;
+    private final EntityCodec<T> codec;
+    private final Validator<T> validator;
+    private final Path snapshotPath;
+    private final long snapshotThresholdBytes;
+    private final WriteAheadLog log;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // The last id handed out, guarded by the write lock; ids of deleted entities are not reused.
+    private long lastId;
+
+    DurableRepository(Path directory, String name, InMemoryRepository<T> store, EntityCodec<T> codec,
+                      Validator<T> validator, SyncPolicy syncPolicy, long syncIntervalMillis,
+                      long snapshotThresholdBytes) {
+        if (syncPolicy == null) {
+            throw new IllegalArgumentException("Sync policy must not be null.");
+        }
+        this.store = store;
+        this.codec = codec;
+        this.validator = validator;
+        this.snapshotPath = directory.resolve(name + ".snapshot");
+        this.snapshotThresholdBytes = snapshotThresholdBytes;
+        try {
+            Files.createDirectories(directory);
+            readSnapshot();
+            log = new WriteAheadLog(directory.resolve(name + ".wal"), syncPolicy, syncIntervalMillis);
+            log.replay((operation, id, payload) -> {
+                if (operation == WriteAheadLog.PUT) {
+                    T entity = codec.read(payload);
+                    entity.setId(id);
+                    store.load(entity);
+                } else {
+                    store.delete(id);
+                }
+                lastId = Math.max(lastId, id);
+            });
+        } catch (IOException e) {
+            throw new MovieRentalsException("Write-ahead log exception. ", e);
+        }
+    }
+
+    /**
+     * @return the repository the entities are kept in, e.g. for queries a subclass adds.
+     */
+    protected InMemoryRepository<T> store() {
+        return store;
+    }
+
+    @Override
+    public Optional<T> findOne(Long id) {
+        return store.findOne(id);
+    }
+
+    @Override
+    public List<T> findAllById(Collection<Long> ids) {
+        return store.findAllById(ids);
+    }
+
+    @Override
+    public Iterable<T> findAll() {
+        return store.findAll();
+    }
+
+    @Override
+    public Stream<T> streamAll() {
+        return store.streamAll();
+    }
+
+    @Override
+    public List<T> findPage(Long afterId, int limit) {
+        return store.findPage(afterId, limit);
+    }
+
+    @Override
+    public Optional<T> save(T entity) throws ValidatorException {
+        saveAll(List.of(entity));
+        return Optional.of(entity);
+    }
+
+    /**
+     * Logs and stores all entities, then waits once for the log to be durable.
+     */
+    @Override
+    public Iterable<T> saveAll(Iterable<T> entities) throws ValidatorException {
+        List<T> entityList = validateAll(entities);
+        long position = 0;
+        writeLock.lock();
+        try {
+            for (T entity : entityList) {
+                long id = lastId + 1;
+                position = log.append(WriteAheadLog.PUT, id, encode(entity));
+                lastId = id;
+                entity.setId(id);
+                store.load(entity);
+            }
+            snapshotIfLogIsFull();
+        } catch (IOException e) {
+            throw new MovieRentalsException("Write-ahead log exception. ", e);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(position);
+        return entityList;
+    }
+
+    @Override
+    public Optional<T> update(T entity) throws ValidatorException {
+        Iterable<T> updated = updateAll(List.of(entity));
+        return updated.iterator().hasNext() ? Optional.of(entity) : Optional.empty();
+    }
+
+    /**
+     * Logs and stores the entities that exist, then waits once for the log to be durable.
+     *
+     * @return the updated entities; the ones that do not exist are left out.
+     */
+    @Override
+    public Iterable<T> updateAll(Iterable<T> entities) throws ValidatorException {
+        List<T> entityList = validateAll(entities);
+        List<T> updated = new ArrayList<>(entityList.size());
+        long position = 0;
+        writeLock.lock();
+        try {
+            for (T entity : entityList) {
+                if (entity.getId() == null) {
+                    throw new IllegalArgumentException("Id must not be null.");
+                }
+                if (store.findOne(entity.getId()).isPresent()) {
+                    position = log.append(WriteAheadLog.PUT, entity.getId(), encode(entity));
+                    store.load(entity);
+                    updated.add(entity);
+                }
+            }
+            snapshotIfLogIsFull();
+        } catch (IOException e) {
+            throw new MovieRentalsException("Write-ahead log exception. ", e);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(position);
+        return updated;
+    }
+
+    @Override
+    public Optional<T> delete(Long id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Id must not be null.");
+        }
+        Optional<T> deleted;
+        long position = 0;
+        writeLock.lock();
+        try {
+            deleted = store.findOne(id);
+            if (deleted.isPresent()) {
+                position = log.append(WriteAheadLog.DELETE, id, new byte[0]);
+                store.delete(id);
+            }
+            snapshotIfLogIsFull();
+        } catch (IOException e) {
+            throw new MovieRentalsException("Write-ahead log exception. ", e);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(position);
+        return deleted;
+    }
+
+    @Override
+    public int deleteAllById(Iterable<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Ids must not be null.");
+        }
+        int deleted = 0;
+        long position = 0;
+        writeLock.lock();
+        try {
+            for (Long id : ids) {
+                if (id == null) {
+                    throw new IllegalArgumentException("Id must not be null.");
+                }
+                if (store.findOne(id).isPresent()) {
+                    position = log.append(WriteAheadLog.DELETE, id, new byte[0]);
+                    store.delete(id);
+                    deleted++;
+                }
+            }
+            snapshotIfLogIsFull();
+        } catch (IOException e) {
+            throw new MovieRentalsException("Write-ahead log exception. ", e);
+        } finally {
+            writeLock.unlock();
+        }
+        awaitDurable(position);
+        return deleted;
+    }
+
+    /**
+     * Writes all entities to a new snapshot and empties the log. Writes wait until it is done.
+     */
+    public void snapshot() {
+        writeLock.lock();
+        try {
+            writeSnapshot();
+        } catch (IOException e) {
+            throw new MovieRentalsException("Snapshot exception. ", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of times the log was forced to the disk.
+     */
+    public long getSyncCount() {
+        return log.getSyncCount();
+    }
+
+    /**
+     * @return the size of the log in bytes, which is what a restart has to replay.
+     */
+    public long getLogSize() {
+        return log.size();
+    }
+
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            log.close();
+        } catch (IOException e) {
+            throw new MovieRentalsException("Write-ahead log exception. ", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private List<T> validateAll(Iterable<T> entities) {
+        if (entities == null) {
+            throw new IllegalArgumentException("Entities must not be null.");
+        }
+        List<T> entityList = new ArrayList<>();
+        for (T entity : entities) {
+            if (entity == null) {
+                throw new IllegalArgumentException("Entity must not be null.");
+            }
+            validator.validate(entity);
+            entityList.add(entity);
+        }
+        return entityList;
+    }
+
+    private byte[] encode(T entity) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        codec.write(out, entity);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private void awaitDurable(long position) {
+        if (position == 0) {
+            return;
+        }
+        try {
+            log.awaitDurable(position);
+        } catch (IOException e) {
+            throw new MovieRentalsException("Write-ahead log exception. ", e);
+        }
+    }
+
+    private void snapshotIfLogIsFull() throws IOException {
+        if (log.size() >= snapshotThresholdBytes) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * Writes the snapshot next to the current one, forces it, then replaces the current one and empties the log.
+     * Must be called while holding the write lock.
+     */
+    private void writeSnapshot() throws IOException {
+        Path temporary = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream stream = Channels.newOutputStream(channel);
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(stream, 64 * 1024), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            List<T> entities = (List<T>) store.findAll();
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(lastId);
+            out.writeInt(entities.size());
+            for (T entity : entities) {
+                out.writeLong(entity.getId());
+                codec.write(out, entity);
+            }
+            out.flush();
+            long checksum = checked.getChecksum().getValue();
+            out.writeLong(checksum);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.truncate();
+    }
+
+    private void readSnapshot() throws IOException {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try (CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotPath), 64 * 1024), new CRC32())) {
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Snapshot " + snapshotPath + " has an unknown format.");
+            }
+            lastId = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                T entity = codec.read(in);
+                entity.setId(id);
+                store.load(entity);
+            }
+            long checksum = checked.getChecksum().getValue();
+            if (in.readLong() != checksum) {
+                throw new IOException("Snapshot " + snapshotPath + " is corrupted.");
+            }
+        }
+    }
+}
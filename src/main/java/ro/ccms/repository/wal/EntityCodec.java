@@ -0,0 +1,14 @@
+package ro.ccms.repository.wal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads the fields of an entity in a compact binary form; the id is written by the log.
+ */
+interface EntityCodec<T> {
+    void write(DataOutput out, T entity) throws IOException;
+
+    T read(DataInput in) throws IOException;
+}
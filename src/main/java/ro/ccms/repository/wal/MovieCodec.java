@@ -0,0 +1,30 @@
+package ro.ccms.repository.wal;
+
+import ro.ccms.domain.AgeRestrictions;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.MovieGenres;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+class MovieCodec implements EntityCodec<Movie> {
+    private static final MovieGenres[] GENRES = MovieGenres.values();
+    private static final AgeRestrictions[] AGE_RESTRICTIONS = AgeRestrictions.values();
+
+    @Override
+    public void write(DataOutput out, Movie movie) throws IOException {
+        out.writeUTF(movie.getTitle());
+        out.writeShort(movie.getYear());
+        out.writeByte(movie.getGenre().ordinal());
+        out.writeByte(movie.getAgeRestrictions().ordinal());
+        out.writeFloat(movie.getRentalPrice());
+        out.writeBoolean(movie.isAvailable());
+    }
+
+    @Override
+    public Movie read(DataInput in) throws IOException {
+        return new Movie(in.readUTF(), in.readShort(), GENRES[in.readByte()], AGE_RESTRICTIONS[in.readByte()],
+                in.readFloat(), in.readBoolean());
+    }
+}
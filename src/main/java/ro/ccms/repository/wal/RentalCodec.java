@@ -0,0 +1,41 @@
+package ro.ccms.repository.wal;
+
+import ro.ccms.domain.Rental;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+class RentalCodec implements EntityCodec<Rental> {
+    private static final long NULL_DATE = Long.MIN_VALUE;
+
+    @Override
+    public void write(DataOutput out, Rental rental) throws IOException {
+        out.writeLong(rental.getMovieId());
+        out.writeLong(rental.getClientId());
+        out.writeFloat(rental.getRentalCharge());
+        writeDateTime(out, rental.getRentalDate());
+        writeDateTime(out, rental.getDueDate());
+    }
+
+    @Override
+    public Rental read(DataInput in) throws IOException {
+        return new Rental(in.readLong(), in.readLong(), in.readFloat(), readDateTime(in), readDateTime(in));
+    }
+
+    private static void writeDateTime(DataOutput out, LocalDateTime dateTime) throws IOException {
+        if (dateTime == null) {
+            out.writeLong(NULL_DATE);
+            return;
+        }
+        out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(dateTime.getNano());
+    }
+
+    private static LocalDateTime readDateTime(DataInput in) throws IOException {
+        long epochSecond = in.readLong();
+        return epochSecond == NULL_DATE ? null : LocalDateTime.ofEpochSecond(epochSecond, in.readInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,20 @@
+package ro.ccms.repository.wal;
+
+/**
+ * When the write-ahead log is forced to the disk.
+ */
+public enum SyncPolicy {
+    /**
+     * Every write returns once its log record is on the disk. Writers waiting at the same time share one
+     * fsync (group commit), so the cost is paid once per group rather than once per write.
+     */
+    ALWAYS,
+    /**
+     * The log is forced in the background every sync interval; a crash loses at most that interval of writes.
+     */
+    INTERVAL,
+    /**
+     * The log is never forced explicitly; the operating system writes it back when it sees fit.
+     */
+    NEVER
+}
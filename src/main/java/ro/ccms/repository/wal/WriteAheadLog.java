@@ -0,0 +1,330 @@
+package ro.ccms.repository.wal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of entity changes.
+ * <p>
+ * A record is its length, a CRC32 of the length, a CRC32 of its body, then the body: operation, entity id and
+ * payload. The length has a checksum of its own so that a corrupted length is never trusted to tell where the
+ * log ends. On replay a torn last record, the write a crash interrupted, is cut off; a corrupted record followed
+ * by more of the log fails the replay instead, so that the valid records after it are not thrown away.
+ * Positions are counted in bytes appended since the log was opened, so they stay valid across truncations.
+ * <p>
+ * Once forcing the log to the disk has failed, whether the records are durable is unknown, so every later
+ * append and sync fails too, and the log has to be reopened and replayed.
+ */
+class WriteAheadLog implements AutoCloseable {
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+
+    private static final int HEADER_BYTES = Integer.BYTES * 3;
+    private static final int BODY_HEADER_BYTES = 1 + Long.BYTES;
+
+    private final FileChannel channel;
+    private final SyncPolicy syncPolicy;
+    private final ScheduledExecutorService syncExecutor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition syncDone = lock.newCondition();
+    private long writtenPosition;
+    private long syncedPosition;
+    private boolean syncing;
+    private long fileSize;
+    private long syncCount;
+    private IOException syncFailure;
+
+    /**
+     * Receives the records of the log, in order, during a replay.
+     */
+    interface RecordHandler {
+        void apply(byte operation, long id, DataInput payload) throws IOException;
+    }
+
+    WriteAheadLog(Path path, SyncPolicy syncPolicy, long syncIntervalMillis) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.syncPolicy = syncPolicy;
+        if (syncPolicy == SyncPolicy.INTERVAL) {
+            syncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "wal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncExecutor.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis, syncIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            syncExecutor = null;
+        }
+    }
+
+    /**
+     * Replays every valid record, then cuts off a torn last record so that new records follow the last valid
+     * one. Must be called before the first append.
+     * <p>
+     * The last record is torn when its header is cut short, when its checked length runs past the end of the file,
+     * when it is the last one in the file and its checksum does not match, or when the rest of the file is zeros,
+     * as left by a crash after the file grew. A length whose checksum does not match fails the replay, since where
+     * its record ends is unknown.
+     *
+     * @return the number of replayed records.
+     * @throws IOException if a record before the last one is corrupted; the log is then left as it is.
+     */
+    long replay(RecordHandler handler) throws IOException {
+        long fileEnd = channel.size();
+        long validSize = 0;
+        long records = 0;
+        channel.position(0);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        CRC32 crc = new CRC32();
+        while (validSize < fileEnd) {
+            long remaining = fileEnd - validSize;
+            if (remaining < HEADER_BYTES) {
+                break;
+            }
+            int length = in.readInt();
+            int lengthChecksum = in.readInt();
+            int checksum = in.readInt();
+            if (length == 0 && lengthChecksum == 0 && checksum == 0 && isRestZero(in)) {
+                break;
+            }
+            if (lengthChecksum != lengthChecksum(crc, length)) {
+                throw corrupted(validSize, fileEnd, "length checksum mismatch");
+            }
+            if (length > remaining - HEADER_BYTES) {
+                break;
+            }
+            if (length < BODY_HEADER_BYTES) {
+                throw corrupted(validSize, fileEnd, "invalid record length " + length);
+            }
+            byte[] body = new byte[length];
+            in.readFully(body);
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != checksum) {
+                if (validSize + HEADER_BYTES + length == fileEnd) {
+                    break;
+                }
+                throw corrupted(validSize, fileEnd, "checksum mismatch");
+            }
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+            handler.apply(record.readByte(), record.readLong(), record);
+            validSize += HEADER_BYTES + body.length;
+            records++;
+        }
+        if (validSize < fileEnd) {
+            System.err.println("Write-ahead log: discarding " + (fileEnd - validSize) + " bytes of a torn record.");
+            channel.truncate(validSize);
+        }
+        channel.position(validSize);
+        fileSize = validSize;
+        return records;
+    }
+
+    private static int lengthChecksum(CRC32 crc, int length) {
+        crc.reset();
+        crc.update(ByteBuffer.allocate(Integer.BYTES).putInt(0, length));
+        return (int) crc.getValue();
+    }
+
+    private static boolean isRestZero(DataInputStream in) throws IOException {
+        for (int b; (b = in.read()) != -1; ) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static IOException corrupted(long position, long fileEnd, String reason) {
+        return new IOException("Write-ahead log is corrupted at byte " + position + " of " + fileEnd + ": " + reason
+                + ". The records after it were not replayed and the log was left untouched. ");
+    }
+
+    /**
+     * Writes a record at the end of the log, without waiting for it to reach the disk.
+     *
+     * @return the position the log must be synced up to for the record to be durable.
+     * @throws IOException also if an earlier sync failed.
+     */
+    long append(byte operation, long id, byte[] payload) throws IOException {
+        int length = BODY_HEADER_BYTES + payload.length;
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + length);
+        record.position(HEADER_BYTES);
+        record.put(operation).putLong(id).put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_BYTES, length);
+        int checksum = (int) crc.getValue();
+        record.putInt(0, length).putInt(Integer.BYTES, lengthChecksum(crc, length))
+                .putInt(Integer.BYTES * 2, checksum);
+        record.flip();
+
+        lock.lock();
+        try {
+            checkSynced();
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            fileSize += record.limit();
+            writtenPosition += record.limit();
+            return writtenPosition;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Under {@link SyncPolicy#ALWAYS}, waits until the log is on the disk up to {@code position}.
+     * The first waiting thread forces the log for everybody who appended before it started.
+     *
+     * @throws IOException also if an earlier sync failed.
+     */
+    void awaitDurable(long position) throws IOException {
+        if (syncPolicy != SyncPolicy.ALWAYS) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (syncedPosition < position) {
+                checkSynced();
+                if (syncing) {
+                    syncDone.awaitUninterruptibly();
+                } else {
+                    syncLocked();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces everything appended so far to the disk.
+     *
+     * @throws IOException also if an earlier sync failed.
+     */
+    void sync() throws IOException {
+        lock.lock();
+        try {
+            while (syncing) {
+                syncDone.awaitUninterruptibly();
+            }
+            checkSynced();
+            if (syncedPosition < writtenPosition) {
+                syncLocked();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Empties the log once its records are covered by a durable snapshot.
+     */
+    void truncate() throws IOException {
+        lock.lock();
+        try {
+            while (syncing) {
+                syncDone.awaitUninterruptibly();
+            }
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+            fileSize = 0;
+            syncedPosition = writtenPosition;
+            syncDone.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long size() {
+        lock.lock();
+        try {
+            return fileSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getSyncCount() {
+        lock.lock();
+        try {
+            return syncCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (syncExecutor != null) {
+            syncExecutor.shutdownNow();
+        }
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Forces the log with the lock released, so that other threads keep appending meanwhile.
+     * Must be called while holding the lock and no other sync is running.
+     */
+    private void syncLocked() throws IOException {
+        long target = writtenPosition;
+        syncing = true;
+        lock.unlock();
+        IOException failure = null;
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } finally {
+            lock.lock();
+            syncing = false;
+            if (failure != null && syncFailure == null) {
+                syncFailure = failure;
+            }
+            syncDone.signalAll();
+        }
+        syncedPosition = Math.max(syncedPosition, target);
+        syncCount++;
+    }
+
+    /**
+     * Must be called while holding the lock.
+     *
+     * @throws IOException if a sync has failed.
+     */
+    private void checkSynced() throws IOException {
+        if (syncFailure != null) {
+            throw new IOException("Write-ahead log sync failed, the records since the last sync may be lost. ",
+                    syncFailure);
+        }
+    }
+
+    // The failure is recorded by syncLocked and fails the next append or sync.
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException ignored) {
+        }
+    }
+}
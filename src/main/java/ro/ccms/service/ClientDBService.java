@@ -2,21 +2,26 @@ package ro.ccms.service;
 
 import ro.ccms.domain.Client;
 import ro.ccms.domain.exceptions.ClientNotFoundException;
-import ro.ccms.repository.ClientDBRepository;
+import ro.ccms.repository.BatchLoader;
 import ro.ccms.repository.Repository;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.stream.Stream;
 
 public class ClientDBService {
     private Repository<Long, Client> repository;
+    // Combines the lookups by id made at the same time into one query.
+    private final BatchLoader<Long, Client> loader;
 
-    public ClientDBService(ClientDBRepository repository) {
+    public ClientDBService(Repository<Long, Client> repository) {
         this.repository = repository;
+        this.loader = new BatchLoader<>(repository);
     }
 
     /**
@@ -28,6 +33,16 @@ public class ClientDBService {
         repository.save(client);
     }
 
+    /**
+     * Adds all the given clients to the repository in batches, within a single transaction
+     *
+     * @param clients must not be null
+     * @return the added clients
+     */
+    public Iterable<Client> addClients(Iterable<Client> clients) {
+        return repository.saveAll(clients);
+    }
+
     /**
      * Retrieve all the Clients from the repository
      */
@@ -36,13 +51,34 @@ public class ClientDBService {
     }
 
     /**
-     * Retrieve the client with the give {@code id} from the repository
+     * Stream all the Clients from the repository, row by row. The stream must be closed after use
+     *
+     * @return a stream of all the clients
+     */
+    public Stream<Client> streamAllClients() {
+        return repository.streamAll();
+    }
+
+    /**
+     * Retrieve a page of Clients ordered by id
+     *
+     * @param afterId the id of the last client of the previous page, null for the first page
+     * @param limit   the maximum number of clients in the page
+     * @return the clients of the requested page
+     */
+    public List<Client> getClientsPage(Long afterId, int limit) {
+        return repository.findPage(afterId, limit);
+    }
+
+    /**
+     * Retrieve the client with the give {@code id} from the repository; lookups made at the same time
+     * are combined into one query
      *
      * @param id must not be null
      * @return the request client entity
      */
     public Client getClientById(Long id) {
-        Optional<Client> clientOptional = repository.findOne(id);
+        Optional<Client> clientOptional = loader.load(id);
         if (clientOptional.isPresent()) {
             return clientOptional.get();
         } else {
@@ -50,6 +86,47 @@ public class ClientDBService {
         }
     }
 
+    /**
+     * Retrieve the client with the give {@code id} from the repository with a query of its own, on the
+     * connection of the current transaction if there is one
+     *
+     * @param id must not be null
+     * @return the request client entity
+     */
+    public Client getClientByIdDirect(Long id) {
+        return repository.findOne(id)
+                .orElseThrow(() -> new ClientNotFoundException("There is no Client with Id: " + id));
+    }
+
+    /**
+     * Retrieve the clients with the given {@code ids} from the repository, in lookups shared with the
+     * concurrent ones
+     *
+     * @param ids must not be null
+     * @return the requested clients, mapped by their id
+     * @throws ClientNotFoundException if one of the Clients is not found in the repository
+     */
+    public Map<Long, Client> getClientsByIds(Collection<Long> ids) {
+        Map<Long, Client> clients = findClientsByIds(ids);
+        for (Long id : ids) {
+            if (!clients.containsKey(id)) {
+                throw new ClientNotFoundException("There is no Client with Id: " + id);
+            }
+        }
+        return clients;
+    }
+
+    /**
+     * Retrieve the existing clients among the given {@code ids}, in lookups shared with the concurrent ones;
+     * missing ids are left out
+     *
+     * @param ids must not be null
+     * @return the found clients, mapped by their id
+     */
+    public Map<Long, Client> findClientsByIds(Collection<Long> ids) {
+        return loader.loadAll(ids);
+    }
+
     /**
      * Updated the given {@code client}
      *
@@ -59,13 +136,23 @@ public class ClientDBService {
         repository.update(client);
     }
 
+    /**
+     * Updates all the given clients in batches, within a single transaction
+     *
+     * @param clients must not be null
+     * @return the updated clients
+     */
+    public Iterable<Client> updateClients(Iterable<Client> clients) {
+        return repository.updateAll(clients);
+    }
+
     /**
      * Delete Client by given id
      *
      * @param id must not be null
      */
     public void deleteClientById(Long id) {
-        Optional<Client> clientToDelete = repository.delete(id);
+        Optional<Client> clientToDelete = deleteClient(id);
         if (clientToDelete.isPresent()) {
             System.out.println("Deleted client: " + clientToDelete.get());
         } else {
@@ -73,6 +160,26 @@ public class ClientDBService {
         }
     }
 
+    /**
+     * Delete Client by given id
+     *
+     * @param id must not be null
+     * @return the deleted client, empty if there is no client with the given id
+     */
+    public Optional<Client> deleteClient(Long id) {
+        return repository.delete(id);
+    }
+
+    /**
+     * Delete all the Clients with the given ids
+     *
+     * @param ids must not be null
+     * @return the number of deleted clients
+     */
+    public int deleteClientsById(Iterable<Long> ids) {
+        return repository.deleteAllById(ids);
+    }
+
     /**
      * Filter the Clients by a given String s
      *
@@ -80,9 +187,9 @@ public class ClientDBService {
      * @return a set of filtered Clients
      */
     public Set<Client> filterClientsByKeyword(String s) {
-        Iterable<Client> clients = repository.findAll();
-        return StreamSupport.stream(clients.spliterator(), false).filter(client -> client.getLastName()
-                .contains(s)).collect(Collectors.toSet());
+        try (Stream<Client> clients = repository.streamAll()) {
+            return clients.filter(client -> client.getLastName().contains(s)).collect(Collectors.toSet());
+        }
     }
 
     /**
@@ -91,11 +198,12 @@ public class ClientDBService {
      * @return Map report of LastName, isSubscribe
      */
     public Map<String, Boolean> generateClientsReport() {
-        Iterable<Client> clients = getAllClients();
         Map<String, Boolean> clientsReport = new HashMap<>();
-        clients.forEach(client -> {
-            clientsReport.put(client.getLastName(), client.isSubscribe());
-        });
+        try (Stream<Client> clients = streamAllClients()) {
+            clients.forEach(client -> {
+                clientsReport.put(client.getLastName(), client.isSubscribe());
+            });
+        }
         return clientsReport;
     }
 }
@@ -3,19 +3,25 @@ package ro.ccms.service;
 import ro.ccms.domain.Movie;
 import ro.ccms.domain.exceptions.MovieNotFoundException;
 import ro.ccms.domain.exceptions.MovieRentalsException;
-import ro.ccms.repository.MovieDBRepository;
+import ro.ccms.repository.BatchLoader;
 import ro.ccms.repository.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.stream.Stream;
 
 public class MovieDBService {
     private Repository<Long, Movie> repository;
+    // Combines the lookups by id made at the same time into one query.
+    private final BatchLoader<Long, Movie> loader;
 
-    public MovieDBService(MovieDBRepository repository) {
+    public MovieDBService(Repository<Long, Movie> repository) {
         this.repository = repository;
+        this.loader = new BatchLoader<>(repository);
     }
 
     /**
@@ -27,6 +33,16 @@ public class MovieDBService {
         repository.save(movie);
     }
 
+    /**
+     * Adds all the given movies to the database in batches, within a single transaction.
+     *
+     * @param movies must not be null.
+     * @return the added movies.
+     */
+    public Iterable<Movie> addMovies(Iterable<Movie> movies) {
+        return repository.saveAll(movies);
+    }
+
     /**
      * Retrieve all the Movies from the repository.
      *
@@ -37,14 +53,36 @@ public class MovieDBService {
     }
 
     /**
-     * Retrieve the movie with the given {@code id} from the repository.
+     * Stream all the Movies from the repository, row by row.
+     * The stream must be closed after use.
+     *
+     * @return a stream of all the movies.
+     */
+    public Stream<Movie> streamAllMovies() {
+        return repository.streamAll();
+    }
+
+    /**
+     * Retrieve a page of movies ordered by id.
+     *
+     * @param afterId the id of the last movie of the previous page, null for the first page.
+     * @param limit   the maximum number of movies in the page.
+     * @return the movies of the requested page.
+     */
+    public List<Movie> getMoviesPage(Long afterId, int limit) {
+        return repository.findPage(afterId, limit);
+    }
+
+    /**
+     * Retrieve the movie with the given {@code id} from the repository; lookups made at the same time
+     * are combined into one query.
      *
      * @param id must not be null.
      * @return the requested movie entity.
      * @throws MovieRentalsException if the Movie is not found in the Repository.
      */
     public Movie getMovieById(Long id) {
-        Optional<Movie> movieOptional = repository.findOne(id);
+        Optional<Movie> movieOptional = loader.load(id);
         if (movieOptional.isPresent()) {
             return movieOptional.get();
         } else {
@@ -52,6 +90,47 @@ public class MovieDBService {
         }
     }
 
+    /**
+     * Retrieve the movie with the given {@code id} and lock it until the end of the current transaction.
+     *
+     * @param id must not be null.
+     * @return the requested movie entity.
+     * @throws MovieNotFoundException if the Movie is not found in the Repository.
+     */
+    public Movie getMovieByIdForUpdate(Long id) {
+        return repository.findOneForUpdate(id)
+                .orElseThrow(() -> new MovieNotFoundException("There is no Movie with Id: " + id + ". "));
+    }
+
+    /**
+     * Retrieve the movies with the given {@code ids} from the repository, in lookups shared with the
+     * concurrent ones.
+     *
+     * @param ids must not be null.
+     * @return the requested movies, mapped by their id.
+     * @throws MovieNotFoundException if one of the Movies is not found in the Repository.
+     */
+    public Map<Long, Movie> getMoviesByIds(Collection<Long> ids) {
+        Map<Long, Movie> movies = findMoviesByIds(ids);
+        for (Long id : ids) {
+            if (!movies.containsKey(id)) {
+                throw new MovieNotFoundException("There is no Movie with Id: " + id + ". ");
+            }
+        }
+        return movies;
+    }
+
+    /**
+     * Retrieve the existing movies among the given {@code ids}, in lookups shared with the concurrent ones;
+     * missing ids are left out.
+     *
+     * @param ids must not be null.
+     * @return the found movies, mapped by their id.
+     */
+    public Map<Long, Movie> findMoviesByIds(Collection<Long> ids) {
+        return loader.loadAll(ids);
+    }
+
     /**
      * Delete movie by given {@code id}.
      *
@@ -60,7 +139,7 @@ public class MovieDBService {
      *                               or if there are database connection problems.
      */
     public void deleteMovieById(Long id) {
-            Optional<Movie> movieToDelete = repository.delete(id);
+            Optional<Movie> movieToDelete = deleteMovie(id);
             if (movieToDelete.isPresent()) {
                 System.out.println("SUCCESS");
                 System.out.println("Deleted movie:" + movieToDelete.get());
@@ -69,6 +148,16 @@ public class MovieDBService {
             }
     }
 
+    /**
+     * Delete movie by given {@code id}.
+     *
+     * @param id must not be null.
+     * @return the deleted movie, empty if there is no movie with the given id.
+     */
+    public Optional<Movie> deleteMovie(Long id) {
+        return repository.delete(id);
+    }
+
     /**
      * Updated the given {@code movie}.
      *
@@ -78,6 +167,26 @@ public class MovieDBService {
         repository.update(movie);
     }
 
+    /**
+     * Updates all the given movies in batches, within a single transaction.
+     *
+     * @param movies must not be null.
+     * @return the updated movies.
+     */
+    public Iterable<Movie> updateMovies(Iterable<Movie> movies) {
+        return repository.updateAll(movies);
+    }
+
+    /**
+     * Delete all the movies with the given {@code ids}.
+     *
+     * @param ids must not be null.
+     * @return the number of deleted movies.
+     */
+    public int deleteMoviesById(Iterable<Long> ids) {
+        return repository.deleteAllById(ids);
+    }
+
     /**
      * Filter the Movies by a given {@code s}.
      *
@@ -87,10 +196,8 @@ public class MovieDBService {
      *                               or if there are database connection problems.
      */
     public Set<Movie> filterMoviesByKeyword(String s) {
-        try {
-            Iterable<Movie> movies = repository.findAll();
-            return StreamSupport.stream(movies.spliterator(), false)
-                    .filter(movie -> movie.getTitle().contains(s)).collect(Collectors.toSet());
+        try (Stream<Movie> movies = repository.streamAll()) {
+            return movies.filter(movie -> movie.getTitle().contains(s)).collect(Collectors.toSet());
         } catch (MovieRentalsException e) {
             throw new MovieRentalsException("Service exception. " + e.getMessage());
         }
@@ -1,26 +1,100 @@
 package ro.ccms.service;
 
 import ro.ccms.domain.*;
+import ro.ccms.domain.exceptions.MovieNotAvailableException;
 import ro.ccms.domain.exceptions.MovieRentalsException;
-import ro.ccms.repository.RentalDBRepository;
-import ro.ccms.repository.Repository;
+import ro.ccms.domain.exceptions.RentalNotFoundException;
+import ro.ccms.repository.CopyFormat;
+import ro.ccms.repository.GroupCommitWriter;
+import ro.ccms.repository.RentalRepository;
+import ro.ccms.repository.SerialTransactionManager;
+import ro.ccms.repository.TransactionManager;
+import ro.ccms.repository.memory.RentalColumnStore;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.function.Predicate;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class RentalDBService {
-    private Repository<Long, Rental> repository;
+    private RentalRepository repository;
     private MovieDBService movieService;
     private ClientDBService clientService;
+    private final RentalColumnStore columnStore;
+    private final TransactionManager transactionManager;
+    private volatile GroupCommitWriter<Long, Rental> rentalWriter;
+    // Whether the rankings and reports are computed from the column store instead of the repository.
+    private volatile boolean columnStoreLoaded;
 
 
-    public RentalDBService(RentalDBRepository repository,
+    public RentalDBService(RentalRepository repository,
                            MovieDBService movieService,
                            ClientDBService clientService) {
+        this(repository, movieService, clientService, new RentalColumnStore());
+    }
+
+    public RentalDBService(RentalRepository repository,
+                           MovieDBService movieService,
+                           ClientDBService clientService,
+                           RentalColumnStore columnStore) {
+        this(repository, movieService, clientService, columnStore, new SerialTransactionManager());
+    }
+
+    /**
+     * @param transactionManager runs the multi-step operations, such as {@link #checkout(Long, Long)};
+     *                           must run them on the connections of the repositories to make them atomic.
+     */
+    public RentalDBService(RentalRepository repository,
+                           MovieDBService movieService,
+                           ClientDBService clientService,
+                           RentalColumnStore columnStore,
+                           TransactionManager transactionManager) {
+        if (transactionManager == null) {
+            throw new IllegalArgumentException("Transaction manager must not be null.");
+        }
         this.repository = repository;
         this.movieService = movieService;
         this.clientService = clientService;
+        this.columnStore = columnStore;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Bulk-loads all rental transactions into the off-heap column store; until the next change made through
+     * this service, the rankings and reports are computed from the store instead of querying the repository.
+     *
+     * @return the number of loaded rental transactions.
+     */
+    public int loadRentalAnalytics() {
+        columnStoreLoaded = false;
+        columnStore.clear();
+        int loaded = columnStore.load(repository.streamAll());
+        columnStoreLoaded = true;
+        return loaded;
+    }
+
+    /**
+     * @return the column store the rankings and reports are computed from, once loaded.
+     */
+    public RentalColumnStore getRentalAnalytics() {
+        return columnStore;
+    }
+
+    /**
+     * Sets the writer {@link #rentAMovieAsync(Rental)} groups the rentals with; it must save to the repository
+     * of this service.
+     *
+     * @param rentalWriter null to save every rental on its own.
+     */
+    public void setRentalWriter(GroupCommitWriter<Long, Rental> rentalWriter) {
+        this.rentalWriter = rentalWriter;
     }
 
     /**
@@ -28,14 +102,14 @@ public class RentalDBService {
      *
      * @param id must not be null.
      * @return the requested movie entity.
-     * @throws MovieRentalsException if the ID is not found in the Repository.
+     * @throws RentalNotFoundException if the ID is not found in the Repository.
      */
     public Rental getRentalById(Long id) {
         Optional<Rental> rentalOptional = repository.findOne(id);
         if (rentalOptional.isPresent()) {
             return rentalOptional.get();
         } else {
-            throw new MovieRentalsException("Rental transaction with ID " + id + " not found.");
+            throw new RentalNotFoundException("Rental transaction with ID " + id + " not found.");
         }
     }
 
@@ -48,6 +122,62 @@ public class RentalDBService {
         return repository.findAll();
     }
 
+    /**
+     * Bulk-load rental transactions from a file; on a database with the COPY protocol, streaming the file
+     * straight to the database.
+     *
+     * @param file   rows of movie id, client id, rental charge, rental date and due date.
+     * @param format the format of the file.
+     * @return the number of loaded rental transactions.
+     * @throws MovieRentalsException if the file can not be read or a row is invalid.
+     */
+    public long importRentals(Path file, CopyFormat format) {
+        discardRentalAnalytics();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            return repository.copyIn(in, format);
+        } catch (IOException e) {
+            throw new MovieRentalsException("Rentals file exception. ", e);
+        }
+    }
+
+    /**
+     * Bulk-export all rental transactions to a file; on a database with the COPY protocol, streaming the rows
+     * straight to the file.
+     *
+     * @param file   the file to write, replaced if it exists.
+     * @param format the format of the file.
+     * @return the number of exported rental transactions.
+     * @throws MovieRentalsException if the file can not be written.
+     */
+    public long exportRentals(Path file, CopyFormat format) {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024)) {
+            return repository.copyOut(out, format);
+        } catch (IOException e) {
+            throw new MovieRentalsException("Rentals file exception. ", e);
+        }
+    }
+
+    /**
+     * Stream all rental transactions, row by row, without loading them all in memory.
+     * The stream must be closed after use.
+     *
+     * @return a stream of all the rental entities.
+     */
+    public Stream<Rental> streamAllRentals() {
+        return repository.streamAll();
+    }
+
+    /**
+     * Retrieve a page of rental transactions ordered by id.
+     *
+     * @param afterId the id of the last rental of the previous page, null for the first page.
+     * @param limit   the maximum number of rentals in the page.
+     * @return the rental entities of the requested page.
+     */
+    public List<Rental> getRentalsPage(Long afterId, int limit) {
+        return repository.findPage(afterId, limit);
+    }
+
     /**
      * Creates a new rental entity, representing a rent a movie transaction.
      *
@@ -55,20 +185,104 @@ public class RentalDBService {
      * @throws MovieRentalsException if Movie or Client ID is not found in the repositories.
      */
     public void rentAMovie(Rental rental) {
+        discardRentalAnalytics();
         repository.save(rental);
     }
 
+    /**
+     * Creates a new rental entity without waiting for it to be saved. With a rental writer, the rentals
+     * requested at about the same time are inserted and committed together; otherwise the rental is saved
+     * before returning.
+     *
+     * @param rental must not be null.
+     * @return a future completed with the saved rental, or completed exceptionally if it can not be saved.
+     */
+    public CompletableFuture<Rental> rentAMovieAsync(Rental rental) {
+        if (rental == null) {
+            throw new IllegalArgumentException("Rental transaction must not be null.");
+        }
+        discardRentalAnalytics();
+        GroupCommitWriter<Long, Rental> writer = rentalWriter;
+        if (writer != null) {
+            return writer.submit(rental);
+        }
+        try {
+            repository.save(rental);
+            return CompletableFuture.completedFuture(rental);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Rents a movie to a client in a single transaction: checks the client, locks the movie so that it can not be
+     * rented twice at the same time, records the rental for a day at the rental price of the movie, and marks
+     * the movie unavailable. Nothing is changed if any step fails.
+     *
+     * @param clientId must not be null.
+     * @param movieId  must not be null.
+     * @return the created rental entity.
+     * @throws MovieRentalsException      if the client or the movie is not found.
+     * @throws MovieNotAvailableException if the movie is already rented.
+     */
+    public Rental checkout(Long clientId, Long movieId) {
+        if (clientId == null || movieId == null) {
+            throw new IllegalArgumentException("Client and movie id must not be null.");
+        }
+
+        Rental rental = transactionManager.inTransaction(() -> {
+            // Not batched: the check must run on the connection of this transaction.
+            clientService.getClientByIdDirect(clientId);
+            Movie movie = movieService.getMovieByIdForUpdate(movieId);
+            if (!movie.isAvailable()) {
+                throw new MovieNotAvailableException("Movie with Id " + movieId + " is not available. ");
+            }
+            LocalDateTime rentalDate = LocalDateTime.now();
+            Rental created = new Rental(movieId, clientId, movie.getRentalPrice(), rentalDate,
+                    rentalDate.plusDays(1));
+            repository.save(created);
+            movie.setAvailable(false);
+            movieService.updateMovie(movie);
+            return created;
+        });
+        discardRentalAnalytics();
+        return rental;
+    }
+
+    /**
+     * Creates many rental entities in batches, within a single transaction.
+     *
+     * @param rentals must not be null.
+     * @return the created rental entities.
+     */
+    public Iterable<Rental> addRentals(Iterable<Rental> rentals) {
+        discardRentalAnalytics();
+        return repository.saveAll(rentals);
+    }
+
     public void updateRentalTransaction(Rental rental) {
+        discardRentalAnalytics();
         repository.update(rental);
     }
 
+    /**
+     * Updates many rental transactions in batches, within a single transaction.
+     *
+     * @param rentals must not be null.
+     * @return the updated rental entities.
+     */
+    public Iterable<Rental> updateRentalTransactions(Iterable<Rental> rentals) {
+        discardRentalAnalytics();
+        return repository.updateAll(rentals);
+    }
+
     /**
      * Delete a rental transaction entity.
      *
      * @param id must not be null.
      */
     public void deleteMovieRental(Long id) {
-        Optional<Rental> rentalOptional = repository.delete(id);
+        Optional<Rental> rentalOptional = deleteRental(id);
         if (rentalOptional.isPresent()) {
             System.out.println("SUCCESS");
             System.out.println("Deleted movie:" + rentalOptional.get());
@@ -77,45 +291,58 @@ public class RentalDBService {
         }
     }
 
+    /**
+     * Delete a rental transaction entity.
+     *
+     * @param id must not be null.
+     * @return the deleted rental, empty if there is no rental with the given id.
+     */
+    public Optional<Rental> deleteRental(Long id) {
+        discardRentalAnalytics();
+        return repository.delete(id);
+    }
+
+    /**
+     * Delete many rental transactions.
+     *
+     * @param ids must not be null.
+     * @return the number of deleted rental transactions.
+     */
+    public int deleteMovieRentals(Iterable<Long> ids) {
+        discardRentalAnalytics();
+        return repository.deleteAllById(ids);
+    }
+
     /**
      * Sort movies by the number of rents in descending order.
      *
      * @return an ordered list of movie DTO(Movie, counter).
      */
     public Iterable<MovieRentalsDTO> moviesByRentNumber() {
-        Map<Long, Integer> mapMovieIdRentCounter = new HashMap<>();
-        List<MovieRentalsDTO> moviesByRentCounterDesc = new ArrayList<>();
-
-        Iterable<Rental> rentals = getAllRentals();
-        for (Rental r : rentals) {
-            Integer counter = 0;
-            for (Rental rental : rentals) {
-                if (rental.getMovieId() == r.getMovieId()) {
-                    counter++;
-                }
-            }
-            mapMovieIdRentCounter.put(r.getMovieId(), counter);
-        }
-
-        mapMovieIdRentCounter.forEach((k, v) -> {
-            MovieRentalsDTO movieDTO = new MovieRentalsDTO(movieService.getMovieById(k), v);
-            if (moviesByRentCounterDesc.isEmpty()) {
-                moviesByRentCounterDesc.add(movieDTO);
-            } else {
-                boolean flag = false;
-                for (MovieRentalsDTO m : moviesByRentCounterDesc) {
-                    if (m.getRentCounter() <= movieDTO.getRentCounter()) {
-                        moviesByRentCounterDesc.add(moviesByRentCounterDesc.indexOf(m), movieDTO);
-                        flag = true;
-                        break;
-                    }
-                }
-                if (!flag) {
-                    moviesByRentCounterDesc.add(movieDTO);
-                }
+        return moviesByRentNumber(null);
+    }
+
+    /**
+     * Sort movies by the number of rents in descending order; counting and sorting are done by the repository,
+     * or from the column store once {@link #loadRentalAnalytics()} was called.
+     *
+     * @param limit the maximum number of movies to return, null for all of them.
+     * @return an ordered list of movie DTO(Movie, counter).
+     */
+    public List<MovieRentalsDTO> moviesByRentNumber(Integer limit) {
+        if (!columnStoreLoaded) {
+            return repository.findMoviesByRentNumber(limit);
+        }
+        RentalColumnStore.RentCounts counts = columnStore.countByMovie(limit);
+        Map<Long, Movie> movies = movieService.findMoviesByIds(idsOf(counts));
+        List<MovieRentalsDTO> ranking = new ArrayList<>(counts.size());
+        for (int i = 0; i < counts.size(); i++) {
+            Movie movie = movies.get(counts.idAt(i));
+            if (movie != null) {
+                ranking.add(new MovieRentalsDTO(movie, counts.countAt(i)));
             }
-        });
-        return moviesByRentCounterDesc;
+        }
+        return ranking;
     }
 
     /**
@@ -124,39 +351,30 @@ public class RentalDBService {
      * @return an ordered list of client DTO(Client, counter).
      */
     public List<ClientRentalsDTO> clientsByRentedMovies() {
-        Map<Long, Integer> mapClientIdRentedMovies = new HashMap<>();
-        List<ClientRentalsDTO> orderedClientsByRentedMovies = new ArrayList<>();
-        Iterable<Rental> rentals = getAllRentals();
-        for (Rental r : rentals) {
-            Long clientId = r.getClientId();
-            Integer counter = 0;
-            for (Rental rental : rentals) {
-                if (rental.getClientId() == clientId) {
-                    counter++;
-                }
-            }
-            mapClientIdRentedMovies.put(clientId, counter);
-        }
-
-        mapClientIdRentedMovies.forEach((k, v) -> {
-            ClientRentalsDTO clientDTO = new ClientRentalsDTO(clientService.getClientById(k), v);
-            if (orderedClientsByRentedMovies.isEmpty()) {
-                orderedClientsByRentedMovies.add(clientDTO);
-            } else {
-                boolean flag = false;
-                for (ClientRentalsDTO c : orderedClientsByRentedMovies) {
-                    if (c.getRentCounter() <= clientDTO.getRentCounter()) {
-                        orderedClientsByRentedMovies.add(orderedClientsByRentedMovies.indexOf(c), clientDTO);
-                        flag = true;
-                        break;
-                    }
-                }
-                if (!flag) {
-                    orderedClientsByRentedMovies.add(clientDTO);
-                }
+        return clientsByRentedMovies(null);
+    }
+
+    /**
+     * Sort clients by the number of rented movies in descending order; counting and sorting are done by the repository,
+     * or from the column store once {@link #loadRentalAnalytics()} was called.
+     *
+     * @param limit the maximum number of clients to return, null for all of them.
+     * @return an ordered list of client DTO(Client, counter).
+     */
+    public List<ClientRentalsDTO> clientsByRentedMovies(Integer limit) {
+        if (!columnStoreLoaded) {
+            return repository.findClientsByRentedMovies(limit);
+        }
+        RentalColumnStore.RentCounts counts = columnStore.countByClient(limit);
+        Map<Long, Client> clients = clientService.findClientsByIds(idsOf(counts));
+        List<ClientRentalsDTO> ranking = new ArrayList<>(counts.size());
+        for (int i = 0; i < counts.size(); i++) {
+            Client client = clients.get(counts.idAt(i));
+            if (client != null) {
+                ranking.add(new ClientRentalsDTO(client, counts.countAt(i)));
             }
-        });
-        return orderedClientsByRentedMovies;
+        }
+        return ranking;
     }
 
     /**
@@ -171,29 +389,32 @@ public class RentalDBService {
             throw new IllegalArgumentException("Id must not be null. ");
         }
 
-        List<Movie> moviesList = new ArrayList<>();
-        List<LocalDateTime> rentDates = new ArrayList<>();
-        float totalCharges = 0.00f;
-        int counter = 0;
-
         Client client = clientService.getClientById(id);
-
-        Predicate<Rental> clientIdFilter = rental -> rental.getClientId() == id;
-        repository.findAll().forEach(rental -> {
-            if (clientIdFilter.test(rental)) {
-                moviesList.add(movieService.getMovieById(rental.getMovieId()));
-                rentDates.add(rental.getRentalDate());
-            }
+        if (!columnStoreLoaded) {
+            return repository.findRentReportByClient(client);
+        }
+        List<Long> movieIds = new ArrayList<>();
+        List<Float> charges = new ArrayList<>();
+        List<LocalDateTime> rentDates = new ArrayList<>();
+        columnStore.forEachRentalOfClient(id, (rentalId, movieId, clientId, rentalCharge, rentalDate, dueDate) -> {
+            movieIds.add(movieId);
+            charges.add(rentalCharge);
+            rentDates.add(RentalColumnStore.toDateTime(rentalDate));
         });
 
-        for (Rental rental :
-                repository.findAll()) {
-            if (clientIdFilter.test(rental)) {
-                totalCharges += rental.getRentalCharge();
-                counter++;
+        Map<Long, Movie> movies = movieService.findMoviesByIds(new HashSet<>(movieIds));
+        List<Movie> moviesList = new ArrayList<>();
+        List<LocalDateTime> reportDates = new ArrayList<>();
+        float totalCharges = 0;
+        for (int i = 0; i < movieIds.size(); i++) {
+            Movie movie = movies.get(movieIds.get(i));
+            if (movie != null) {
+                moviesList.add(movie);
+                reportDates.add(rentDates.get(i));
+                totalCharges += charges.get(i);
             }
         }
-        return new ClientRentReportDTO(client, moviesList, totalCharges, rentDates, counter);
+        return new ClientRentReportDTO(client, moviesList, totalCharges, reportDates, reportDates.size());
     }
 
     /**
@@ -208,28 +429,46 @@ public class RentalDBService {
             throw new MovieRentalsException("Id must not be null. ");
         }
 
-        List<Client> clientList = new ArrayList<>();
-        List<LocalDateTime> rentDates = new ArrayList<>();
-        float totalCharges = 0.00f;
-        int counter = 0;
-
         Movie movie = movieService.getMovieById(id);
-
-        Predicate<Rental> movieIdFilter = rental -> rental.getMovieId() == id;
-        repository.findAll().forEach(rental -> {
-            if (movieIdFilter.test(rental)) {
-                clientList.add(clientService.getClientById(rental.getClientId()));
-                rentDates.add(rental.getRentalDate());
-            }
+        if (!columnStoreLoaded) {
+            return repository.findRentReportByMovie(movie);
+        }
+        List<Long> clientIds = new ArrayList<>();
+        List<Float> charges = new ArrayList<>();
+        List<LocalDateTime> rentDates = new ArrayList<>();
+        columnStore.forEachRentalOfMovie(id, (rentalId, movieId, clientId, rentalCharge, rentalDate, dueDate) -> {
+            clientIds.add(clientId);
+            charges.add(rentalCharge);
+            rentDates.add(RentalColumnStore.toDateTime(rentalDate));
         });
 
-        for (Rental rental :
-                repository.findAll()) {
-            if (movieIdFilter.test(rental)) {
-                totalCharges += rental.getRentalCharge();
-                counter++;
+        Map<Long, Client> clients = clientService.findClientsByIds(new HashSet<>(clientIds));
+        List<Client> clientsList = new ArrayList<>();
+        List<LocalDateTime> reportDates = new ArrayList<>();
+        float totalCharges = 0;
+        for (int i = 0; i < clientIds.size(); i++) {
+            Client client = clients.get(clientIds.get(i));
+            if (client != null) {
+                clientsList.add(client);
+                reportDates.add(rentDates.get(i));
+                totalCharges += charges.get(i);
             }
         }
-        return new MovieRentReportDTO(movie, clientList, totalCharges, rentDates, counter);
+        return new MovieRentReportDTO(movie, clientsList, totalCharges, reportDates, reportDates.size());
+    }
+
+    private void discardRentalAnalytics() {
+        if (columnStoreLoaded) {
+            columnStoreLoaded = false;
+            columnStore.clear();
+        }
+    }
+
+    private static List<Long> idsOf(RentalColumnStore.RentCounts counts) {
+        List<Long> ids = new ArrayList<>(counts.size());
+        for (int i = 0; i < counts.size(); i++) {
+            ids.add(counts.idAt(i));
+        }
+        return ids;
     }
 }
@@ -0,0 +1,267 @@
+package ro.ccms.service;
+
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.exceptions.OperationTimeoutException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs service operations concurrently, each on its own virtual thread and within its own timeout, so that a
+ * slow operation only delays its own caller.
+ * <p>
+ * At most {@code maxConcurrentOperations} operations run at once, usually the size of the connection pool;
+ * the others wait for a slot, and that wait counts against their timeout. An operation that times out is
+ * interrupted: waiting for a slot, a connection or a lock that can be interrupted ends at once, and a blocked
+ * database read ends by closing its connection, which the pool then discards.
+ * <p>
+ * Writes are submitted with {@link #submitWrite} instead: their timeout only bounds the wait for a slot, and once
+ * started they run to their end. A write interrupted halfway may still commit, and its caller could not tell.
+ */
+public class ServiceExecutor implements AutoCloseable {
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final Semaphore slots;
+    private final Duration defaultTimeout;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong timedOutCount = new AtomicLong();
+
+    public ServiceExecutor(int maxConcurrentOperations) {
+        this(maxConcurrentOperations, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * @param maxConcurrentOperations the most operations running at once, must be positive.
+     * @param defaultTimeout          the timeout of the operations submitted without one, must be positive.
+     */
+    public ServiceExecutor(int maxConcurrentOperations, Duration defaultTimeout) {
+        if (maxConcurrentOperations <= 0) {
+            throw new IllegalArgumentException("Concurrent operations must be positive.");
+        }
+        if (defaultTimeout == null || defaultTimeout.isNegative() || defaultTimeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive.");
+        }
+        this.slots = new Semaphore(maxConcurrentOperations, true);
+        this.defaultTimeout = defaultTimeout;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("service-", 0).factory());
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "service-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs the operation within the default timeout.
+     *
+     * @see #submit(Supplier, Duration)
+     */
+    public <R> CompletableFuture<R> submit(Supplier<R> operation) {
+        return submit(operation, defaultTimeout);
+    }
+
+    /**
+     * Runs the operation on a virtual thread once a slot is free.
+     *
+     * @param operation must not be null.
+     * @param timeout   how long the operation may wait for a slot and run, must be positive.
+     * @return a future completed with the result of the operation, or exceptionally with its exception, or with
+     * an {@link OperationTimeoutException} when it did not finish in time. Dependent actions run on the
+     * thread of the operation, or on the timer thread on a timeout, and must not block.
+     */
+    public <R> CompletableFuture<R> submit(Supplier<R> operation, Duration timeout) {
+        return submit(operation, timeout, true);
+    }
+
+    /**
+     * Runs the write within the default timeout for a slot.
+     *
+     * @see #submitWrite(Supplier, Duration)
+     */
+    public <R> CompletableFuture<R> submitWrite(Supplier<R> operation) {
+        return submitWrite(operation, defaultTimeout);
+    }
+
+    /**
+     * Runs the write on a virtual thread once a slot is free, then lets it run to its end.
+     *
+     * @param operation must not be null.
+     * @param timeout   how long the write may wait for a slot, must be positive.
+     * @return a future completed with the result of the write, or exceptionally with its exception, or with an
+     * {@link OperationTimeoutException} when no slot was free in time, in which case the write did not run.
+     */
+    public <R> CompletableFuture<R> submitWrite(Supplier<R> operation, Duration timeout) {
+        return submit(operation, timeout, false);
+    }
+
+    private <R> CompletableFuture<R> submit(Supplier<R> operation, Duration timeout, boolean interruptible) {
+        if (operation == null) {
+            throw new IllegalArgumentException("Operation must not be null.");
+        }
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive.");
+        }
+        submittedCount.incrementAndGet();
+        CompletableFuture<R> result = new CompletableFuture<>();
+        long timeoutNanos = timeout.toNanos();
+        long deadline = System.nanoTime() + timeoutNanos;
+        Future<?> task = executor.submit(() -> run(operation, result, deadline, timeout));
+        if (!interruptible) {
+            return result;
+        }
+        ScheduledFuture<?> timeoutTask = timer.schedule(() -> {
+            if (timeOut(result, timeout)) {
+                task.cancel(true);
+            }
+        }, timeoutNanos, TimeUnit.NANOSECONDS);
+        result.whenComplete((value, failure) -> timeoutTask.cancel(false));
+        return result;
+    }
+
+    /**
+     * Runs the write within the default timeout for a slot and waits for its result.
+     *
+     * @return the result of the write.
+     * @throws OperationTimeoutException if no slot was free in time; the write did not run.
+     * @see #submitWrite(Supplier, Duration)
+     */
+    public <R> R callWrite(Supplier<R> operation) {
+        return join(submitWrite(operation));
+    }
+
+    /**
+     * Runs the operation within the default timeout and waits for its result.
+     *
+     * @see #call(Supplier, Duration)
+     */
+    public <R> R call(Supplier<R> operation) {
+        return call(operation, defaultTimeout);
+    }
+
+    /**
+     * Runs the operation on a virtual thread once a slot is free, and waits for its result.
+     *
+     * @param operation must not be null.
+     * @param timeout   how long the operation may wait for a slot and run, must be positive.
+     * @return the result of the operation.
+     * @throws OperationTimeoutException if the operation did not finish in time.
+     */
+    public <R> R call(Supplier<R> operation, Duration timeout) {
+        return join(submit(operation, timeout));
+    }
+
+    private static <R> R join(CompletableFuture<R> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new MovieRentalsException(e.getCause());
+        }
+    }
+
+    /**
+     * @return the number of operations running now.
+     */
+    public int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * @return the most operations that ran at once.
+     */
+    public int getMaxRunning() {
+        return maxRunning.get();
+    }
+
+    /**
+     * @return the number of operations waiting for a slot now.
+     */
+    public int getWaiting() {
+        return slots.getQueueLength();
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getTimedOutCount() {
+        return timedOutCount.get();
+    }
+
+    /**
+     * Stops accepting operations and waits for the submitted ones to finish or time out.
+     */
+    @Override
+    public void close() {
+        executor.close();
+        timer.shutdownNow();
+    }
+
+    private <R> void run(Supplier<R> operation, CompletableFuture<R> result, long deadline, Duration timeout) {
+        try {
+            if (result.isDone()) {
+                return;
+            }
+            if (!slots.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                timeOut(result, timeout);
+                return;
+            }
+        } catch (InterruptedException e) {
+            return;
+        }
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+            R value = operation.get();
+            if (result.complete(value)) {
+                completedCount.incrementAndGet();
+            }
+        } catch (RuntimeException | Error e) {
+            if (result.completeExceptionally(e)) {
+                failedCount.incrementAndGet();
+            }
+        } finally {
+            running.decrementAndGet();
+            slots.release();
+        }
+    }
+
+    private boolean timeOut(CompletableFuture<?> result, Duration timeout) {
+        if (result.completeExceptionally(new OperationTimeoutException(
+                "Operation timed out after " + timeout.toMillis() + " ms. "))) {
+            timedOutCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+}
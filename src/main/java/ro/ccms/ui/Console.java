@@ -3,6 +3,9 @@ package ro.ccms.ui;
 import ro.ccms.domain.*;
 import ro.ccms.domain.exceptions.MovieNotFoundException;
 import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.importer.CatalogImporter;
+import ro.ccms.importer.ImportReport;
+import ro.ccms.repository.CopyFormat;
 import ro.ccms.service.ClientDBService;
 import ro.ccms.service.MovieDBService;
 import ro.ccms.service.RentalDBService;
@@ -10,21 +13,29 @@ import ro.ccms.service.RentalDBService;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.function.BiFunction;
 
 public class Console {
+    private static final int PAGE_SIZE = 20;
+
     private MovieDBService movieService;
     private ClientDBService clientService;
     private RentalDBService rentalService;
+    private CatalogImporter importer;
     private Scanner scanner;
 
     public Console(MovieDBService movieService, ClientDBService clientService, RentalDBService rentalService) {
         this.movieService = movieService;
         this.clientService = clientService;
         this.rentalService = rentalService;
+        this.importer = new CatalogImporter(movieService, clientService);
         this.scanner = new Scanner(System.in);
     }
 
@@ -86,6 +97,9 @@ public class Console {
             System.out.println("7. Print Clients by Number of Rented Movies");
             System.out.println("8. Print Client Rent Report by ID");
             System.out.println("9. Print Movie Rent Report by ID");
+            System.out.println("10. Load Rentals into the Analytics Store");
+            System.out.println("11. Bulk Import Rentals from a File");
+            System.out.println("12. Bulk Export Rentals to a File");
             System.out.println("0. Back");
             System.out.print("\nEnter your option: ");
 
@@ -119,6 +133,15 @@ public class Console {
                     case 9:
                         this.handleMovieRentReport();
                         break;
+                    case 10:
+                        this.handleLoadRentalAnalytics();
+                        break;
+                    case 11:
+                        this.handleImportRentals();
+                        break;
+                    case 12:
+                        this.handleExportRentals();
+                        break;
                     case 0:
                         return;
                     default:
@@ -131,6 +154,54 @@ public class Console {
         }
     }
 
+    private void handleImportRentals() {
+        scanner.nextLine();
+        System.out.print("Enter the path of the file to import: ");
+        Path file = Path.of(scanner.nextLine().trim());
+        CopyFormat format = readCopyFormat();
+        try {
+            long imported = rentalService.importRentals(file, format);
+            System.out.println("Imported " + imported + " rent transactions.");
+        } catch (MovieRentalsException e) {
+            System.err.println("An error occurred: " + e.getMessage());
+        }
+    }
+
+    private void handleExportRentals() {
+        scanner.nextLine();
+        System.out.print("Enter the path of the file to export to: ");
+        Path file = Path.of(scanner.nextLine().trim());
+        CopyFormat format = readCopyFormat();
+        try {
+            long exported = rentalService.exportRentals(file, format);
+            System.out.println("Exported " + exported + " rent transactions to " + file);
+        } catch (MovieRentalsException e) {
+            System.err.println("An error occurred: " + e.getMessage());
+        }
+    }
+
+    private CopyFormat readCopyFormat() {
+        while (true) {
+            System.out.print("Enter the format (csv/binary): ");
+            String format = scanner.nextLine().trim();
+            try {
+                return CopyFormat.valueOf(format.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid format. Please enter csv or binary.");
+            }
+        }
+    }
+
+    private void handleLoadRentalAnalytics() {
+        try {
+            int loaded = rentalService.loadRentalAnalytics();
+            System.out.println("Loaded " + loaded + " rent transactions, "
+                    + rentalService.getRentalAnalytics().reservedBytes() / 1024 + " KB off-heap.");
+        } catch (MovieRentalsException e) {
+            System.err.println("An error occurred: " + e.getMessage());
+        }
+    }
+
     private void handleMovieRentReport() {
         Long id = null;
         while (id == null) {
@@ -245,61 +316,45 @@ public class Console {
 
     private void handleRentAMovie() {
         try {
-            Rental rental = readRentTransaction();
-            try {
-                rentalService.rentAMovie(rental);
-            } catch (IllegalArgumentException | MovieRentalsException e) {
-                System.err.println("An error occurred: " + e.getMessage());
-                e.printStackTrace();
-            }
-        } catch (MovieRentalsException e) {
+            Long clientId = readId("Enter Client ID: ");
+            Long movieId = readId("Enter Movie ID: ");
+            Rental rental = rentalService.checkout(clientId, movieId);
+            System.out.println("SUCCESS");
+            System.out.println("Rented movie: " + rental);
+        } catch (IllegalArgumentException | MovieRentalsException e) {
             System.err.println("An error occurred: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
     private Rental readRentTransaction() {
-        // Read Client ID
-        System.out.print("Enter Client ID: ");
-        Long clientId = null;
-        while (clientId == null) {
-            if (scanner.hasNextLong()) {
-                clientId = scanner.nextLong();
-            } else {
-                scanner.next();
-                System.err.println("Invalid input. Please enter a valid ID.");
-            }
-        }
-        if (clientService.getClientById(clientId) == null) {
-            throw new MovieRentalsException("Client not found in the Repository.");
-        }
+        Long clientId = readId("Enter Client ID: ");
+        clientService.getClientById(clientId);
+        Long movieId = readId("Enter Movie ID: ");
+        float rentalCharge = movieService.getMovieById(movieId).getRentalPrice();
+        LocalDateTime rentalDate = LocalDateTime.now();
+        LocalDateTime dueDate = rentalDate.plusDays(1);
 
-        // Read Movie ID
-        System.out.print("Enter Movie ID: ");
-        Long movieId = null;
-        while (movieId == null) {
+        return new Rental(movieId, clientId, rentalCharge, rentalDate, dueDate);
+    }
+
+    private Long readId(String prompt) {
+        System.out.print(prompt);
+        Long id = null;
+        while (id == null) {
             if (scanner.hasNextLong()) {
-                movieId = scanner.nextLong();
+                id = scanner.nextLong();
             } else {
                 scanner.next();
                 System.err.println("Invalid input. Please enter a valid ID.");
             }
         }
-        if (movieService.getMovieById(movieId) == null) {
-            throw new MovieRentalsException("Movie not found in the Repository.");
-        }
-
-        float rentalCharge = movieService.getMovieById(clientId).getRentalPrice();
-        LocalDateTime rentalDate = LocalDateTime.now();
-        LocalDateTime dueDate = rentalDate.plusDays(1);
-
-        return new Rental(clientId, clientId, rentalCharge, rentalDate, dueDate);
+        return id;
     }
 
     private void handlePrintAllRentals() {
         try {
-            Iterable<Rental> rentals = rentalService.getAllRentals();
-            rentals.forEach(System.out::println);
+            printPages(rentalService::getRentalsPage);
         } catch (MovieRentalsException e) {
             System.err.println("An error occurred: " + e.getMessage());
             e.printStackTrace();
@@ -340,6 +395,7 @@ public class Console {
             System.out.println("5. Delete Client");
             System.out.println("6. Filter Client by Last Name");
             System.out.println("7. Generate Clients Report");
+            System.out.println("8. Import Clients from a CSV or XML File");
             System.out.println("0. Back");
             System.out.print("\nEnter your option: ");
 
@@ -367,6 +423,9 @@ public class Console {
                     case 7:
                         this.handleGenerateClientsReport();
                         break;
+                    case 8:
+                        this.handleImportClients();
+                        break;
                     case 0:
                         return;
                     default:
@@ -400,6 +459,18 @@ public class Console {
         }
     }
 
+    /**
+     * Handle import Clients from a CSV or XML file
+     */
+    private void handleImportClients() {
+        Path file = readImportFile();
+        try {
+            printImportReport(importer.importClients(file));
+        } catch (MovieRentalsException e) {
+            System.err.println("An error occurred: " + e.getMessage());
+        }
+    }
+
     private void handleFilterClientsByKeyword() {
         System.out.print("Enter a keyword to filter: ");
         String keyword = scanner.next();
@@ -490,8 +561,7 @@ public class Console {
      */
     private void handleGetAllClients() {
         try {
-            Iterable<Client> clients = clientService.getAllClients();
-            clients.forEach(System.out::println);
+            printPages(clientService::getClientsPage);
         } catch (MovieRentalsException e) {
             System.err.println("An error occurred: " + e.getMessage());
         }
@@ -554,6 +624,7 @@ public class Console {
             System.out.println("4. Update Movie");
             System.out.println("5. Delete Movie");
             System.out.println("6. Filter Movies by Keyword");
+            System.out.println("7. Import Movies from a CSV or XML File");
             System.out.println("0. Back");
             System.out.print("\nEnter your option: ");
 
@@ -578,6 +649,9 @@ public class Console {
                     case 6:
                         this.handleFilterMoviesByKeyword();
                         break;
+                    case 7:
+                        this.handleImportMovies();
+                        break;
                     case 0:
                         return;
                     default:
@@ -608,6 +682,39 @@ public class Console {
         }
     }
 
+    /**
+     * Handle import Movies from a CSV or XML file
+     */
+    private void handleImportMovies() {
+        Path file = readImportFile();
+        try {
+            printImportReport(importer.importMovies(file));
+        } catch (MovieRentalsException e) {
+            System.err.println("An error occurred: " + e.getMessage());
+        }
+    }
+
+    private Path readImportFile() {
+        scanner.nextLine();
+        while (true) {
+            System.out.print("Enter the path of the CSV or XML file: ");
+            Path file = Path.of(scanner.nextLine().trim());
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+            System.err.println("File not found. Please enter a valid path.");
+        }
+    }
+
+    private void printImportReport(ImportReport report) {
+        System.out.println("Read: " + report.getRead() + ", imported: " + report.getImported()
+                + ", rejected: " + report.getRejected() + " in " + report.getElapsedMillis() + " ms.");
+        if (report.getRejected() > 0) {
+            report.getRejectionSamples().forEach(rejection -> System.out.println("Rejected #" + rejection));
+            System.out.println("All rejected records are listed in " + report.getRejectedRowsFile());
+        }
+    }
+
     /**
      * Handle update Movie feature
      */
@@ -697,14 +804,34 @@ public class Console {
      */
     private void handleGetAllMovies() {
         try {
-            Iterable<Movie> movies = movieService.getAllMovies();
-            movies.forEach(System.out::println);
+            printPages(movieService::getMoviesPage);
         } catch (MovieRentalsException e) {
             System.err.println("An error occurred: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    /**
+     * Print entities page by page, asking before loading the next page.
+     *
+     * @param pageLoader loads the page after the given id.
+     */
+    private <T extends BaseEntity<Long>> void printPages(BiFunction<Long, Integer, List<T>> pageLoader) {
+        Long afterId = null;
+        while (true) {
+            List<T> page = pageLoader.apply(afterId, PAGE_SIZE);
+            page.forEach(System.out::println);
+            if (page.size() < PAGE_SIZE) {
+                return;
+            }
+            afterId = page.get(page.size() - 1).getId();
+            System.out.print("Enter 'n' for the next page or any other key to go back: ");
+            if (!scanner.next().equalsIgnoreCase("n")) {
+                return;
+            }
+        }
+    }
+
     /**
      * Handle Add Movie feature.
      */
@@ -0,0 +1,85 @@
+package ro.ccms.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonTest {
+
+    @Test
+    void writesValues() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        object.put("id", 1L);
+        object.put("title", "Say \"hi\"\n\\ \u0001");
+        object.put("price", 2.5f);
+        object.put("available", true);
+        object.put("genre", null);
+        object.put("date", LocalDate.of(2023, 1, 2));
+        object.put("tags", List.of("a", "b"));
+        object.put("nan", Double.NaN);
+
+        assertEquals("{\"id\":1,\"title\":\"Say \\\"hi\\\"\\n\\\\ \\u0001\",\"price\":2.5,\"available\":true,"
+                + "\"genre\":null,\"date\":\"2023-01-02\",\"tags\":[\"a\",\"b\"],\"nan\":null}", Json.write(object));
+    }
+
+    @Test
+    void parsesValues() {
+        Object value = Json.parse(" { \"id\" : 12, \"price\": -2.5e1, \"ok\": false, \"none\": null,"
+                + " \"name\": \"a\\\"b\\u0041\\n\", \"list\": [1, [], {}] } ");
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("id", 12L);
+        expected.put("price", -25.0);
+        expected.put("ok", false);
+        expected.put("none", null);
+        expected.put("name", "a\"bA\n");
+        expected.put("list", List.of(1L, List.of(), Map.of()));
+        assertEquals(expected, value);
+    }
+
+    @Test
+    void readsBackWhatItWrites() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        object.put("text", "tab\t and \u00e9");
+        object.put("numbers", Arrays.asList(1L, -2L, 3.25, null));
+        assertEquals(object, Json.parse(Json.write(object)));
+    }
+
+    @Test
+    void rejectsInvalidText() {
+        for (String text : List.of("", "{", "[1,]", "{\"a\" 1}", "{a: 1}", "\"open", "tru", "1 2", "-", "\"\\x\"",
+                "\"\\u12\"")) {
+            assertThrows(IllegalArgumentException.class, () -> Json.parse(text), text);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Json.parse(null));
+    }
+
+    @Test
+    void limitsTheNestingDepth() {
+        List<?> array = (List<?>) Json.parse("[".repeat(Json.MAX_DEPTH) + "]".repeat(Json.MAX_DEPTH));
+        for (int level = 1; level < Json.MAX_DEPTH; level++) {
+            assertEquals(1, array.size());
+            array = (List<?>) array.get(0);
+        }
+        assertEquals(List.of(), array);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> Json.parse("[".repeat(Json.MAX_DEPTH + 1) + "]".repeat(Json.MAX_DEPTH + 1)));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\":".repeat(Json.MAX_DEPTH + 1)));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[".repeat(1_000_000)));
+    }
+
+    @Test
+    void depthIsCountedPerPath() {
+        String sibling = "[".repeat(Json.MAX_DEPTH - 1) + "]".repeat(Json.MAX_DEPTH - 1);
+        String siblings = "[" + String.join(",", List.of(sibling, sibling, sibling)) + "]";
+        assertEquals(3, ((List<?>) Json.parse(siblings)).size());
+    }
+}
@@ -0,0 +1,246 @@
+package ro.ccms.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ro.ccms.domain.AgeRestrictions;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.MovieGenres;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.validators.MovieValidator;
+import ro.ccms.repository.memory.InMemoryRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchLoaderTest {
+    private static final int MOVIES = 20;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void loadsAndLeavesOutMissingIds() {
+        BlockingRepository repository = new BlockingRepository();
+        BatchLoader<Long, Movie> loader = new BatchLoader<>(repository);
+
+        assertEquals("Movie 3", loader.load(3L).orElseThrow().getTitle());
+        assertEquals(Optional.empty(), loader.load(MOVIES + 1L));
+        Map<Long, Movie> movies = loader.loadAll(List.of(5L, MOVIES + 1L, 2L, 5L));
+        assertEquals(List.of(5L, 2L), new ArrayList<>(movies.keySet()));
+        assertThrows(IllegalArgumentException.class, () -> loader.loadAll(Arrays.asList(1L, null)));
+        assertThrows(IllegalArgumentException.class, () -> loader.load(null));
+    }
+
+    @Test
+    void concurrentLookupsOfTheSameIdShareOneQuery() throws Exception {
+        BlockingRepository repository = new BlockingRepository();
+        BatchLoader<Long, Movie> loader = new BatchLoader<>(repository, 100, 1);
+        repository.blockBatches();
+
+        Future<Optional<Movie>> first = executor.submit(() -> loader.load(1L));
+        awaitUntil(() -> repository.inFlight.get() == 1);
+        List<Future<Optional<Movie>>> duplicates = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            duplicates.add(executor.submit(() -> loader.load(2L)));
+        }
+        awaitUntil(() -> loader.getRequestCount() == 11);
+        repository.release();
+
+        assertEquals(1L, first.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        for (Future<Optional<Movie>> duplicate : duplicates) {
+            assertEquals(2L, duplicate.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        }
+        assertEquals(1, repository.queriesOf(2L));
+        assertEquals(2, loader.getBatchCount());
+        assertEquals(2, loader.getLoadedIdCount());
+    }
+
+    @Test
+    void failedBatchFailsEveryWaiterAndLeavesNothingPending() throws Exception {
+        BlockingRepository repository = new BlockingRepository();
+        BatchLoader<Long, Movie> loader = new BatchLoader<>(repository, 100, 1);
+        repository.blockBatches();
+
+        Future<Optional<Movie>> first = executor.submit(() -> loader.load(1L));
+        awaitUntil(() -> repository.inFlight.get() == 1);
+        repository.failBatchesWith(2L);
+        List<Future<?>> waiters = new ArrayList<>();
+        waiters.add(executor.submit(() -> loader.load(2L)));
+        waiters.add(executor.submit(() -> loader.load(2L)));
+        waiters.add(executor.submit(() -> loader.loadAll(List.of(3L, 4L))));
+        awaitUntil(() -> loader.getRequestCount() == 5);
+        repository.release();
+
+        assertEquals(1L, first.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        for (Future<?> waiter : waiters) {
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(MovieRentalsException.class, failure.getCause());
+        }
+
+        repository.failBatchesWith(null);
+        assertEquals(3L, loader.load(3L).orElseThrow().getId());
+        assertEquals(2L, loader.load(2L).orElseThrow().getId());
+    }
+
+    @Test
+    void runsAtMostMaxConcurrentBatches() throws Exception {
+        BlockingRepository repository = new BlockingRepository();
+        BatchLoader<Long, Movie> loader = new BatchLoader<>(repository, 100, 2);
+        repository.blockBatches();
+
+        List<Future<Optional<Movie>>> lookups = new ArrayList<>();
+        for (long id = 1; id <= MOVIES; id++) {
+            long movieId = id;
+            lookups.add(executor.submit(() -> loader.load(movieId)));
+        }
+        awaitUntil(() -> loader.getRequestCount() == MOVIES && repository.inFlight.get() == 2);
+        Thread.sleep(50);
+        assertEquals(2, repository.inFlight.get());
+        repository.release();
+
+        for (int i = 0; i < lookups.size(); i++) {
+            assertEquals(i + 1L, lookups.get(i).get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        }
+        assertEquals(2, repository.maxInFlight.get());
+        assertTrue(loader.getBatchCount() < MOVIES, "batches: " + loader.getBatchCount());
+        assertFalse(loader.getLoadedIdCount() > MOVIES);
+    }
+
+    @Test
+    void callerStopsLoadingOnceItsOwnIdsAreLoaded() throws Exception {
+        BlockingRepository repository = new BlockingRepository();
+        BatchLoader<Long, Movie> loader = new BatchLoader<>(repository, 1, 1);
+        repository.blockBatches();
+
+        Future<Optional<Movie>> first = executor.submit(() -> loader.load(1L));
+        awaitUntil(() -> repository.inFlight.get() == 1);
+        List<Future<Optional<Movie>>> others = new ArrayList<>();
+        for (long id = 2; id <= 5; id++) {
+            long movieId = id;
+            others.add(executor.submit(() -> loader.load(movieId)));
+        }
+        awaitUntil(() -> loader.getRequestCount() == 5);
+        repository.release();
+
+        assertEquals(1L, first.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        for (int i = 0; i < others.size(); i++) {
+            assertEquals(i + 2L, others.get(i).get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        }
+        Thread firstLoader = repository.loaderOf(1L);
+        for (long id = 2; id <= 5; id++) {
+            assertTrue(repository.loaderOf(id) != firstLoader, "The first caller loaded id " + id);
+        }
+    }
+
+    @Test
+    void interruptedCallerLeavesItsBatchToTheOthers() throws Exception {
+        BlockingRepository repository = new BlockingRepository();
+        BatchLoader<Long, Movie> loader = new BatchLoader<>(repository, 100, 1);
+        repository.blockBatches();
+
+        Future<Optional<Movie>> interrupted = executor.submit(() -> loader.load(1L));
+        awaitUntil(() -> repository.inFlight.get() == 1);
+        Future<Map<Long, Movie>> other = executor.submit(() -> loader.loadAll(List.of(1L, 2L)));
+        awaitUntil(() -> loader.getRequestCount() == 3);
+        interrupted.cancel(true);
+        awaitUntil(() -> repository.inFlight.get() == 1 && repository.queriesOf(1L) == 2);
+        repository.release();
+
+        assertEquals(List.of(1L, 2L), new ArrayList<>(other.get(5, TimeUnit.SECONDS).keySet()));
+        assertEquals(1, repository.queriesOf(2L));
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting.");
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Movies 1 to {@link #MOVIES}, whose batch queries can be held, and fail when they contain a given id.
+     */
+    private static class BlockingRepository extends InMemoryRepository<Movie> {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final Map<Long, AtomicInteger> queries = new ConcurrentHashMap<>();
+        private final Map<Long, Thread> loaders = new ConcurrentHashMap<>();
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private volatile Long failingId;
+
+        BlockingRepository() {
+            super(new MovieValidator());
+            for (int i = 1; i <= MOVIES; i++) {
+                save(new Movie("Movie " + i, 2000, MovieGenres.ACTION, AgeRestrictions.GA, 3, true));
+            }
+        }
+
+        void blockBatches() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        void failBatchesWith(Long id) {
+            failingId = id;
+        }
+
+        Thread loaderOf(long id) {
+            return loaders.get(id);
+        }
+
+        int queriesOf(long id) {
+            AtomicInteger count = queries.get(id);
+            return count == null ? 0 : count.get();
+        }
+
+        @Override
+        public List<Movie> findAllById(Collection<Long> ids) {
+            int running = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(running, Math::max);
+            try {
+                ids.forEach(id -> {
+                    queries.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+                    loaders.put(id, Thread.currentThread());
+                });
+                gate.await();
+                Long failing = failingId;
+                if (failing != null && ids.contains(failing)) {
+                    throw new MovieRentalsException("Database connection exception. ");
+                }
+                return super.findAllById(ids);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MovieRentalsException("Interrupted. ");
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package ro.ccms.repository;
+
+import org.junit.jupiter.api.Test;
+import ro.ccms.domain.AgeRestrictions;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.MovieGenres;
+import ro.ccms.domain.validators.MovieValidator;
+import ro.ccms.repository.memory.InMemoryRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachingRepositoryTest {
+    private static final long TTL_MILLIS = 60_000;
+
+    @Test
+    void servesRepeatedLookupsFromTheCache() {
+        CountingRepository repository = new CountingRepository(3);
+        CachingRepository<Long, Movie> cache = new CachingRepository<>(repository, 10, TTL_MILLIS, false);
+
+        assertEquals("Movie 1", cache.findOne(1L).orElseThrow().getTitle());
+        assertEquals("Movie 1", cache.findOne(1L).orElseThrow().getTitle());
+        assertEquals(1, repository.lookups);
+
+        List<Movie> movies = cache.findAllById(List.of(1L, 2L, 9L));
+        assertEquals(List.of(1L, 2L), movies.stream().map(Movie::getId).toList());
+        assertEquals(List.of(List.of(2L, 9L)), repository.batches);
+
+        CacheStatistics statistics = cache.getStatistics();
+        assertEquals(2, statistics.getHits());
+        assertEquals(3, statistics.getMisses());
+        assertEquals(2, statistics.getSize());
+        assertThrows(IllegalArgumentException.class, () -> cache.findOne(null));
+    }
+
+    @Test
+    void cachesMissingIdsOnlyWhenAsked() {
+        CountingRepository repository = new CountingRepository(3);
+        CachingRepository<Long, Movie> cache = new CachingRepository<>(repository, 10, TTL_MILLIS, false);
+        assertEquals(Optional.empty(), cache.findOne(4L));
+        assertEquals(Optional.empty(), cache.findOne(4L));
+        assertEquals(2, repository.lookups);
+
+        repository = new CountingRepository(3);
+        cache = new CachingRepository<>(repository, 10, TTL_MILLIS, true);
+        assertEquals(Optional.empty(), cache.findOne(4L));
+        assertEquals(Optional.empty(), cache.findOne(4L));
+        assertEquals(1, repository.lookups);
+        assertEquals(1, cache.getStatistics().getNegativeHits());
+
+        // The new movie gets id 4, which must no longer be cached as missing.
+        cache.save(movie(null, "Movie 4"));
+        assertEquals("Movie 4", cache.findOne(4L).orElseThrow().getTitle());
+    }
+
+    @Test
+    void loadsExpiredEntriesAgain() {
+        CountingRepository repository = new CountingRepository(3);
+        CachingRepository<Long, Movie> cache = new CachingRepository<>(repository, 10, 0, true);
+
+        cache.findOne(1L);
+        cache.findOne(1L);
+        cache.findOne(9L);
+        cache.findOne(9L);
+
+        assertEquals(4, repository.lookups);
+        assertEquals(2, cache.getStatistics().getExpirations());
+        assertEquals(0, cache.getStatistics().getHits());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        CountingRepository repository = new CountingRepository(3);
+        CachingRepository<Long, Movie> cache = new CachingRepository<>(repository, 2, TTL_MILLIS, false);
+
+        cache.findOne(1L);
+        cache.findOne(2L);
+        cache.findOne(1L);
+        cache.findOne(3L);
+        assertEquals(3, repository.lookups);
+        assertEquals(1, cache.getStatistics().getEvictions());
+
+        cache.findOne(1L);
+        assertEquals(3, repository.lookups);
+        cache.findOne(2L);
+        assertEquals(4, repository.lookups);
+        assertEquals(2, cache.getStatistics().getSize());
+    }
+
+    @Test
+    void writesInvalidateTheIdsTheyTouch() {
+        CountingRepository repository = new CountingRepository(3);
+        CachingRepository<Long, Movie> cache = new CachingRepository<>(repository, 10, TTL_MILLIS, true);
+        cache.findAllById(List.of(1L, 2L, 3L));
+
+        cache.update(movie(1L, "Updated"));
+        assertEquals("Updated", cache.findOne(1L).orElseThrow().getTitle());
+
+        cache.delete(2L);
+        assertEquals(Optional.empty(), cache.findOne(2L));
+
+        cache.updateAll(List.of(movie(3L, "Updated too")));
+        assertEquals("Updated too", cache.findOne(3L).orElseThrow().getTitle());
+
+        cache.deleteAllById(List.of(3L));
+        assertEquals(Optional.empty(), cache.findOne(3L));
+        assertEquals(4, cache.getStatistics().getInvalidations());
+    }
+
+    @Test
+    void invalidatesAgainWhenTheTransactionEnds() {
+        CountingRepository repository = new CountingRepository(3);
+        QueuingTransactionManager transactions = new QueuingTransactionManager();
+        CachingRepository<Long, Movie> cache = new CachingRepository<>(repository, 10, TTL_MILLIS, false,
+                transactions);
+
+        updateWhileAnotherThreadReadsTheCommittedRow(repository, cache);
+        assertEquals("Movie 1", cache.findOne(1L).orElseThrow().getTitle());
+        transactions.complete();
+
+        assertEquals("Updated", cache.findOne(1L).orElseThrow().getTitle());
+    }
+
+    @Test
+    void keepsTheStaleEntryWithoutATransactionManager() {
+        CountingRepository repository = new CountingRepository(3);
+        CachingRepository<Long, Movie> cache = new CachingRepository<>(repository, 10, TTL_MILLIS, false);
+
+        updateWhileAnotherThreadReadsTheCommittedRow(repository, cache);
+
+        assertEquals("Movie 1", cache.findOne(1L).orElseThrow().getTitle());
+    }
+
+    /**
+     * Updates movie 1 in a transaction that has not committed yet, during which a lookup still loads and caches
+     * the committed row; the transaction then commits.
+     */
+    private static void updateWhileAnotherThreadReadsTheCommittedRow(CountingRepository repository,
+                                                                   CachingRepository<Long, Movie> cache) {
+        Movie committed = repository.findOne(1L).orElseThrow();
+        cache.update(movie(1L, "Updated"));
+        repository.committedRow = committed;
+        cache.findOne(1L);
+        repository.committedRow = null;
+    }
+
+    private static Movie movie(Long id, String title) {
+        Movie movie = new Movie(title, 2000, MovieGenres.ACTION, AgeRestrictions.GA, 3, true);
+        movie.setId(id);
+        return movie;
+    }
+
+    /**
+     * Movies 1 to n that counts the lookups reaching it, and can show a row as it was before an update.
+     */
+    private static class CountingRepository extends InMemoryRepository<Movie> {
+        private final List<List<Long>> batches = new ArrayList<>();
+        private int lookups;
+        private Movie committedRow;
+
+        CountingRepository(int movies) {
+            super(new MovieValidator());
+            for (int i = 1; i <= movies; i++) {
+                save(movie(null, "Movie " + i));
+            }
+        }
+
+        @Override
+        public Optional<Movie> findOne(Long id) {
+            lookups++;
+            if (committedRow != null && committedRow.getId().equals(id)) {
+                return Optional.of(committedRow);
+            }
+            return super.findOne(id);
+        }
+
+        @Override
+        public List<Movie> findAllById(Collection<Long> ids) {
+            batches.add(List.copyOf(ids));
+            return super.findAllById(ids);
+        }
+    }
+
+    /**
+     * Keeps the after-completion actions until the test ends the transaction.
+     */
+    private static class QueuingTransactionManager implements TransactionManager {
+        private final List<Runnable> actions = new ArrayList<>();
+
+        @Override
+        public <R> R inTransaction(Supplier<R> work) {
+            return work.get();
+        }
+
+        @Override
+        public void afterCompletion(Runnable action) {
+            actions.add(action);
+        }
+
+        void complete() {
+            assertTrue(!actions.isEmpty(), "No action was queued.");
+            actions.forEach(Runnable::run);
+            actions.clear();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package ro.ccms.repository;
+
+import org.junit.jupiter.api.Test;
+import ro.ccms.domain.AgeRestrictions;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.MovieGenres;
+import ro.ccms.domain.exceptions.ValidatorException;
+import ro.ccms.domain.validators.MovieValidator;
+import ro.ccms.repository.memory.InMemoryRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GroupCommitWriterTest {
+
+    @Test
+    void groupsConcurrentSavesIntoBatches() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        List<CompletableFuture<Movie>> futures = new ArrayList<>();
+        try (GroupCommitWriter<Long, Movie> writer = new GroupCommitWriter<>(repository, 10, 50)) {
+            for (int i = 0; i < 30; i++) {
+                futures.add(writer.submit(movie("Movie " + i)));
+            }
+            for (CompletableFuture<Movie> future : futures) {
+                assertNotNull(future.get(5, TimeUnit.SECONDS).getId());
+            }
+            assertEquals(30, writer.getSavedCount());
+            assertTrue(writer.getBatchCount() < 30, "batches: " + writer.getBatchCount());
+        }
+        assertEquals(30, repository.size());
+        repository.batchSizes.forEach(size -> assertTrue(size <= 10, "batch size: " + size));
+    }
+
+    @Test
+    void invalidEntityFailsOnlyItsOwnSave() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        repository.blockNextBatch();
+        try (GroupCommitWriter<Long, Movie> writer = new GroupCommitWriter<>(repository, 10, 0)) {
+            CompletableFuture<Movie> blocker = writer.submit(movie("Blocker"));
+            repository.awaitBlocked();
+            CompletableFuture<Movie> valid = writer.submit(movie("Valid"));
+            CompletableFuture<Movie> invalid = writer.submit(movie(""));
+            CompletableFuture<Movie> alsoValid = writer.submit(movie("Also valid"));
+            repository.unblock();
+
+            blocker.get(5, TimeUnit.SECONDS);
+            assertNotNull(valid.get(5, TimeUnit.SECONDS).getId());
+            assertNotNull(alsoValid.get(5, TimeUnit.SECONDS).getId());
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> invalid.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ValidatorException.class, failure.getCause());
+            assertEquals(1, writer.getFailedCount());
+        }
+    }
+
+    @Test
+    void errorFailsTheBatchAndTheWriterKeepsCommitting() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        repository.failNextBatchWith(new AssertionError("disk on fire"));
+        try (GroupCommitWriter<Long, Movie> writer = new GroupCommitWriter<>(repository, 10, 0)) {
+            CompletableFuture<Movie> failed = writer.submit(movie("First"));
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> failed.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(AssertionError.class, failure.getCause());
+
+            assertNotNull(writer.submit(movie("Second")).get(5, TimeUnit.SECONDS).getId());
+        }
+    }
+
+    @Test
+    void stoppedCommitterClosesTheWriter() throws Exception {
+        GroupCommitWriter<Long, Movie> writer = new GroupCommitWriter<>(new RecordingRepository(), 10, 0);
+        writer.submit(movie("First")).get(5, TimeUnit.SECONDS);
+        Thread committer = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("group-commit"))
+                .findFirst()
+                .orElseThrow();
+        committer.interrupt();
+        committer.join(5_000);
+
+        assertThrows(IllegalStateException.class, () -> writer.submit(movie("Second")));
+        writer.close();
+    }
+
+    @Test
+    void closeCommitsTheQueuedSaves() throws Exception {
+        RecordingRepository repository = new RecordingRepository();
+        repository.blockNextBatch();
+        GroupCommitWriter<Long, Movie> writer = new GroupCommitWriter<>(repository, 10, 0);
+        CompletableFuture<Movie> first = writer.submit(movie("First"));
+        repository.awaitBlocked();
+        CompletableFuture<Movie> second = writer.submit(movie("Second"));
+        repository.unblock();
+        writer.close();
+
+        assertTrue(first.isDone() && second.isDone());
+        assertNotNull(second.get().getId());
+        assertThrows(IllegalStateException.class, () -> writer.submit(movie("Third")));
+    }
+
+    private static Movie movie(String title) {
+        return new Movie(title, 2000, MovieGenres.ACTION, AgeRestrictions.GA, 3, true);
+    }
+
+    /**
+     * Records the batch sizes, and can hold or fail the next batch.
+     */
+    private static class RecordingRepository extends InMemoryRepository<Movie> {
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final AtomicBoolean blockNext = new AtomicBoolean();
+        private Error nextError;
+
+        RecordingRepository() {
+            super(new MovieValidator());
+        }
+
+        void blockNextBatch() {
+            blockNext.set(true);
+        }
+
+        void awaitBlocked() throws InterruptedException {
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        }
+
+        void unblock() {
+            released.countDown();
+        }
+
+        void failNextBatchWith(Error error) {
+            nextError = error;
+        }
+
+        @Override
+        public Iterable<Movie> saveAll(Iterable<Movie> entities) {
+            if (blockNext.getAndSet(false)) {
+                blocked.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (nextError != null) {
+                Error error = nextError;
+                nextError = null;
+                throw error;
+            }
+            int size = 0;
+            for (Movie ignored : entities) {
+                size++;
+            }
+            batchSizes.add(size);
+            return super.saveAll(entities);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ro.ccms.repository;
+
+import org.junit.jupiter.api.Test;
+import ro.ccms.domain.Client;
+import ro.ccms.domain.Movie;
+import ro.ccms.domain.Rental;
+import ro.ccms.domain.exceptions.MovieRentalsException;
+import ro.ccms.domain.validators.ClientValidator;
+import ro.ccms.domain.validators.MovieValidator;
+import ro.ccms.repository.memory.InMemoryRentalRepository;
+import ro.ccms.repository.memory.InMemoryRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RentalCopyCodecTest {
+    private static final LocalDateTime NOON = LocalDateTime.of(2023, 1, 2, 12, 0);
+
+    @Test
+    void readsBackWhatItWritesInEveryFormat() throws IOException {
+        List<Rental> rentals = List.of(
+                new Rental(1L, 2L, 3.5f, NOON, NOON.plusDays(1)),
+                new Rental(4L, 5L, 10f, NOON.plusNanos(123_456_000), NOON.plusHours(20)));
+        for (CopyFormat format : CopyFormat.values()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertEquals(2, RentalCopyCodec.write(out, format, rentals));
+
+            List<Rental> read = RentalCopyCodec.read(new ByteArrayInputStream(out.toByteArray()), format);
+            assertEquals(describe(rentals), describe(read), format.name());
+        }
+    }
+
+    @Test
+    void readsCsvAsPostgreSqlWritesIt() throws IOException {
+        String csv = "movie_id,client_id,rental_charge,rental_date,due_date\n"
+                + "7,8,2.5,2023-01-02 12:00:00,2023-01-03 12:00:00\n"
+                + "\n"
+                + "9,10,3,2023-01-02 12:00:00.5,\"2023-01-03 11:00:00\"\r\n";
+
+        List<Rental> read = RentalCopyCodec.read(bytes(csv), CopyFormat.CSV);
+
+        assertEquals(List.of("7 8 2.5 2023-01-02T12:00 2023-01-03T12:00",
+                "9 10 3.0 2023-01-02T12:00:00.500 2023-01-03T11:00"), describe(read));
+    }
+
+    @Test
+    void writesCsvAsPostgreSqlReadsIt() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RentalCopyCodec.write(out, CopyFormat.CSV,
+                List.of(new Rental(1L, 2L, 3.5f, NOON.plusNanos(250_000_000), NOON.plusDays(1))));
+
+        assertEquals("movie_id,client_id,rental_charge,rental_date,due_date\n"
+                + "1,2,3.5,2023-01-02 12:00:00.25,2023-01-03 12:00:00\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void rejectsMalformedRows() throws IOException {
+        String header = "movie_id,client_id,rental_charge,rental_date,due_date\n";
+        for (String row : List.of("1,2,3.5,2023-01-02 12:00:00", "x,2,3.5,2023-01-02 12:00:00,2023-01-03 12:00:00",
+                "1,2,3.5,2023-01-02,2023-01-03 12:00:00")) {
+            assertThrows(IOException.class, () -> RentalCopyCodec.read(bytes(header + row), CopyFormat.CSV), row);
+        }
+        assertThrows(IOException.class, () -> RentalCopyCodec.read(bytes(header), CopyFormat.BINARY));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, RentalCopyCodec.write(out, CopyFormat.BINARY, List.of()));
+        byte[] withoutTrailer = new byte[out.size() - Short.BYTES];
+        System.arraycopy(out.toByteArray(), 0, withoutTrailer, 0, withoutTrailer.length);
+        assertThrows(IOException.class,
+                () -> RentalCopyCodec.read(new ByteArrayInputStream(withoutTrailer), CopyFormat.BINARY));
+    }
+
+    @Test
+    void inMemoryRepositoryCopiesAllRowsOrNone() {
+        InMemoryRentalRepository repository = new InMemoryRentalRepository(
+                new InMemoryRepository<Movie>(new MovieValidator()), new InMemoryRepository<Client>(new ClientValidator()));
+        String header = "movie_id,client_id,rental_charge,rental_date,due_date\n";
+        String valid = "1,2,3.5,2023-01-02 12:00:00,2023-01-03 12:00:00\n";
+
+        assertThrows(MovieRentalsException.class, () -> repository.copyIn(bytes(header + valid
+                + "1,2,0,2023-01-02 12:00:00,2023-01-03 12:00:00\n"), CopyFormat.CSV));
+        assertEquals(0, repository.size());
+
+        assertEquals(2, repository.copyIn(bytes(header + valid + valid), CopyFormat.CSV));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(2, repository.copyOut(out, CopyFormat.CSV));
+        assertEquals(header + valid + valid, out.toString(StandardCharsets.UTF_8));
+    }
+
+    private static ByteArrayInputStream bytes(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> describe(List<Rental> rentals) {
+        List<String> descriptions = new ArrayList<>();
+        rentals.stream()
+                .sorted(Comparator.comparing(Rental::getMovieId))
+                .forEach(rental -> descriptions.add(rental.getMovieId() + " " + rental.getClientId() + " "
+                        + rental.getRentalCharge() + " " + rental.getRentalDate() + " " + rental.getDueDate()));
+        return descriptions;
+    }
+}
@@ -0,0 +1,102 @@
+package ro.ccms.repository.memory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongObjectHashMapTest {
+
+    @Test
+    void putsGetsAndRemoves() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertTrue(map.isEmpty());
+
+        assertNull(map.put(1, "one"));
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(-1, "minus one"));
+        assertNull(map.put(Long.MIN_VALUE, "min"));
+        assertEquals("one", map.put(1, "uno"));
+
+        assertEquals(4, map.size());
+        assertEquals("uno", map.get(1));
+        assertEquals("zero", map.get(0));
+        assertEquals("minus one", map.get(-1));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertNull(map.get(2));
+        assertFalse(map.containsKey(Long.MAX_VALUE));
+
+        assertEquals("zero", map.remove(0));
+        assertNull(map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void rejectsNullValues() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void growsPastItsExpectedSize() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(4);
+        for (long key = 1; key <= 10_000; key++) {
+            map.put(key, key * 10);
+        }
+        assertEquals(10_000, map.size());
+        for (long key = 1; key <= 10_000; key++) {
+            assertEquals(key * 10, map.get(key));
+        }
+    }
+
+    @Test
+    void removalsKeepTheOtherKeysReachable() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 2_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    void visitsEveryEntryAndClears() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        for (long key = -50; key < 50; key++) {
+            map.put(key, "v" + key);
+        }
+
+        Map<Long, String> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(100, visited.size());
+        visited.forEach((key, value) -> assertEquals("v" + key, value));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+        map.forEach((key, value) -> {
+            throw new AssertionError("Visited " + key);
+        });
+        map.put(7, "seven");
+        assertEquals("seven", map.get(7));
+    }
+}
@@ -0,0 +1,228 @@
+package ro.ccms.repository.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WriteAheadLogTest {
+    private static final int HEADER_BYTES = 12;
+    private static final int BODY_HEADER_BYTES = 9;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysTheRecordsInOrder() throws IOException {
+        Path path = directory.resolve("test.wal");
+        try (WriteAheadLog log = open(path)) {
+            log.replay(ignoringRecords());
+            log.append(WriteAheadLog.PUT, 1, payload("first"));
+            log.append(WriteAheadLog.DELETE, 2, new byte[0]);
+            log.append(WriteAheadLog.PUT, 3, payload("third"));
+        }
+
+        List<String> records = new ArrayList<>();
+        try (WriteAheadLog log = open(path)) {
+            assertEquals(3, log.replay(collectingInto(records)));
+        }
+        assertEquals(List.of("1:1:first", "2:2:", "1:3:third"), records);
+    }
+
+    @Test
+    void cutsOffATornLastRecordAndAppendsAfterTheValidOnes() throws IOException {
+        Path path = directory.resolve("test.wal");
+        try (WriteAheadLog log = open(path)) {
+            log.replay(ignoringRecords());
+            log.append(WriteAheadLog.PUT, 1, payload("first"));
+            log.append(WriteAheadLog.PUT, 2, payload("second"));
+        }
+        long validSize = HEADER_BYTES + BODY_HEADER_BYTES + "first".length();
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(file.length() - 2);
+        }
+
+        List<String> records = new ArrayList<>();
+        try (WriteAheadLog log = open(path)) {
+            assertEquals(1, log.replay(collectingInto(records)));
+            assertEquals(validSize, Files.size(path));
+            log.append(WriteAheadLog.PUT, 3, payload("third"));
+        }
+        assertEquals(List.of("1:1:first"), records);
+
+        records.clear();
+        try (WriteAheadLog log = open(path)) {
+            assertEquals(2, log.replay(collectingInto(records)));
+        }
+        assertEquals(List.of("1:1:first", "1:3:third"), records);
+    }
+
+    @Test
+    void cutsOffALastRecordWithAWrongChecksum() throws IOException {
+        Path path = directory.resolve("test.wal");
+        try (WriteAheadLog log = open(path)) {
+            log.replay(ignoringRecords());
+            log.append(WriteAheadLog.PUT, 1, payload("first"));
+            log.append(WriteAheadLog.PUT, 2, payload("second"));
+        }
+        flipByte(path, Files.size(path) - 1);
+
+        try (WriteAheadLog log = open(path)) {
+            assertEquals(1, log.replay(ignoringRecords()));
+        }
+        assertEquals(HEADER_BYTES + BODY_HEADER_BYTES + "first".length(), Files.size(path));
+    }
+
+    @Test
+    void cutsOffAZeroFilledTail() throws IOException {
+        Path path = directory.resolve("test.wal");
+        try (WriteAheadLog log = open(path)) {
+            log.replay(ignoringRecords());
+            log.append(WriteAheadLog.PUT, 1, payload("first"));
+        }
+        long validSize = Files.size(path);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(validSize + 4096);
+        }
+
+        try (WriteAheadLog log = open(path)) {
+            assertEquals(1, log.replay(ignoringRecords()));
+        }
+        assertEquals(validSize, Files.size(path));
+    }
+
+    @Test
+    void failsOnACorruptedRecordInTheMiddleAndKeepsTheLog() throws IOException {
+        Path path = directory.resolve("test.wal");
+        try (WriteAheadLog log = open(path)) {
+            log.replay(ignoringRecords());
+            log.append(WriteAheadLog.PUT, 1, payload("first"));
+            log.append(WriteAheadLog.PUT, 2, payload("second"));
+            log.append(WriteAheadLog.PUT, 3, payload("third"));
+        }
+        long size = Files.size(path);
+        long secondRecordEnd = 2L * (HEADER_BYTES + BODY_HEADER_BYTES) + "first".length() + "second".length();
+        flipByte(path, secondRecordEnd - 1);
+
+        try (WriteAheadLog log = open(path)) {
+            assertThrows(IOException.class, () -> log.replay(ignoringRecords()));
+        }
+        assertEquals(size, Files.size(path));
+    }
+
+    @Test
+    void failsOnACorruptedLengthInTheMiddleAndKeepsTheLog() throws IOException {
+        Path path = directory.resolve("test.wal");
+        try (WriteAheadLog log = open(path)) {
+            log.replay(ignoringRecords());
+            log.append(WriteAheadLog.PUT, 1, payload("first"));
+            log.append(WriteAheadLog.PUT, 2, payload("second"));
+            log.append(WriteAheadLog.PUT, 3, payload("third"));
+        }
+        long size = Files.size(path);
+        // The length of the second record now points far past the end of the file.
+        flipByte(path, HEADER_BYTES + BODY_HEADER_BYTES + "first".length());
+
+        List<String> records = new ArrayList<>();
+        try (WriteAheadLog log = open(path)) {
+            assertThrows(IOException.class, () -> log.replay(collectingInto(records)));
+        }
+        assertEquals(List.of("1:1:first"), records);
+        assertEquals(size, Files.size(path));
+    }
+
+    @Test
+    void truncateEmptiesTheLog() throws IOException {
+        Path path = directory.resolve("test.wal");
+        try (WriteAheadLog log = open(path)) {
+            log.replay(ignoringRecords());
+            log.append(WriteAheadLog.PUT, 1, payload("first"));
+            log.truncate();
+            assertEquals(0, log.size());
+            log.append(WriteAheadLog.PUT, 2, payload("second"));
+        }
+
+        List<String> records = new ArrayList<>();
+        try (WriteAheadLog log = open(path)) {
+            assertEquals(1, log.replay(collectingInto(records)));
+        }
+        assertEquals(List.of("1:2:second"), records);
+    }
+
+    @Test
+    void syncWaitsForTheAppendedRecords() throws IOException {
+        Path path = directory.resolve("test.wal");
+        try (WriteAheadLog log = new WriteAheadLog(path, SyncPolicy.ALWAYS, 0)) {
+            log.replay(ignoringRecords());
+            long position = log.append(WriteAheadLog.PUT, 1, payload("first"));
+            log.awaitDurable(position);
+            assertEquals(1, log.getSyncCount());
+            log.awaitDurable(position);
+            assertEquals(1, log.getSyncCount());
+        }
+        assertArrayEquals(payload("first"), readPayloadOfFirstRecord(path));
+    }
+
+    private static WriteAheadLog open(Path path) throws IOException {
+        return new WriteAheadLog(path, SyncPolicy.NEVER, 0);
+    }
+
+    private static byte[] payload(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static WriteAheadLog.RecordHandler ignoringRecords() {
+        return (operation, id, payload) -> {
+        };
+    }
+
+    private static WriteAheadLog.RecordHandler collectingInto(List<String> records) {
+        return (operation, id, payload) -> {
+            byte[] bytes = new byte[64];
+            int length = 0;
+            for (int b; length < bytes.length && (b = readOrEnd(payload)) != -1; ) {
+                bytes[length++] = (byte) b;
+            }
+            records.add(operation + ":" + id + ":" + new String(bytes, 0, length, StandardCharsets.UTF_8));
+        };
+    }
+
+    private static int readOrEnd(DataInput payload) {
+        try {
+            return payload.readUnsignedByte();
+        } catch (EOFException e) {
+            return -1;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void flipByte(Path path, long position) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(position);
+            int b = file.read();
+            file.seek(position);
+            file.write(b ^ 0xFF);
+        }
+    }
+
+    private static byte[] readPayloadOfFirstRecord(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        byte[] payload = new byte[bytes.length - HEADER_BYTES - BODY_HEADER_BYTES];
+        System.arraycopy(bytes, HEADER_BYTES + BODY_HEADER_BYTES, payload, 0, payload.length);
+        return payload;
+    }
+}